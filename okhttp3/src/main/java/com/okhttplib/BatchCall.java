@@ -0,0 +1,217 @@
+package com.okhttplib;
+
+import com.okhttplib.annotation.BatchMode;
+import com.okhttplib.bean.BatchMessage;
+import com.okhttplib.bean.BatchResult;
+import com.okhttplib.callback.BatchCallback;
+import com.okhttplib.callback.CallRegistry;
+import com.okhttplib.future.HttpFuture;
+import com.okhttplib.handler.OkMainHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 批量请求：限制同时进行的请求数量，所有请求结束（或快速失败）后汇总回调一次，
+ * 快速失败时取消进行中的请求，批量请求结束之前保留请求标识，请求标识销毁后不再发起剩余的请求
+ * @author zhousf
+ */
+final class BatchCall {
+
+    private final OkHttpUtil okHttpUtil;
+    private final List<HttpInfo> infos;
+    private final int maxConcurrency;
+    private final @BatchMode int mode;
+    private final BatchCallback callback;
+    private final String requestTag;
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private final long[] startTimes;
+    private final long[] costTimes;
+    private final HttpFuture<?>[] futures;
+    private long startTime;
+    private int nextIndex;
+    private int completedCount;
+    private int successCount;
+    private int failureCount;
+    private boolean finished;
+    private boolean aborted;
+    private BatchResult result;
+
+    BatchCall(OkHttpUtil okHttpUtil, List<HttpInfo> infos, int maxConcurrency,
+              @BatchMode int mode, BatchCallback callback, String requestTag) {
+        if(maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency must be > 0");
+        this.okHttpUtil = okHttpUtil;
+        this.infos = new ArrayList<>(infos);
+        this.maxConcurrency = maxConcurrency;
+        this.mode = mode;
+        this.callback = callback;
+        this.requestTag = requestTag;
+        this.startTimes = new long[this.infos.size()];
+        this.costTimes = new long[this.infos.size()];
+        this.futures = new HttpFuture<?>[this.infos.size()];
+        Arrays.fill(costTimes,-1);
+    }
+
+    /**
+     * 开始执行：最多同时发起maxConcurrency个请求，每结束一个请求补充一个
+     */
+    void start(){
+        startTime = System.nanoTime();
+        CallRegistry.hold(requestTag);
+        if(infos.isEmpty()){
+            synchronized (this){
+                finished = true;
+            }
+            deliver();
+            return ;
+        }
+        int count = Math.min(maxConcurrency,infos.size());
+        for (int i = 0; i < count; i++) {
+            submitNext();
+        }
+    }
+
+    /**
+     * 同步执行：阻塞当前线程直到批量请求结束
+     */
+    BatchResult execute(){
+        start();
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            synchronized (this){
+                if(!finished){
+                    finished = true;
+                    aborted = true;
+                    result = buildResult();
+                }
+            }
+            cancelRunning();
+        }
+        CallRegistry.release(requestTag);
+        synchronized (this){
+            return result;
+        }
+    }
+
+    private void submitNext(){
+        //请求标识已销毁：不再发起剩余的请求，避免重新注册已销毁的请求标识
+        if(CallRegistry.isDestroyed(requestTag)){
+            abort();
+            return ;
+        }
+        final int index;
+        synchronized (this){
+            if(finished || nextIndex >= infos.size())
+                return ;
+            index = nextIndex++;
+            startTimes[index] = System.nanoTime();
+        }
+        HttpFuture<HttpInfo> future = okHttpUtil.doFuture(infos.get(index));
+        boolean cancel;
+        synchronized (this){
+            futures[index] = future;
+            cancel = finished;
+        }
+        if(cancel){
+            future.cancel(true);
+            return ;
+        }
+        future.whenComplete(new HttpFuture.Listener<HttpInfo>() {
+            @Override
+            public void onComplete(HttpInfo info, Throwable error) {
+                //取消的请求不参与统计
+                if(null == error)
+                    onItemResponse(index,info);
+            }
+        });
+    }
+
+    private void onItemResponse(int index, HttpInfo info){
+        synchronized (this){
+            if(finished)
+                return ;
+            costTimes[index] = (System.nanoTime() - startTimes[index]) / 1000000L;
+            completedCount++;
+            if(info.isSuccessful()){
+                successCount++;
+            }else{
+                failureCount++;
+            }
+            if(!info.isSuccessful() && mode == BatchMode.FAIL_FAST){
+                finished = true;
+                aborted = completedCount < infos.size();
+            }else if(completedCount == infos.size()){
+                finished = true;
+            }
+        }
+        if(isFinished()){
+            if(mode == BatchMode.FAIL_FAST)
+                cancelRunning();
+            deliver();
+        }else{
+            submitNext();
+        }
+    }
+
+    /**
+     * 中止批量请求：取消进行中的请求并汇总已完成的结果
+     */
+    private void abort(){
+        synchronized (this){
+            if(finished)
+                return ;
+            finished = true;
+            aborted = true;
+        }
+        cancelRunning();
+        deliver();
+    }
+
+    private synchronized boolean isFinished(){
+        return finished;
+    }
+
+    /**
+     * 取消进行中的请求：批量请求结束后不再需要其他请求的结果
+     */
+    private void cancelRunning(){
+        HttpFuture<?>[] running;
+        synchronized (this){
+            running = futures.clone();
+        }
+        for(HttpFuture<?> future : running){
+            if(null != future && !future.isDone())
+                future.cancel(true);
+        }
+    }
+
+    /**
+     * 汇总结果：同步执行时唤醒等待线程，异步执行时切换到主线程回调一次，回调后释放请求标识
+     */
+    private void deliver(){
+        BatchResult batchResult;
+        synchronized (this){
+            if(null == result)
+                result = buildResult();
+            batchResult = result;
+        }
+        latch.countDown();
+        if(null != callback){
+            BatchMessage msg = new BatchMessage(OkMainHandler.RESPONSE_BATCH_CALLBACK,callback,batchResult,requestTag);
+            msg.heldTag = true;
+            OkMainHandler.getInstance().sendMessage(msg);
+        }
+    }
+
+    private BatchResult buildResult(){
+        return new BatchResult(infos,costTimes.clone(),successCount,failureCount,aborted,
+                (System.nanoTime() - startTime) / 1000000L);
+    }
+
+}
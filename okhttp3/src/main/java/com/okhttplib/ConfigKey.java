@@ -0,0 +1,77 @@
+package com.okhttplib;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 配置指纹：由配置项组成的键，
+ * 字符串、数值、布尔值与枚举按值比较，集合逐项比较，拦截器、CookieJar、线程池等对象按引用比较，
+ * 避免identityHashCode重复导致不同配置共享同一个客户端
+ * @author zhousf
+ */
+final class ConfigKey {
+
+    private final Object[] parts;
+    private final int hashCode;
+
+    /**
+     * @param parts 配置项：集合在创建时复制，之后修改集合不影响配置指纹
+     */
+    ConfigKey(Object... parts) {
+        this.parts = new Object[parts.length];
+        int hash = 1;
+        for (int i = 0; i < parts.length; i++) {
+            Object part = parts[i];
+            if(part instanceof List){
+                part = new ConfigKey(((List<?>) part).toArray());
+            }
+            this.parts[i] = part;
+            hash = 31 * hash + hash(part);
+        }
+        this.hashCode = hash;
+    }
+
+    private static boolean isValue(Object part){
+        return part instanceof String
+                || part instanceof Number
+                || part instanceof Boolean
+                || part instanceof Enum
+                || part instanceof ConfigKey;
+    }
+
+    private static int hash(Object part){
+        if(null == part)
+            return 0;
+        return isValue(part) ? part.hashCode() : System.identityHashCode(part);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(!(o instanceof ConfigKey))
+            return false;
+        ConfigKey other = (ConfigKey) o;
+        if(hashCode != other.hashCode || parts.length != other.parts.length)
+            return false;
+        for (int i = 0; i < parts.length; i++) {
+            Object part = parts[i];
+            if(part == other.parts[i])
+                continue;
+            if(null == part || !isValue(part) || !part.equals(other.parts[i]))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(parts);
+    }
+
+}
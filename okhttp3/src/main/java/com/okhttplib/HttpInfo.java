@@ -1,14 +1,17 @@
 package com.okhttplib;
 
-import android.text.TextUtils;
 
 import com.google.gson.Gson;
 import com.okhttplib.annotation.ContentType;
 import com.okhttplib.annotation.Encoding;
+import com.okhttplib.annotation.Priority;
 import com.okhttplib.annotation.RequestType;
 import com.okhttplib.bean.DownloadFileInfo;
 import com.okhttplib.bean.UploadFileInfo;
 import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.stat.CallTiming;
+import com.okhttplib.util.GsonUtil;
+import com.okhttplib.util.StringUtil;
 
 import java.io.File;
 import java.io.InputStream;
@@ -47,6 +50,13 @@ public class HttpInfo {
     private String httpsCertificate;
     private InputStream httpsCertificateStream;
     private boolean needResponse;
+    private boolean closeAfterRequest;
+    private @Priority int priority;
+    private boolean needBytes;
+    private boolean unescapeUnicode;
+    private Type retType;
+    private boolean coalesce;
+    private String[] coalesceHeads;
 
 
     //**响应返回参数定义**/
@@ -59,6 +69,12 @@ public class HttpInfo {
     private boolean fromCache;
     //返回信息体（与needResponse一起使用）
     private Response response;
+    //返回结果字节数组（与needBytes一起使用）
+    private byte[] retBytes;
+    //返回结果对象（与retType一起使用）
+    private Object retObject;
+    //请求各阶段耗时
+    private CallTiming timing;
 
     public HttpInfo(Builder builder) {
         this.url = builder.url;
@@ -80,6 +96,13 @@ public class HttpInfo {
         this.httpsCertificate = builder.httpsCertificate;
         this.httpsCertificateStream = builder.httpsCertificateStream;
         this.needResponse = builder.needResponse;
+        this.closeAfterRequest = builder.closeAfterRequest;
+        this.priority = builder.priority;
+        this.needBytes = builder.needBytes;
+        this.unescapeUnicode = builder.unescapeUnicode;
+        this.retType = builder.retType;
+        this.coalesce = builder.coalesce;
+        this.coalesceHeads = builder.coalesceHeads;
     }
 
     public static Builder Builder() {
@@ -108,6 +131,13 @@ public class HttpInfo {
         private String httpsCertificate;//Https证书
         private InputStream httpsCertificateStream;//Https证书
         private boolean needResponse;//返回结果为Response
+        private boolean closeAfterRequest;//请求结束后关闭连接
+        private @Priority int priority = Priority.NORMAL;//请求优先级
+        private boolean needBytes;//返回结果为字节数组
+        private boolean unescapeUnicode = true;//返回结果unicode转码
+        private Type retType;//返回结果类型：直接从响应流解析为对象
+        private boolean coalesce;//合并相同的GET请求
+        private String[] coalesceHeads;//参与合并判断的请求头
 
 
         public Builder() {
@@ -130,6 +160,63 @@ public class HttpInfo {
             return this;
         }
 
+        /**
+         * 设置返回结果为字节数组：响应体不解码为文本，请调用getRetBytes获取
+         */
+        public Builder setNeedBytes(boolean needBytes){
+            this.needBytes = needBytes;
+            return this;
+        }
+
+        /**
+         * 设置返回结果是否进行unicode转码（默认：true），返回结果不包含\\uXXXX时可关闭
+         */
+        public Builder setUnescapeUnicode(boolean unescapeUnicode){
+            this.unescapeUnicode = unescapeUnicode;
+            return this;
+        }
+
+        /**
+         * 设置返回结果类型：在请求线程中直接从响应流解析Json为该类型的对象，
+         * 不生成返回结果字符串，请调用getRetObject获取
+         * @param retType 返回结果类型，如：User.class、new TypeToken<List<User>>(){}.getType()
+         */
+        public Builder setRetType(Type retType){
+            this.retType = retType;
+            return this;
+        }
+
+        /**
+         * 设置请求结束后关闭连接（默认复用连接）
+         */
+        public Builder setCloseAfterRequest(boolean closeAfterRequest){
+            this.closeAfterRequest = closeAfterRequest;
+            return this;
+        }
+
+        /**
+         * 设置请求优先级（默认：NORMAL）
+         * 异步请求并发数达到上限时按优先级排队执行
+         * @param priority 优先级
+         */
+        public Builder setPriority(@Priority int priority){
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * 设置合并相同的异步GET请求（默认不合并）
+         * 请求方式、地址、参数及指定请求头都相同且上一个请求尚未结束时，不再发起新的请求，
+         * 等待进行中的请求结束后回调相同的结果（返回结果为Response时不合并）
+         * @param coalesce 是否合并
+         * @param keyHeads 参与合并判断的请求头名称，不设置时所有请求头都参与判断
+         */
+        public Builder setCoalesce(boolean coalesce, String... keyHeads){
+            this.coalesce = coalesce;
+            this.coalesceHeads = null == keyHeads || keyHeads.length == 0 ? null : keyHeads;
+            return this;
+        }
+
         /**
          * 添加媒体类型
          * @param contentType 媒体类型
@@ -162,7 +249,7 @@ public class HttpInfo {
         public Builder addParam(String key, String value){
             if(null == this.params)
                 this.params = new HashMap<>();
-            if(!TextUtils.isEmpty(key)){
+            if(!StringUtil.isEmpty(key)){
                 value = value == null ? "" : value;
                 this.params.put(key,value);
             }
@@ -248,7 +335,7 @@ public class HttpInfo {
         public Builder addHead(String key, String value){
             if(null == this.heads)
                 this.heads = new HashMap<>();
-            if(!TextUtils.isEmpty(key)){
+            if(!StringUtil.isEmpty(key)){
                 value = value == null ? "" : value;
                 this.heads.put(key,value);
             }
@@ -275,7 +362,7 @@ public class HttpInfo {
             if(null == this.uploadFiles){
                 this.uploadFiles = new ArrayList<UploadFileInfo>();
             }
-            if(!TextUtils.isEmpty(filePathWithName)){
+            if(!StringUtil.isEmpty(filePathWithName)){
                 this.uploadFiles.add(new UploadFileInfo(filePathWithName,interfaceParamName,progressCallback));
             }
             return this;
@@ -322,7 +409,7 @@ public class HttpInfo {
             if(null == this.uploadFiles){
                 this.uploadFiles = new ArrayList<>();
             }
-            if(!TextUtils.isEmpty(filePathWithName)){
+            if(!StringUtil.isEmpty(filePathWithName)){
                 this.uploadFiles.add(new UploadFileInfo(url,filePathWithName,interfaceParamName,progressCallback));
             }
             return this;
@@ -375,7 +462,7 @@ public class HttpInfo {
             if(null == this.downloadFiles){
                 this.downloadFiles = new ArrayList<>();
             }
-            if(!TextUtils.isEmpty(url)){
+            if(!StringUtil.isEmpty(url)){
                 this.downloadFiles.add(new DownloadFileInfo(url,saveFileDir,saveFileName,progressCallback));
             }
             return this;
@@ -495,6 +582,7 @@ public class HttpInfo {
     public final static int GatewayBad = 13;
     public final static int ServerNotFound = 14;
     public final static int RequestParamError = 15;
+    public final static int RequestRejected = 16;
 
 
     public HttpInfo packInfo(int netCode,int retCode, String retDetail){
@@ -546,8 +634,11 @@ public class HttpInfo {
             case RequestParamError:
                 this.retDetail = "请求参数错误，请检查请求参数是否正确";
                 break;
+            case RequestRejected:
+                this.retDetail = "请求被拒绝，任务队列已满";
+                break;
         }
-        if(!TextUtils.isEmpty(retDetail)){
+        if(!StringUtil.isEmpty(retDetail)){
             this.retDetail = retDetail;
         }
         return this;
@@ -587,10 +678,41 @@ public class HttpInfo {
         if(gson != null){
             return gson;
         }else{
-            return new Gson();
+            return GsonUtil.getDefault();
         }
     }
 
+    /**
+     * 绑定Gson：请求未设置Gson时采用该Gson解析
+     */
+    void bindGson(Gson gson){
+        if(this.gson == null)
+            this.gson = gson;
+    }
+
+    /**
+     * 获取解析返回结果的Gson
+     */
+    public Gson getGson(){
+        return myGson();
+    }
+
+    public Type getRetType() {
+        return retType;
+    }
+
+    /**
+     * 获取返回结果对象：需设置setRetType
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getRetObject() {
+        return (T) retObject;
+    }
+
+    public void setRetObject(Object retObject) {
+        this.retObject = retObject;
+    }
+
     public void setRetDetail(String retDetail) {
         this.retDetail = retDetail;
     }
@@ -679,6 +801,52 @@ public class HttpInfo {
         this.needResponse = needResponse;
     }
 
+    public @Priority int getPriority() {
+        return priority;
+    }
+
+    /**
+     * 获取请求各阶段耗时：DNS、连接、TLS握手、发送请求、首字节、读取响应体
+     */
+    public CallTiming getTiming() {
+        return timing;
+    }
+
+    public void setTiming(CallTiming timing) {
+        this.timing = timing;
+    }
+
+    public boolean isUnescapeUnicode() {
+        return unescapeUnicode;
+    }
+
+    public boolean isNeedBytes() {
+        return needBytes;
+    }
+
+    /**
+     * 获取返回结果字节数组：需设置setNeedBytes(true)
+     */
+    public byte[] getRetBytes() {
+        return retBytes;
+    }
+
+    public void setRetBytes(byte[] retBytes) {
+        this.retBytes = retBytes;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public String[] getCoalesceHeads() {
+        return coalesceHeads;
+    }
+
+    public boolean isCloseAfterRequest() {
+        return closeAfterRequest;
+    }
+
     public Response getResponse() {
         return response;
     }
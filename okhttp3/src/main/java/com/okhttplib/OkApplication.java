@@ -2,6 +2,7 @@ package com.okhttplib;
 
 import android.annotation.SuppressLint;
 import android.app.Application;
+import android.content.Context;
 
 import java.lang.reflect.Method;
 
@@ -26,6 +27,13 @@ public class OkApplication{
         return application;
     }
 
+    /**
+     * 获取Application上下文：调用方只依赖Context类型
+     */
+    public static Context getContext(){
+        return get();
+    }
+
     @SuppressWarnings("all")
     private OkApplication(){
         Object activityThread;
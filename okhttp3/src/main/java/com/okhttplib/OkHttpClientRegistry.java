@@ -0,0 +1,192 @@
+package com.okhttplib;
+
+import com.okhttplib.executor.PriorityDispatchQueue;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+
+/**
+ * OkHttpClient注册表：
+ * 相同配置（配置指纹）的请求共享同一个根客户端，
+ * 每次请求通过OkHttpClient.newBuilder()派生，派生客户端共享连接池、调度器与磁盘缓存
+ * 根客户端与调度队列数量有上限，超出时移除最久未使用的配置
+ * @author zhousf
+ */
+final class OkHttpClientRegistry {
+
+    /**
+     * 根客户端最大数量：超出时移除最久未使用的根客户端
+     */
+    static final int MAX_CLIENT_COUNT = 16;
+
+    /**
+     * 优先级调度队列最大数量：超出时移除最久未使用的空闲调度队列
+     */
+    static final int MAX_DISPATCH_QUEUE_COUNT = 64;
+
+    /**
+     * 根客户端集合: key=配置指纹 value=根客户端
+     */
+    private static final Map<ConfigKey,OkHttpClient> clientMap = new LinkedHashMap<ConfigKey,OkHttpClient>(16,0.75f,true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ConfigKey,OkHttpClient> eldest) {
+            if(size() <= MAX_CLIENT_COUNT)
+                return false;
+            //进行中的请求仍持有派生的客户端，只关闭空闲连接
+            eldest.getValue().connectionPool().evictAll();
+            return true;
+        }
+    };
+
+    /**
+     * 磁盘缓存集合: key=缓存目录 value=缓存（同一目录只能由一个Cache实例操作）
+     * 缓存由客户端持有，所有使用该缓存的客户端释放后自动移除
+     */
+    private static final Map<String,WeakReference<Cache>> cacheMap = new HashMap<>();
+
+    /**
+     * 优先级调度队列集合: key=配置指纹+主机 value=调度队列
+     */
+    private static final Map<ConfigKey,PriorityDispatchQueue> dispatchQueueMap = new LinkedHashMap<ConfigKey,PriorityDispatchQueue>(16,0.75f,true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ConfigKey,PriorityDispatchQueue> eldest) {
+            //有请求执行或排队的调度队列不能移除，否则新的调度队列会突破并发上限
+            Iterator<PriorityDispatchQueue> iterator = values().iterator();
+            while (size() > MAX_DISPATCH_QUEUE_COUNT && iterator.hasNext()){
+                PriorityDispatchQueue queue = iterator.next();
+                if(queue.getRunningCount() == 0 && queue.getQueuedCount() == 0)
+                    iterator.remove();
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 已创建的根客户端数量
+     */
+    private static final AtomicInteger createdCount = new AtomicInteger();
+
+    /**
+     * 已派生的客户端数量：每个请求只记录一次
+     */
+    private static final AtomicInteger derivedCount = new AtomicInteger();
+
+    /**
+     * 根客户端构建接口
+     */
+    interface ClientFactory {
+        OkHttpClient.Builder create();
+    }
+
+    private OkHttpClientRegistry() {
+    }
+
+    /**
+     * 获取派生的客户端构建器
+     * @param fingerprint 配置指纹
+     * @param factory 配置指纹首次出现时用于构建根客户端
+     */
+    static OkHttpClient.Builder newBuilder(ConfigKey fingerprint, ClientFactory factory){
+        OkHttpClient client;
+        synchronized (clientMap){
+            client = clientMap.get(fingerprint);
+            if(null == client){
+                client = factory.create().build();
+                clientMap.put(fingerprint,client);
+                createdCount.incrementAndGet();
+            }
+        }
+        return client.newBuilder();
+    }
+
+    /**
+     * 记录一次使用共享客户端的请求：同一请求派生多个构建器（如文件下载）时不重复记录
+     */
+    static void countDerived(){
+        derivedCount.incrementAndGet();
+    }
+
+    /**
+     * 获取根客户端
+     * @param fingerprint 配置指纹
+     * @return 根客户端，未创建或已移除时返回null
+     */
+    static OkHttpClient getClient(ConfigKey fingerprint){
+        synchronized (clientMap){
+            return clientMap.get(fingerprint);
+        }
+    }
+
+    /**
+     * 获取优先级调度队列：相同配置的同一主机共享一个调度队列
+     * @param fingerprint 配置指纹
+     * @param host 主机
+     * @param maxRunning 最大并发执行数
+     * @param agingTime 老化时间（毫秒）
+     */
+    static PriorityDispatchQueue obtainDispatchQueue(ConfigKey fingerprint, String host, int maxRunning, long agingTime){
+        ConfigKey key = new ConfigKey(fingerprint,agingTime,host);
+        synchronized (dispatchQueueMap){
+            PriorityDispatchQueue dispatchQueue = dispatchQueueMap.get(key);
+            if(null == dispatchQueue){
+                dispatchQueue = new PriorityDispatchQueue(maxRunning,agingTime,TimeUnit.MILLISECONDS);
+                dispatchQueueMap.put(key,dispatchQueue);
+            }
+            return dispatchQueue;
+        }
+    }
+
+    /**
+     * 获取磁盘缓存：同一目录共享一个Cache实例，缓存大小以首次创建时为准
+     * @param cachedDir 缓存目录
+     * @param maxCacheSize 缓存大小
+     */
+    static Cache obtainCache(File cachedDir, long maxCacheSize){
+        String key = cachedDir.getAbsolutePath();
+        synchronized (cacheMap){
+            WeakReference<Cache> reference = cacheMap.get(key);
+            Cache cache = null == reference ? null : reference.get();
+            if(null == cache){
+                cache = new Cache(cachedDir,maxCacheSize);
+                cacheMap.put(key,new WeakReference<>(cache));
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * 当前保存的根客户端数量
+     */
+    static int getClientCount(){
+        synchronized (clientMap){
+            return clientMap.size();
+        }
+    }
+
+    /**
+     * 当前保存的优先级调度队列数量
+     */
+    static int getDispatchQueueCount(){
+        synchronized (dispatchQueueMap){
+            return dispatchQueueMap.size();
+        }
+    }
+
+    static int getCreatedCount(){
+        return createdCount.get();
+    }
+
+    static int getDerivedCount(){
+        return derivedCount.get();
+    }
+
+}
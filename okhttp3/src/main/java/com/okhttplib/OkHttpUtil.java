@@ -1,41 +1,65 @@
 package com.okhttplib;
 
 import android.annotation.SuppressLint;
-import android.app.Application;
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.os.Build;
 import android.os.Environment;
-import android.text.TextUtils;
-import android.util.Log;
 
+import com.google.gson.Gson;
+import com.okhttplib.annotation.BatchMode;
 import com.okhttplib.annotation.CacheType;
 import com.okhttplib.annotation.Encoding;
+import com.okhttplib.annotation.RejectPolicy;
 import com.okhttplib.annotation.RequestType;
+import com.okhttplib.bean.BatchResult;
+import com.okhttplib.bean.CallbackMessage;
 import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.bean.DownloadMessage;
+import com.okhttplib.bean.OkMessage;
 import com.okhttplib.bean.UploadFileInfo;
+import com.okhttplib.bean.UploadMessage;
 import com.okhttplib.callback.BaseActivityLifecycleCallbacks;
 import com.okhttplib.callback.BaseCallback;
+import com.okhttplib.callback.BatchCallback;
+import com.okhttplib.callback.CallRegistry;
+import com.okhttplib.callback.DirectCallback;
 import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.executor.BoundedTaskExecutor;
+import com.okhttplib.executor.PriorityDispatchQueue;
+import com.okhttplib.executor.TaskExecutor;
+import com.okhttplib.future.FutureCallback;
+import com.okhttplib.future.HttpFuture;
+import com.okhttplib.handler.OkMainHandler;
 import com.okhttplib.helper.HelperInfo;
 import com.okhttplib.helper.OkHttpHelper;
 import com.okhttplib.interceptor.ExceptionInterceptor;
 import com.okhttplib.interceptor.ResultInterceptor;
+import com.okhttplib.log.OkLog;
+import com.okhttplib.platform.AndroidConnectivityProvider;
+import com.okhttplib.platform.Platform;
+import com.okhttplib.stat.CallEventListener;
+import com.okhttplib.stat.ConnectionStat;
+import com.okhttplib.util.DownloadFileWriter;
+import com.okhttplib.util.GsonUtil;
+import com.okhttplib.util.StringUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import okhttp3.Cache;
+import okhttp3.ConnectionPool;
 import okhttp3.CookieJar;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 
 import static com.okhttplib.annotation.CacheType.FORCE_NETWORK;
 
@@ -61,7 +85,9 @@ import static com.okhttplib.annotation.CacheType.FORCE_NETWORK;
  * 支持请求结果拦截以及异常处理拦截
  * 支持单例客户端，提高网络请求速率
  *
- * 引入版本com.squareup.okhttp3:okhttp:3.8.1
+ * 支持HTTP/2多路复用
+ *
+ * 引入版本com.squareup.okhttp3:okhttp:3.12.13
  * @author zhousf
  */
 public class OkHttpUtil implements OkHttpUtilInterface{
@@ -71,14 +97,15 @@ public class OkHttpUtil implements OkHttpUtilInterface{
     private static Context context;
     private static Builder builderGlobal;
     private static OkHttpClient httpClient;
-    private static ScheduledExecutorService executorService;
+    private static BoundedTaskExecutor apiExecutorDefault;
+    private static BoundedTaskExecutor transferExecutorDefault;
     private Builder builder;
     private int cacheSurvivalTime = 0;//缓存存活时间（秒）
     private @CacheType int cacheType = FORCE_NETWORK;//缓存类型
 
     private Context getContext(){
-        if(context == null){
-            context = OkApplication.get();
+        if(context == null && Platform.isAndroid()){
+            context = OkApplication.getContext();
         }
         return context;
     }
@@ -89,9 +116,8 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     public static Builder init(Context context){
         OkHttpUtil.context = context;
-        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB_MR2) {
-            ((Application)OkHttpUtil.context).registerActivityLifecycleCallbacks(new BaseActivityLifecycleCallbacks());
-        }
+        Platform.setConnectivityProvider(new AndroidConnectivityProvider(context));
+        BaseActivityLifecycleCallbacks.register(context);
         return BuilderGlobal();
     }
 
@@ -134,18 +160,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doAsync(final HttpInfo info, final BaseCallback callback) {
-        executorService.schedule(new Runnable() {
+        executeAsync(info,callback,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(info.getRequestType())
                         .callback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -187,18 +211,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doPostAsync(final HttpInfo info,final BaseCallback callback){
-        executorService.schedule(new Runnable() {
+        executeAsync(info,callback,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(RequestType.POST)
                         .callback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -208,18 +230,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doPostAsync(final HttpInfo info,final ProgressCallback callback) {
-        executorService.schedule(new Runnable() {
+        executeAsync(info,null,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(RequestType.POST)
                         .progressCallback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -244,18 +264,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doGetAsync(final HttpInfo info,final BaseCallback callback) {
-        executorService.schedule(new Runnable() {
+        executeAsync(info,callback,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(RequestType.GET)
                         .callback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -266,7 +284,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
     public void doUploadFileAsync(final HttpInfo info){
         List<UploadFileInfo> uploadFiles = info.getUploadFiles();
         for(final UploadFileInfo fileInfo : uploadFiles){
-            executorService.schedule(new Runnable() {
+            executeTransfer(info,fileInfo.getProgressCallback(),OkMainHandler.RESPONSE_UPLOAD_CALLBACK,new Runnable() {
                 @Override
                 public void run() {
                     OkHttpHelper.Builder()
@@ -277,7 +295,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
                             .build()
                             .uploadFile();
                 }
-            },info.getDelayExecTime(),info.getDelayExecUnit());
+            });
         }
     }
 
@@ -288,7 +306,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
     @Override
     public void doUploadFileAsync(final HttpInfo info, final ProgressCallback callback){
         final List<UploadFileInfo> uploadFiles = info.getUploadFiles();
-        executorService.schedule(new Runnable() {
+        executeTransfer(info,callback,OkMainHandler.RESPONSE_UPLOAD_CALLBACK,new Runnable() {
             @Override
             public void run() {
                 OkHttpHelper.Builder()
@@ -300,7 +318,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
                         .build()
                         .uploadFile();
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -346,7 +364,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
     public void doDownloadFileAsync(final HttpInfo info){
         List<DownloadFileInfo> downloadFiles = info.getDownloadFiles();
         for(final DownloadFileInfo fileInfo : downloadFiles){
-            executorService.schedule(new Runnable() {
+            executeTransfer(info,fileInfo.getProgressCallback(),OkMainHandler.RESPONSE_DOWNLOAD_CALLBACK,new Runnable() {
                 @Override
                 public void run() {
                     OkHttpHelper.Builder()
@@ -358,7 +376,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
                             .build()
                             .downloadFile();
                 }
-            },info.getDelayExecTime(),info.getDelayExecUnit());
+            });
         }
     }
 
@@ -403,18 +421,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doDeleteAsync(final HttpInfo info,final BaseCallback callback){
-        executorService.schedule(new Runnable() {
+        executeAsync(info,callback,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(RequestType.DELETE)
                         .callback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        });
     }
 
     /**
@@ -439,18 +455,262 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void doPutAsync(final HttpInfo info,final BaseCallback callback){
-        executorService.schedule(new Runnable() {
+        executeAsync(info,callback,new AsyncRequest() {
             @Override
-            public void run() {
-                OkHttpHelper.Builder()
+            public OkHttpHelper.Builder newHelper() {
+                return OkHttpHelper.Builder()
                         .httpInfo(info)
                         .requestType(RequestType.PUT)
                         .callback(callback)
-                        .helperInfo(packageHelperInfo(info))
-                        .build()
-                        .doRequestAsync();
+                        .helperInfo(packageHelperInfo(info));
+            }
+        });
+    }
+
+    /**
+     * 异步请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture
+     */
+    @Override
+    public HttpFuture<HttpInfo> doFuture(HttpInfo info){
+        HttpFuture<HttpInfo> future = new HttpFuture<>();
+        doAsync(info,new FutureCallback(future));
+        return future;
+    }
+
+    /**
+     * 异步Get请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture
+     */
+    @Override
+    public HttpFuture<HttpInfo> doGetFuture(HttpInfo info){
+        HttpFuture<HttpInfo> future = new HttpFuture<>();
+        doGetAsync(info,new FutureCallback(future));
+        return future;
+    }
+
+    /**
+     * 异步Post请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture
+     */
+    @Override
+    public HttpFuture<HttpInfo> doPostFuture(HttpInfo info){
+        HttpFuture<HttpInfo> future = new HttpFuture<>();
+        doPostAsync(info,new FutureCallback(future));
+        return future;
+    }
+
+    /**
+     * 异步批量请求：同时进行的请求数量默认与单个主机最大并发请求数一致
+     * @param infos 请求信息体集合
+     * @param callback 批量结果回调接口
+     */
+    @Override
+    public void doBatchAsync(List<HttpInfo> infos, BatchCallback callback){
+        doBatchAsync(infos,builder.maxRequestsPerHost,BatchMode.COLLECT_ALL,callback);
+    }
+
+    /**
+     * 异步批量请求
+     * @param infos 请求信息体集合
+     * @param maxConcurrency 同时进行的最大请求数量
+     * @param mode 批量请求模式
+     * @param callback 批量结果回调接口
+     */
+    @Override
+    public void doBatchAsync(List<HttpInfo> infos, int maxConcurrency, @BatchMode int mode, BatchCallback callback){
+        new BatchCall(this,infos,maxConcurrency,mode,callback,builder.requestTag).start();
+    }
+
+    /**
+     * 同步批量请求
+     * @param infos 请求信息体集合
+     * @return BatchResult
+     */
+    @Override
+    public BatchResult doBatchSync(List<HttpInfo> infos){
+        return doBatchSync(infos,builder.maxRequestsPerHost,BatchMode.COLLECT_ALL);
+    }
+
+    /**
+     * 同步批量请求
+     * @param infos 请求信息体集合
+     * @param maxConcurrency 同时进行的最大请求数量
+     * @param mode 批量请求模式
+     * @return BatchResult
+     */
+    @Override
+    public BatchResult doBatchSync(List<HttpInfo> infos, int maxConcurrency, @BatchMode int mode){
+        return new BatchCall(this,infos,maxConcurrency,mode,null,builder.requestTag).execute();
+    }
+
+    /**
+     * 执行异步请求：无延迟时直接在调用线程中构建请求并加入OkHttp调度队列，
+     * 避免经过线程池的额外线程切换；请求线程池只处理延迟执行的请求
+     * 并发请求数达到上限时请求进入优先级调度队列，按优先级依次执行
+     * @param info 请求信息体
+     * @param callback 结果回调接口
+     * @param request 请求构建
+     */
+    private void executeAsync(final HttpInfo info, BaseCallback callback, final AsyncRequest request){
+        Runnable dispatch = new Runnable() {
+            @Override
+            public void run() {
+                final PriorityDispatchQueue queue = dispatchQueue(info);
+                queue.submit(info.getPriority(),new Runnable() {
+                    @Override
+                    public void run() {
+                        OkHttpHelper helper;
+                        try {
+                            helper = request.newHelper().dispatchQueue(queue).build();
+                        } catch (RuntimeException e){
+                            //请求创建失败：释放执行名额，避免名额泄漏导致该主机的请求无法执行
+                            queue.finish();
+                            throw e;
+                        }
+                        //请求开始后由OkHttpHelper释放执行名额
+                        helper.doRequestAsync();
+                    }
+                });
             }
-        },info.getDelayExecTime(),info.getDelayExecUnit());
+        };
+        if(info.getDelayExecTime() <= 0){
+            dispatch.run();
+        }else{
+            apiExecutor().execute(new RequestTask(info,callback,null,OkMainHandler.RESPONSE_CALLBACK,dispatch),
+                    info.getDelayExecTime(),info.getDelayExecUnit());
+        }
+    }
+
+    /**
+     * 异步请求构建：调度队列由executeAsync设置
+     */
+    private interface AsyncRequest {
+
+        OkHttpHelper.Builder newHelper();
+
+    }
+
+    /**
+     * 优先级调度队列：相同配置的同一主机共享，最大并发数与调度器单个主机的并发上限一致，
+     * 避免请求在调度器的等待队列中按先后顺序执行而失去优先级
+     */
+    private PriorityDispatchQueue dispatchQueue(HttpInfo info){
+        HttpUrl url = null == info.getUrl() ? null : HttpUrl.parse(info.getUrl());
+        return OkHttpClientRegistry.obtainDispatchQueue(builder.fingerprint,
+                null == url ? "" : url.host(),
+                Math.min(builder.maxRequests,builder.maxRequestsPerHost),builder.priorityAgingTime);
+    }
+
+    @Override
+    public PriorityDispatchQueue getPriorityDispatchQueue(String url) {
+        return dispatchQueue(HttpInfo.Builder().setUrl(url).build());
+    }
+
+    /**
+     * 执行文件上传/下载任务：采用独立的文件传输线程池，避免大文件传输阻塞普通请求
+     * @param info 请求信息体
+     * @param progressCallback 进度回调接口
+     * @param callbackCode 结果回调标识
+     * @param task 传输任务
+     */
+    private void executeTransfer(HttpInfo info, ProgressCallback progressCallback, int callbackCode, Runnable task){
+        transferExecutor().execute(new RequestTask(info,null,progressCallback,callbackCode,task),
+                info.getDelayExecTime(),info.getDelayExecUnit());
+    }
+
+    private TaskExecutor apiExecutor(){
+        return builder.apiExecutor == null ? getDefaultApiExecutor() : builder.apiExecutor;
+    }
+
+    private TaskExecutor transferExecutor(){
+        return builder.transferExecutor == null ? getDefaultTransferExecutor() : builder.transferExecutor;
+    }
+
+    /**
+     * 获取默认的请求线程池：用于延迟执行的请求
+     */
+    public static synchronized BoundedTaskExecutor getDefaultApiExecutor(){
+        if(null == apiExecutorDefault || apiExecutorDefault.isShutdown()){
+            apiExecutorDefault = new BoundedTaskExecutor("OkHttp Api",4,128, RejectPolicy.ABORT);
+        }
+        return apiExecutorDefault;
+    }
+
+    /**
+     * 获取默认的文件传输线程池：用于文件上传/下载
+     */
+    public static synchronized BoundedTaskExecutor getDefaultTransferExecutor(){
+        if(null == transferExecutorDefault || transferExecutorDefault.isShutdown()){
+            transferExecutorDefault = new BoundedTaskExecutor("OkHttp Transfer",3,64, RejectPolicy.ABORT);
+        }
+        return transferExecutorDefault;
+    }
+
+    /**
+     * 关闭默认线程池：已提交的任务继续执行，再次使用时重新创建
+     */
+    public static synchronized void shutdownDefaultExecutors(){
+        if(null != apiExecutorDefault)
+            apiExecutorDefault.shutdown();
+        if(null != transferExecutorDefault)
+            transferExecutorDefault.shutdown();
+    }
+
+    /**
+     * 异步任务：任务被拒绝时回调请求结果
+     */
+    private final class RequestTask implements TaskExecutor.Task {
+
+        private final HttpInfo info;
+        private final BaseCallback callback;
+        private final ProgressCallback progressCallback;
+        private final int callbackCode;
+        private final Runnable task;
+
+        RequestTask(HttpInfo info, BaseCallback callback, ProgressCallback progressCallback,
+                    int callbackCode, Runnable task) {
+            this.info = info;
+            this.callback = callback;
+            this.progressCallback = progressCallback;
+            this.callbackCode = callbackCode;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public void onRejected() {
+            info.packInfo(HttpInfo.RequestRejected,HttpInfo.RequestRejected,null);
+            String requestTag = builder.requestTag;
+            OkMessage msg;
+            if(OkMainHandler.RESPONSE_CALLBACK == callbackCode){
+                msg = new CallbackMessage(callbackCode,callback,info,requestTag,null);
+                if(callback instanceof DirectCallback){
+                    OkMainHandler.getInstance().sendCallback((CallbackMessage) msg);
+                    return ;
+                }
+            }else{
+                if(null == progressCallback)
+                    return ;
+                progressCallback.onResponseSync(info.getUrl(),info);
+                if(OkMainHandler.RESPONSE_UPLOAD_CALLBACK == callbackCode){
+                    msg = new UploadMessage(callbackCode,info.getUrl(),info,progressCallback,requestTag);
+                }else{
+                    msg = new DownloadMessage(callbackCode,info.getUrl(),info,progressCallback,requestTag);
+                }
+            }
+            //被拒绝的任务没有保存请求：保留请求标识直到回调结束，避免回调因请求标识不存在而被丢弃
+            CallRegistry.hold(requestTag);
+            msg.heldTag = true;
+            OkMainHandler.getInstance().sendMessage(msg);
+        }
     }
 
     /**
@@ -459,7 +719,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
      */
     @Override
     public void cancelRequest(Object requestTag) {
-        BaseActivityLifecycleCallbacks.cancel(parseRequestTag(requestTag));
+        CallRegistry.cancel(parseRequestTag(requestTag));
     }
 
     @Override
@@ -471,14 +731,11 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         httpClient = client;
     }
 
-    @SuppressWarnings("all")
+    /**
+     * 网络是否可用：由Platform的网络状态提供
+     */
     public boolean isNetworkAvailable() {
-        if(getContext() == null)
-            return true;
-        ConnectivityManager cm = (ConnectivityManager) getContext()
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo net = cm.getActiveNetworkInfo();
-        return net != null && net.getState() == NetworkInfo.State.CONNECTED;
+        return Platform.getConnectivityProvider().isNetworkAvailable();
     }
 
     private OkHttpUtil(Builder builder) {
@@ -486,11 +743,16 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         this.builder = builder;
         this.cacheType = builder.cacheType;
         this.cacheSurvivalTime = builder.cacheSurvivalTime;
-        if(null == getContext())
+        //Android中无法获取上下文时不能判断网络状态，只请求网络
+        if(Platform.isAndroid() && null == getContext())
             this.cacheType = CacheType.FORCE_NETWORK;
-        if(null == executorService)
-            executorService = new ScheduledThreadPoolExecutor(20);
-        BaseActivityLifecycleCallbacks.setShowLifecycleLog(builder.showLifecycleLog);
+        CallRegistry.setShowLog(builder.showLifecycleLog);
+        if(builder.isGlobalConfig){
+            GsonUtil.setDefault(builder.gson);
+        }
+        if(null != builder.warmUpTypes){
+            GsonUtil.warmUp(null == builder.gson ? GsonUtil.getDefault() : builder.gson,builder.warmUpTypes);
+        }
         if(builder.isGlobalConfig){
             OkHttpHelper.Builder()
                     .helperInfo(packageHelperInfo(null))
@@ -517,7 +779,11 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         helperInfo.setExceptionInterceptors(builder.exceptionInterceptors);
         helperInfo.setResultInterceptors(builder.resultInterceptors);
         helperInfo.setDownloadFileDir(builder.downloadFileDir);
+        helperInfo.setDownloadSegmentCount(builder.downloadSegmentCount);
+        helperInfo.setDownloadBufferSize(builder.downloadBufferSize);
+        helperInfo.setDownloadCheckpointSize(builder.downloadCheckpointSize);
         helperInfo.setClientBuilder(newBuilderFromCopy());
+        OkHttpClientRegistry.countDerived();
         helperInfo.setOkHttpUtil(this);
         helperInfo.setDefault(builder.isDefault);
         helperInfo.setLogTAG(builder.httpLogTAG == null ? TAG : builder.httpLogTAG);
@@ -526,6 +792,14 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         helperInfo.setCacheSurvivalTime(cacheSurvivalTime);
         helperInfo.setCacheType(cacheType);
         helperInfo.setGzip(builder.isGzip);
+        helperInfo.setKeepAlive(builder.keepAlive);
+        if(info != null && null != builder.gson){
+            info.bindGson(builder.gson);
+        }
+        if(info != null && info.isCoalesce()){
+            helperInfo.setCoalesceScope(new ConfigKey(builder.fingerprint,
+                    cacheType,cacheSurvivalTime,builder.responseEncoding,builder.resultInterceptors));
+        }
         String httpsCertificate = null;
         InputStream httpsCertificateStream = null;
         if(builder.httpsCertificate != null){
@@ -550,7 +824,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
                 e.printStackTrace();
             }
             if(inputStream == null){
-                Log.e(builder.httpLogTAG,"Https证书不存在："+httpsCertificate);
+                OkLog.e(builder.httpLogTAG,"Https证书不存在："+httpsCertificate);
             }
             helperInfo.setHttpsCertificateStream(inputStream);
         }
@@ -560,14 +834,34 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         return helperInfo;
     }
 
+    /**
+     * 获取客户端构建器：相同配置共享连接池、调度器与磁盘缓存
+     */
     private OkHttpClient.Builder newBuilderFromCopy(){
+        return OkHttpClientRegistry.newBuilder(builder.fingerprint, new OkHttpClientRegistry.ClientFactory() {
+            @Override
+            public OkHttpClient.Builder create() {
+                return newRootBuilder();
+            }
+        });
+    }
+
+    /**
+     * 根客户端构建器：每个配置指纹只构建一次
+     */
+    private OkHttpClient.Builder newRootBuilder(){
         OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
                 .connectTimeout(builder.connectTimeout, TimeUnit.SECONDS)
                 .readTimeout(builder.readTimeout, TimeUnit.SECONDS)
                 .writeTimeout(builder.writeTimeout, TimeUnit.SECONDS)
-                .retryOnConnectionFailure(builder.retryOnConnectionFailure);
+                .retryOnConnectionFailure(builder.retryOnConnectionFailure)
+                .connectionPool(new ConnectionPool(builder.maxIdleConnections,builder.keepAliveDuration,TimeUnit.SECONDS))
+                .protocols(builder.protocols)
+                .dispatcher(newDispatcher())
+                .eventListenerFactory(CallEventListener.FACTORY);
+        clientBuilder.addNetworkInterceptor(ConnectionStat.INTERCEPTOR);
         if(builder.cachedDir != null){
-            clientBuilder.cache(new Cache(builder.cachedDir,builder.maxCacheSize));
+            clientBuilder.cache(OkHttpClientRegistry.obtainCache(builder.cachedDir,builder.maxCacheSize));
         }
         if(null != builder.networkInterceptors && !builder.networkInterceptors.isEmpty())
             clientBuilder.networkInterceptors().addAll(builder.networkInterceptors);
@@ -578,6 +872,43 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         return clientBuilder;
     }
 
+    /**
+     * 请求调度器：控制异步请求的全局并发数与单个主机并发数
+     */
+    private Dispatcher newDispatcher(){
+        Dispatcher dispatcher = builder.dispatcherExecutor == null
+                ? new Dispatcher() : new Dispatcher(builder.dispatcherExecutor);
+        dispatcher.setMaxRequests(builder.maxRequests);
+        dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+        return dispatcher;
+    }
+
+    @Override
+    public int getQueuedCallsCount() {
+        OkHttpClient client = OkHttpClientRegistry.getClient(builder.fingerprint);
+        return client == null ? 0 : client.dispatcher().queuedCallsCount();
+    }
+
+    @Override
+    public int getRunningCallsCount() {
+        OkHttpClient client = OkHttpClientRegistry.getClient(builder.fingerprint);
+        return client == null ? 0 : client.dispatcher().runningCallsCount();
+    }
+
+    /**
+     * 获取已创建的根客户端数量：用于确认客户端复用情况
+     */
+    public static int getClientCreatedCount(){
+        return OkHttpClientRegistry.getCreatedCount();
+    }
+
+    /**
+     * 获取已派生的客户端数量（即使用共享客户端的请求数，每个请求只计一次）
+     */
+    public static int getClientDerivedCount(){
+        return OkHttpClientRegistry.getDerivedCount();
+    }
+
     public static Builder Builder() {
         return new Builder(false);
     }
@@ -605,6 +936,9 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         private String httpLogTAG;//显示Http请求日志标识
         private boolean showLifecycleLog;//是否显示ActivityLifecycle日志
         private String downloadFileDir;//下载文件保存目录
+        private int downloadSegmentCount;//下载分段数
+        private int downloadBufferSize;//下载写入缓冲区大小
+        private long downloadCheckpointSize;//下载检查点间隔
         private String requestTag;
         private CookieJar cookieJar;
         private boolean isDefault;//是否默认请求
@@ -613,6 +947,19 @@ public class OkHttpUtil implements OkHttpUtilInterface{
         private boolean isGzip = false;//Gzip压缩
         private String httpsCertificate;//Https证书
         private InputStream httpsCertificateStream;//Https证书
+        private boolean keepAlive;//连接保持（复用连接）
+        private int maxIdleConnections;//连接池最大空闲连接数
+        private int keepAliveDuration;//空闲连接存活时间（秒）
+        private List<Protocol> protocols;//协议列表
+        private int maxRequests;//异步请求最大并发数
+        private int maxRequestsPerHost;//单个主机异步请求最大并发数
+        private ExecutorService dispatcherExecutor;//异步请求执行线程池
+        private TaskExecutor apiExecutor;//延迟请求线程池
+        private TaskExecutor transferExecutor;//文件上传/下载线程池
+        private int priorityAgingTime;//优先级老化时间（毫秒）
+        private Gson gson;//解析返回结果的Gson
+        private Type[] warmUpTypes;//预热的返回结果类型
+        private ConfigKey fingerprint;//配置指纹：build时生成
 
         public Builder() {
         }
@@ -637,6 +984,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             }
             if(null != requestTag)
                 setRequestTag(requestTag);
+            fingerprint = newFingerprint();
             return new OkHttpUtil(this);
         }
 
@@ -657,11 +1005,27 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             setExceptionInterceptors(null);
             setShowHttpLog(true);
             setShowLifecycleLog(false);
-            setDownloadFileDir(Environment.getExternalStorageDirectory().getPath()+"/okHttp_download/");
-            setCachedDir(new File(Environment.getExternalStorageDirectory().getPath()+"/okHttp_cache"));
+            //JVM中默认目录为系统临时目录，外部存储不可用时不设置默认下载与缓存目录
+            File storageDir = Platform.isAndroid()
+                    ? Environment.getExternalStorageDirectory()
+                    : new File(System.getProperty("java.io.tmpdir"));
+            if(null != storageDir){
+                setDownloadFileDir(storageDir.getPath()+"/okHttp_download/");
+                setCachedDir(new File(storageDir.getPath()+"/okHttp_cache"));
+            }
             setIsGzip(false);
             setResponseEncoding(Encoding.UTF_8);
             setRequestEncoding(Encoding.UTF_8);
+            setKeepAlive(true);
+            setMaxIdleConnections(5);
+            setKeepAliveDuration(5 * 60);
+            setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+            setMaxRequests(64);
+            setMaxRequestsPerHost(5);
+            setPriorityAgingTime(2000);
+            setDownloadSegmentCount(1);
+            setDownloadBufferSize(DownloadFileWriter.DEFAULT_BUFFER_SIZE);
+            setDownloadCheckpointSize(DownloadFileWriter.DEFAULT_CHECKPOINT_SIZE);
         }
 
         /**
@@ -684,7 +1048,7 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             setShowHttpLog(builder.showHttpLog);
             setHttpLogTAG(builder.httpLogTAG);
             setShowLifecycleLog(builder.showLifecycleLog);
-            if(!TextUtils.isEmpty(builder.downloadFileDir)){
+            if(!StringUtil.isEmpty(builder.downloadFileDir)){
                 setDownloadFileDir(builder.downloadFileDir);
             }
             setCookieJar(builder.cookieJar);
@@ -697,6 +1061,20 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             if(builder.httpsCertificateStream != null){
                 setHttpsCertificate(builder.httpsCertificateStream);
             }
+            setKeepAlive(builder.keepAlive);
+            setMaxIdleConnections(builder.maxIdleConnections);
+            setKeepAliveDuration(builder.keepAliveDuration);
+            setProtocols(builder.protocols);
+            setMaxRequests(builder.maxRequests);
+            setMaxRequestsPerHost(builder.maxRequestsPerHost);
+            setDispatcherExecutor(builder.dispatcherExecutor);
+            setApiExecutor(builder.apiExecutor);
+            setTransferExecutor(builder.transferExecutor);
+            setPriorityAgingTime(builder.priorityAgingTime);
+            setDownloadSegmentCount(builder.downloadSegmentCount);
+            setDownloadBufferSize(builder.downloadBufferSize);
+            setDownloadCheckpointSize(builder.downloadCheckpointSize);
+            setGson(builder.gson);
         }
 
         private Builder isDefault(boolean isDefault){
@@ -704,6 +1082,27 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             return this;
         }
 
+        /**
+         * 配置指纹：影响OkHttpClient构建的配置项，相同指纹共享同一个根客户端
+         */
+        private ConfigKey newFingerprint(){
+            return new ConfigKey(connectTimeout,
+                    readTimeout,
+                    writeTimeout,
+                    retryOnConnectionFailure,
+                    maxIdleConnections,
+                    keepAliveDuration,
+                    protocols,
+                    maxRequests,
+                    maxRequestsPerHost,
+                    dispatcherExecutor,
+                    maxCacheSize,
+                    cachedDir == null ? "" : cachedDir.getAbsolutePath(),
+                    networkInterceptors,
+                    interceptors,
+                    cookieJar);
+        }
+
         //设置缓存大小
         public Builder setMaxCacheSize(int maxCacheSize) {
             this.maxCacheSize = maxCacheSize;
@@ -838,6 +1237,28 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             return this;
         }
 
+        //设置下载分段数（默认：1）：大于1时文件分段并行下载，服务器不支持Range或文件较小时采用单线程下载
+        public Builder setDownloadSegmentCount(int downloadSegmentCount) {
+            if(downloadSegmentCount < 1)
+                throw new IllegalArgumentException("downloadSegmentCount must be >= 1");
+            this.downloadSegmentCount = downloadSegmentCount;
+            return this;
+        }
+
+        //设置下载写入缓冲区大小（默认：64KB）
+        public Builder setDownloadBufferSize(int downloadBufferSize) {
+            if(downloadBufferSize < 1)
+                throw new IllegalArgumentException("downloadBufferSize must be >= 1");
+            this.downloadBufferSize = downloadBufferSize;
+            return this;
+        }
+
+        //设置下载检查点间隔（默认：1MB）：每下载该长度同步一次存储并记录断点，小于等于0时只在下载结束时同步
+        public Builder setDownloadCheckpointSize(long downloadCheckpointSize) {
+            this.downloadCheckpointSize = downloadCheckpointSize;
+            return this;
+        }
+
         //设置cookie持久化
         public Builder setCookieJar(CookieJar cookieJar) {
             if (null != cookieJar)
@@ -857,6 +1278,18 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             return this;
         }
 
+        //设置解析返回结果的Gson（默认共享同一个Gson），全局配置时作为所有请求的默认Gson
+        public Builder setGson(Gson gson){
+            this.gson = gson;
+            return this;
+        }
+
+        //设置预热的返回结果类型：构建时提前创建并缓存TypeAdapter，避免首次解析时的反射开销
+        public Builder setWarmUpTypes(Type... warmUpTypes){
+            this.warmUpTypes = warmUpTypes;
+            return this;
+        }
+
         //Gzip压缩，需要服务端支持
         public Builder setIsGzip(boolean isGzip){
             this.isGzip = isGzip;
@@ -875,6 +1308,91 @@ public class OkHttpUtil implements OkHttpUtilInterface{
             return this;
         }
 
+        //设置连接保持（默认：true），false时每次请求结束后关闭连接
+        public Builder setKeepAlive(boolean keepAlive){
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        //设置连接池最大空闲连接数（默认：5）
+        public Builder setMaxIdleConnections(int maxIdleConnections){
+            if(maxIdleConnections < 0)
+                throw new IllegalArgumentException("maxIdleConnections must be >= 0");
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        //设置空闲连接存活时间，超时后被连接池回收（单位：秒，默认：300）
+        public Builder setKeepAliveDuration(int keepAliveDuration){
+            if(keepAliveDuration <= 0)
+                throw new IllegalArgumentException("keepAliveDuration must be > 0");
+            this.keepAliveDuration = keepAliveDuration;
+            return this;
+        }
+
+        //设置协议列表（默认：HTTP_2, HTTP_1_1），Https通过ALPN协商HTTP/2实现多路复用
+        public Builder setProtocols(List<Protocol> protocols){
+            if(null == protocols || protocols.isEmpty())
+                throw new IllegalArgumentException("protocols must not be empty");
+            this.protocols = Collections.unmodifiableList(new ArrayList<>(protocols));
+            return this;
+        }
+
+        //设置异步请求最大并发数（默认：64），超出的请求进入等待队列
+        public Builder setMaxRequests(int maxRequests){
+            if(maxRequests < 1)
+                throw new IllegalArgumentException("maxRequests must be >= 1");
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        //设置单个主机异步请求最大并发数（默认：5）
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost){
+            if(maxRequestsPerHost < 1)
+                throw new IllegalArgumentException("maxRequestsPerHost must be >= 1");
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        //设置异步请求执行线程池（默认采用OkHttp内置线程池）
+        public Builder setDispatcherExecutor(ExecutorService dispatcherExecutor){
+            if(null != dispatcherExecutor)
+                this.dispatcherExecutor = dispatcherExecutor;
+            return this;
+        }
+
+        //设置优先级老化时间（单位：毫秒，默认：2000）：低优先级请求每多等待一个老化时间提升一个优先级
+        public Builder setPriorityAgingTime(int priorityAgingTime){
+            if(priorityAgingTime < 0)
+                throw new IllegalArgumentException("priorityAgingTime must be >= 0");
+            this.priorityAgingTime = priorityAgingTime;
+            return this;
+        }
+
+        //设置延迟请求线程池（默认：4个线程，等待队列容量128）
+        public Builder setApiExecutor(TaskExecutor apiExecutor){
+            if(null != apiExecutor)
+                this.apiExecutor = apiExecutor;
+            return this;
+        }
+
+        //设置文件上传/下载线程池（默认：3个线程，等待队列容量64）
+        public Builder setTransferExecutor(TaskExecutor transferExecutor){
+            if(null != transferExecutor)
+                this.transferExecutor = transferExecutor;
+            return this;
+        }
+
+        //设置明文HTTP/2（h2c prior knowledge）：仅用于确定支持h2c的服务端，如本地测试服务
+        public Builder setH2PriorKnowledge(boolean h2PriorKnowledge){
+            if(h2PriorKnowledge){
+                setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+            }else{
+                setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+            }
+            return this;
+        }
+
     }
 
     private static String parseRequestTag(Object object){
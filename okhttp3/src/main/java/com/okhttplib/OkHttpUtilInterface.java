@@ -1,7 +1,14 @@
 package com.okhttplib;
 
+import com.okhttplib.annotation.BatchMode;
+import com.okhttplib.bean.BatchResult;
 import com.okhttplib.callback.BaseCallback;
+import com.okhttplib.callback.BatchCallback;
 import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.executor.PriorityDispatchQueue;
+import com.okhttplib.future.HttpFuture;
+
+import java.util.List;
 
 import okhttp3.OkHttpClient;
 
@@ -134,6 +141,59 @@ public interface OkHttpUtilInterface {
      */
     void doPutAsync(HttpInfo info, BaseCallback callback);
 
+    /**
+     * 异步请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture 支持组合与取消，取消时同时取消网络请求
+     */
+    HttpFuture<HttpInfo> doFuture(HttpInfo info);
+
+    /**
+     * 异步Get请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture
+     */
+    HttpFuture<HttpInfo> doGetFuture(HttpInfo info);
+
+    /**
+     * 异步Post请求：返回的结果由请求线程直接完成，不切换到主线程
+     * @param info 请求信息体
+     * @return HttpFuture
+     */
+    HttpFuture<HttpInfo> doPostFuture(HttpInfo info);
+
+    /**
+     * 异步批量请求：所有请求结束后汇总回调一次
+     * @param infos 请求信息体集合
+     * @param callback 批量结果回调接口
+     */
+    void doBatchAsync(List<HttpInfo> infos, BatchCallback callback);
+
+    /**
+     * 异步批量请求
+     * @param infos 请求信息体集合
+     * @param maxConcurrency 同时进行的最大请求数量
+     * @param mode 批量请求模式
+     * @param callback 批量结果回调接口
+     */
+    void doBatchAsync(List<HttpInfo> infos, int maxConcurrency, @BatchMode int mode, BatchCallback callback);
+
+    /**
+     * 同步批量请求
+     * @param infos 请求信息体集合
+     * @return BatchResult
+     */
+    BatchResult doBatchSync(List<HttpInfo> infos);
+
+    /**
+     * 同步批量请求
+     * @param infos 请求信息体集合
+     * @param maxConcurrency 同时进行的最大请求数量
+     * @param mode 批量请求模式
+     * @return BatchResult
+     */
+    BatchResult doBatchSync(List<HttpInfo> infos, int maxConcurrency, @BatchMode int mode);
+
     /**
      * 取消请求
      * @param requestTag 请求标识
@@ -151,4 +211,20 @@ public interface OkHttpUtilInterface {
      */
     boolean deleteCache();
 
+    /**
+     * 获取等待执行的异步请求数量
+     */
+    int getQueuedCallsCount();
+
+    /**
+     * 获取正在执行的请求数量（包括同步请求）
+     */
+    int getRunningCallsCount();
+
+    /**
+     * 获取优先级调度队列：每个主机一个调度队列，可查询各优先级的排队等待时间
+     * @param url 请求地址
+     */
+    PriorityDispatchQueue getPriorityDispatchQueue(String url);
+
 }
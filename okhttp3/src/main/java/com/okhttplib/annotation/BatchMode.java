@@ -0,0 +1,25 @@
+package com.okhttplib.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 批量请求模式
+ * @author zhousf
+ */
+@IntDef({BatchMode.COLLECT_ALL, BatchMode.FAIL_FAST})
+@Retention(RetentionPolicy.SOURCE)
+public @interface BatchMode {
+
+    /**
+     * 全部执行：所有请求结束后回调
+     */
+    int COLLECT_ALL = 1;
+
+    /**
+     * 快速失败：任一请求失败后不再发起剩余请求并立即回调
+     */
+    int FAIL_FAST = 2;
+}
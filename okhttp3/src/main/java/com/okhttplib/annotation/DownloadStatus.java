@@ -9,7 +9,8 @@ import java.lang.annotation.RetentionPolicy;
  * 下载状态
  * @author zhousf
  */
-@StringDef({DownloadStatus.INIT,DownloadStatus.DOWNLOADING,DownloadStatus.PAUSE,DownloadStatus.COMPLETED})
+@StringDef({DownloadStatus.INIT,DownloadStatus.WAITING,DownloadStatus.DOWNLOADING,DownloadStatus.PAUSE,
+        DownloadStatus.FAILED,DownloadStatus.COMPLETED,DownloadStatus.CANCELED})
 @Retention(RetentionPolicy.SOURCE)
 public @interface DownloadStatus {
 
@@ -18,6 +19,11 @@ public @interface DownloadStatus {
      */
     String INIT = "INIT";
 
+    /**
+     * 排队等待状态：下载管理器中等待执行
+     */
+    String WAITING = "WAITING";
+
     /**
      * 正在下载状态
      */
@@ -28,9 +34,19 @@ public @interface DownloadStatus {
      */
     String PAUSE = "PAUSE";
 
+    /**
+     * 下载失败状态：下载管理器中可继续下载
+     */
+    String FAILED = "FAILED";
+
     /**
      * 下载完成状态
      */
     String COMPLETED = "COMPLETED";
 
+    /**
+     * 取消状态：下载管理器中任务已删除
+     */
+    String CANCELED = "CANCELED";
+
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.okhttplib.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 日志级别：与android.util.Log一致
+ * @author zhousf
+ */
+@IntDef({LogLevel.VERBOSE, LogLevel.DEBUG, LogLevel.INFO, LogLevel.WARN, LogLevel.ERROR, LogLevel.NONE})
+@Retention(RetentionPolicy.SOURCE)
+public @interface LogLevel {
+
+    int VERBOSE = 2;
+
+    int DEBUG = 3;
+
+    int INFO = 4;
+
+    int WARN = 5;
+
+    int ERROR = 6;
+
+    /**
+     * 关闭日志
+     */
+    int NONE = 8;
+}
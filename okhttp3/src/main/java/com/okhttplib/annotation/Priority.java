@@ -0,0 +1,35 @@
+package com.okhttplib.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 请求优先级：数值越小优先级越高
+ * @author zhousf
+ */
+@IntDef({Priority.CRITICAL, Priority.NORMAL, Priority.BACKGROUND, Priority.PREFETCH})
+@Retention(RetentionPolicy.SOURCE)
+public @interface Priority {
+
+    /**
+     * 关键请求：用户正在等待的请求
+     */
+    int CRITICAL = 1;
+
+    /**
+     * 普通请求
+     */
+    int NORMAL = 2;
+
+    /**
+     * 后台请求：如数据同步
+     */
+    int BACKGROUND = 3;
+
+    /**
+     * 预加载请求
+     */
+    int PREFETCH = 4;
+}
@@ -0,0 +1,32 @@
+package com.okhttplib.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * 任务队列已满时的拒绝策略
+ * @author zhousf
+ */
+@IntDef({RejectPolicy.ABORT, RejectPolicy.DISCARD_OLDEST, RejectPolicy.CALLER_RUNS})
+@Retention(RetentionPolicy.SOURCE)
+public @interface RejectPolicy {
+
+    /**
+     * 拒绝新任务：新任务回调请求被拒绝
+     */
+    int ABORT = 1;
+
+    /**
+     * 丢弃最早的等待任务（负载削减）：被丢弃的任务回调请求被拒绝
+     */
+    int DISCARD_OLDEST = 2;
+
+    /**
+     * 由提交任务的线程执行：
+     * 延迟任务（由共享的调度线程提交）与主线程提交的任务不在提交线程中执行，按ABORT回调请求被拒绝，
+     * 文件上传/下载耗时较长，不建议用于文件传输线程池
+     */
+    int CALLER_RUNS = 3;
+}
@@ -0,0 +1,20 @@
+package com.okhttplib.bean;
+
+import com.okhttplib.callback.BatchCallback;
+
+/**
+ * 批量请求响应回调信息体
+ * @author zhousf
+ */
+public class BatchMessage extends OkMessage{
+
+    public BatchCallback callback;
+    public BatchResult result;
+
+    public BatchMessage(int what, BatchCallback callback, BatchResult result, String requestTag) {
+        this.what = what;
+        this.callback = callback;
+        this.result = result;
+        super.requestTag = requestTag;
+    }
+}
@@ -0,0 +1,79 @@
+package com.okhttplib.bean;
+
+import com.okhttplib.HttpInfo;
+
+import java.util.List;
+
+/**
+ * 批量请求结果
+ * @author zhousf
+ */
+public class BatchResult {
+
+    private final List<HttpInfo> infos;//请求信息体（与提交顺序一致）
+    private final long[] costTimes;//每个请求的耗时（毫秒），未完成的请求为-1
+    private final int successCount;//成功数量
+    private final int failureCount;//失败数量
+    private final boolean aborted;//是否提前结束（快速失败或等待被中断）
+    private final long totalTime;//总耗时（毫秒）
+
+    public BatchResult(List<HttpInfo> infos, long[] costTimes, int successCount,
+                       int failureCount, boolean aborted, long totalTime) {
+        this.infos = infos;
+        this.costTimes = costTimes;
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.aborted = aborted;
+        this.totalTime = totalTime;
+    }
+
+    public List<HttpInfo> getInfos() {
+        return infos;
+    }
+
+    public HttpInfo getInfo(int index) {
+        return infos.get(index);
+    }
+
+    public int size() {
+        return infos.size();
+    }
+
+    /**
+     * 请求是否已完成：快速失败时未发起或未结束的请求为false
+     */
+    public boolean isCompleted(int index) {
+        return costTimes[index] >= 0;
+    }
+
+    /**
+     * 请求耗时（毫秒）：未完成的请求返回-1
+     */
+    public long getCostTime(int index) {
+        return costTimes[index];
+    }
+
+    /**
+     * 所有请求都已完成且成功
+     */
+    public boolean isSuccessful() {
+        return !aborted && failureCount == 0 && successCount == infos.size();
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+}
@@ -18,10 +18,12 @@ public class DownloadFileInfo {
     private String saveFileName;
     //下载进度回调接口
     private ProgressCallback progressCallback;
-    //下载状态
-    private String downloadStatus = DownloadStatus.INIT;
+    //下载状态：分段下载时由多个线程读取
+    private volatile String downloadStatus = DownloadStatus.INIT;
     //已下载字节数
     private long completedSize;
+    //下载分段数：小于等于0时采用OkHttpUtil的全局配置
+    private int segmentCount;
 
     private String saveFileNameWithExtension;//保存文件名称：包含扩展名
     private String saveFileNameCopy;//保存文件备用名称：用于文件名称冲突
@@ -89,6 +91,17 @@ public class DownloadFileInfo {
     }
 
 
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * 设置下载分段数：大于1时分段并行下载，服务器不支持Range或文件较小时采用单线程下载
+     */
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = segmentCount;
+    }
+
     public String getSaveFileNameWithExtension() {
         return saveFileNameWithExtension;
     }
@@ -6,7 +6,7 @@ import android.os.Message;
 import java.io.Serializable;
 
 /**
- * Handler信息体基类
+ * 回调信息体基类：由OkMainHandler分发
  * @author zhousf
  */
 public class OkMessage implements Serializable {
@@ -15,6 +15,14 @@ public class OkMessage implements Serializable {
 
     public String requestTag;
 
+    /**
+     * 请求标识已保留：没有对应请求的回调在分发前保留请求标识，回调结束后释放
+     */
+    public boolean heldTag;
+
+    /**
+     * 转换为Android Message（仅Android中可用）
+     */
     public Message build(){
         Message msg = new Message();
         msg.what = this.what;
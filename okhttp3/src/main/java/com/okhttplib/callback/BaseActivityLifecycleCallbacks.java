@@ -2,33 +2,27 @@ package com.okhttplib.callback;
 
 import android.app.Activity;
 import android.app.Application;
+import android.content.Context;
+import android.os.Build;
 import android.os.Bundle;
-import android.text.TextUtils;
-import android.util.Log;
-import android.util.SparseArray;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import okhttp3.Call;
 
 /**
- * Activity声明周期回调
+ * Activity声明周期回调：Activity销毁时取消对应的请求，请求集合见CallRegistry
  * @author zhousf
  */
 public class BaseActivityLifecycleCallbacks implements Application.ActivityLifecycleCallbacks {
 
-    private static final String TAG = "ActivityLifecycle";
-
-    /**
-     * 是否显示ActivityLifecycle日志
-     */
-    private static boolean showLifecycleLog;
-
     /**
-     * 请求集合: key=Activity value=Call集合
+     * 注册Activity声明周期回调
+     * @param context Application上下文
      */
-    private static Map<String,SparseArray<Call>> callsMap = new ConcurrentHashMap<>();
+    public static void register(Context context){
+        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB_MR2) {
+            ((Application)context).registerActivityLifecycleCallbacks(new BaseActivityLifecycleCallbacks());
+        }
+    }
 
     /**
      * 保存请求集合
@@ -36,16 +30,7 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
      * @param call 请求
      */
     public static void putCall(String tag, Call call){
-        if(!TextUtils.isEmpty(tag)){
-            SparseArray<Call> callList = callsMap.get(tag);
-            if(null == callList){
-                callList = new SparseArray<>();
-            }
-            callList.put(call.hashCode(),call);
-            callsMap.put(tag,callList);
-            showLog(false,tag);
-        }
-
+        CallRegistry.putCall(tag,call);
     }
 
     /**
@@ -56,23 +41,8 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
         String tag = activity.getClass().getName();
         if(null == tag)
             return ;
-        destroy(tag,callsMap.get(tag));
-        destroy(tag,callsMap.get(String.valueOf(activity.hashCode())));
-
-    }
-
-    private void destroy(String tag, SparseArray<Call> callList){
-        if(null != callList){
-            final int len = callList.size();
-            for(int i=0;i<len;i++){
-                Call call = callList.valueAt(i);
-                if(null != call &&!call.isCanceled())
-                    call.cancel();
-            }
-            callList.clear();
-            callsMap.remove(tag);
-            showLog(true,tag);
-        }
+        CallRegistry.cancel(tag);
+        CallRegistry.cancel(String.valueOf(activity.hashCode()));
     }
 
     /**
@@ -81,8 +51,7 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
      * @return true 已经销毁  false 未销毁
      */
     public static boolean isActivityDestroyed(Activity activity){
-        String tag = activity.getClass().getName();
-        return callsMap.get(tag) == null;
+        return CallRegistry.isDestroyed(activity.getClass().getName());
     }
 
     /**
@@ -91,7 +60,7 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
      * @return true 已经销毁  false 未销毁
      */
     public static boolean isActivityDestroyed(String tag){
-        return !TextUtils.isEmpty(tag) && callsMap.get(tag) == null;
+        return CallRegistry.isDestroyed(tag);
     }
 
     /**
@@ -99,7 +68,7 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
      * @param tag 请求标识
      */
     public static void cancel(String tag){
-        cancel(tag,null);
+        CallRegistry.cancel(tag);
     }
 
     /**
@@ -108,43 +77,7 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
      * @param originalCall call
      */
     public static void cancel(String tag, Call originalCall){
-        if(TextUtils.isEmpty(tag)){
-            return ;
-        }
-        if(null != originalCall){
-            SparseArray<Call> callList = callsMap.get(tag);
-            if(null != callList){
-                Call c = callList.get(originalCall.hashCode());
-                if(null != c && !c.isCanceled())
-                    c.cancel();
-                callList.delete(originalCall.hashCode());
-                if(callList.size() == 0)
-                    callsMap.remove(tag);
-                showLog(true,tag);
-            }
-        }else{
-            SparseArray<Call> callList = callsMap.get(tag);
-            if(null != callList){
-                for(int i=0 ;i<callList.size();i++){
-                    Call call = callList.valueAt(i);
-                    if(null != call && !call.isCanceled()){
-                        call.cancel();
-                        callList.delete(call.hashCode());
-                    }
-                    if(callList.size() == 0)
-                        callsMap.remove(tag);
-                    showLog(true,tag);
-                }
-            }
-        }
-    }
-
-    private static void showLog(boolean isCancel, String tag){
-        if(!showLifecycleLog){
-            return;
-        }
-        String callDetail = isCancel ? "取消请求": "增加请求";
-        Log.d(TAG,callDetail+": "+tag);
+        CallRegistry.cancel(tag,originalCall);
     }
 
 
@@ -184,6 +117,6 @@ public class BaseActivityLifecycleCallbacks implements Application.ActivityLifec
     }
 
     public static void setShowLifecycleLog(boolean showLifecycle) {
-        showLifecycleLog = showLifecycle;
+        CallRegistry.setShowLog(showLifecycle);
     }
 }
@@ -0,0 +1,16 @@
+package com.okhttplib.callback;
+
+import com.okhttplib.bean.BatchResult;
+
+/**
+ * 批量请求回调接口
+ * @author zhousf
+ */
+public interface BatchCallback extends BaseCallback{
+
+    /**
+     * 批量请求结束：该回调方法已切换到UI线程
+     */
+    void onResponse(BatchResult result);
+
+}
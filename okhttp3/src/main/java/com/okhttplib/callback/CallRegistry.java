@@ -0,0 +1,149 @@
+package com.okhttplib.callback;
+
+import com.okhttplib.log.OkLog;
+import com.okhttplib.util.StringUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Call;
+
+/**
+ * 请求集合：按请求标识保存正在执行的请求，用于取消请求与判断请求标识是否已经销毁
+ * 与平台无关，Android中由BaseActivityLifecycleCallbacks在Activity销毁时取消对应的请求
+ * @author zhousf
+ */
+public final class CallRegistry {
+
+    private static final String TAG = "ActivityLifecycle";
+
+    /**
+     * 是否显示请求集合日志
+     */
+    private static volatile boolean showLog;
+
+    /**
+     * 请求集合: key=请求标识 value=Call集合
+     */
+    private static final ConcurrentHashMap<String,Map<Integer,Call>> callsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 保留的请求标识: key=请求标识 value=保留次数
+     */
+    private static final ConcurrentHashMap<String,Integer> holdsMap = new ConcurrentHashMap<>();
+
+    private CallRegistry() {
+    }
+
+    /**
+     * 保存请求
+     * @param tag 请求标识
+     * @param call 请求
+     */
+    public static void putCall(String tag, Call call){
+        if(StringUtil.isEmpty(tag))
+            return ;
+        Map<Integer,Call> callList = callsMap.get(tag);
+        if(null == callList){
+            callList = new ConcurrentHashMap<>();
+            Map<Integer,Call> previous = callsMap.putIfAbsent(tag,callList);
+            if(null != previous)
+                callList = previous;
+        }
+        callList.put(call.hashCode(),call);
+        showLog(false,tag);
+    }
+
+    /**
+     * 判断请求标识是否已经销毁
+     * @param tag 请求标识
+     * @return true 已经销毁  false 未销毁
+     */
+    public static boolean isDestroyed(String tag){
+        return !StringUtil.isEmpty(tag) && callsMap.get(tag) == null && !holdsMap.containsKey(tag);
+    }
+
+    /**
+     * 保留请求标识：由多个请求组成的批量请求在汇总回调之前保留请求标识，
+     * 避免最后一个请求结束时移除请求标识导致汇总结果无法回调，取消请求标识下的所有请求时一并移除
+     * @param tag 请求标识
+     */
+    public static void hold(String tag){
+        if(StringUtil.isEmpty(tag))
+            return ;
+        synchronized (holdsMap){
+            Integer count = holdsMap.get(tag);
+            holdsMap.put(tag,null == count ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * 释放保留的请求标识
+     * @param tag 请求标识
+     */
+    public static void release(String tag){
+        if(StringUtil.isEmpty(tag))
+            return ;
+        synchronized (holdsMap){
+            Integer count = holdsMap.get(tag);
+            if(null == count)
+                return ;
+            if(count <= 1){
+                holdsMap.remove(tag);
+            }else{
+                holdsMap.put(tag,count - 1);
+            }
+        }
+    }
+
+    /**
+     * 取消请求标识下的所有请求
+     * @param tag 请求标识
+     */
+    public static void cancel(String tag){
+        cancel(tag,null);
+    }
+
+    /**
+     * 取消请求
+     * @param tag 请求标识
+     * @param originalCall 为null时取消请求标识下的所有请求
+     */
+    public static void cancel(String tag, Call originalCall){
+        if(StringUtil.isEmpty(tag))
+            return ;
+        if(null == originalCall){
+            synchronized (holdsMap){
+                holdsMap.remove(tag);
+            }
+        }
+        //取消所有请求时先移除请求标识：被取消的请求回调时请求标识已经销毁
+        Map<Integer,Call> callList = null == originalCall ? callsMap.remove(tag) : callsMap.get(tag);
+        if(null == callList)
+            return ;
+        if(null != originalCall){
+            Call c = callList.remove(originalCall.hashCode());
+            if(null != c && !c.isCanceled())
+                c.cancel();
+            if(callList.isEmpty())
+                callsMap.remove(tag);
+        }else{
+            for(Call call : callList.values()){
+                if(null != call && !call.isCanceled())
+                    call.cancel();
+            }
+        }
+        showLog(true,tag);
+    }
+
+    private static void showLog(boolean isCancel, String tag){
+        if(!showLog)
+            return ;
+        OkLog.d(TAG,(isCancel ? "取消请求": "增加请求")+": "+tag);
+    }
+
+    public static void setShowLog(boolean showLog) {
+        CallRegistry.showLog = showLog;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.okhttplib.callback;
+
+import com.okhttplib.HttpInfo;
+
+/**
+ * 异步请求回调接口：直接在请求线程中回调，不切换到UI线程
+ * 适用于批量请求、请求组合等需要在后台线程继续处理结果的场景
+ * @author zhousf
+ */
+public interface DirectCallback extends BaseCallback{
+
+    /**
+     * 请求结束：该回调方法在请求线程中执行，不能更新UI
+     */
+    void onResponse(HttpInfo info);
+
+}
@@ -0,0 +1,125 @@
+package com.okhttplib.download;
+
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.util.StringUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 下载任务日志：保存排队、暂停与失败的下载任务，进程重启后恢复，
+ * 已下载字节数与文件总长度随任务保存，恢复时无需重新请求服务器
+ * 先写入临时文件再重命名，写入过程中进程退出不会损坏已有日志
+ * @author zhousf
+ */
+final class DownloadJournal {
+
+    private static final int JOURNAL_VERSION = 1;
+
+    private final File file;
+
+    DownloadJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 保存任务
+     */
+    void write(Collection<DownloadTask> tasks) throws IOException {
+        File parent = file.getParentFile();
+        if(null != parent && !parent.exists() && !parent.mkdirs())
+            throw new IOException("mkdirs failed: "+parent);
+        File temp = new File(file.getPath()+".tmp");
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+        try {
+            out.writeInt(JOURNAL_VERSION);
+            out.writeInt(tasks.size());
+            for(DownloadTask task : tasks){
+                DownloadFileInfo fileInfo = task.getFileInfo();
+                out.writeUTF(task.getUrl());
+                out.writeUTF(nonNull(fileInfo.getSaveFileDir()));
+                out.writeUTF(nonNull(fileInfo.getSaveFileName()));
+                out.writeInt(fileInfo.getSegmentCount());
+                out.writeInt(task.getPriority());
+                out.writeUTF(task.getStatus());
+                out.writeLong(task.getCompletedSize());
+                out.writeLong(task.getContentLength());
+            }
+        } finally {
+            out.close();
+        }
+        if(!temp.renameTo(file))
+            throw new IOException("rename failed: "+file);
+    }
+
+    /**
+     * 读取任务
+     * @return 日志文件不存在或无效时返回空列表
+     */
+    List<Entry> read(){
+        List<Entry> entries = new ArrayList<>();
+        if(!file.isFile())
+            return entries;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if(in.readInt() != JOURNAL_VERSION)
+                return entries;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.url = in.readUTF();
+                entry.saveFileDir = nullable(in.readUTF());
+                entry.saveFileName = nullable(in.readUTF());
+                entry.segmentCount = in.readInt();
+                entry.priority = in.readInt();
+                entry.status = in.readUTF();
+                entry.completedSize = in.readLong();
+                entry.contentLength = in.readLong();
+                entries.add(entry);
+            }
+            return entries;
+        } catch (IOException e){
+            entries.clear();
+            return entries;
+        } finally {
+            if(null != in){
+                try {
+                    in.close();
+                } catch (IOException e){
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static String nonNull(String value){
+        return null == value ? "" : value;
+    }
+
+    private static String nullable(String value){
+        return StringUtil.isEmpty(value) ? null : value;
+    }
+
+    /**
+     * 日志记录
+     */
+    static final class Entry {
+        String url;
+        String saveFileDir;
+        String saveFileName;
+        int segmentCount;
+        int priority;
+        String status;
+        long completedSize;
+        long contentLength;
+    }
+
+}
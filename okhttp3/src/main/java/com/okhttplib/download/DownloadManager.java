@@ -0,0 +1,422 @@
+package com.okhttplib.download;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.annotation.DownloadStatus;
+import com.okhttplib.annotation.Priority;
+import com.okhttplib.annotation.RejectPolicy;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.executor.BoundedTaskExecutor;
+import com.okhttplib.executor.TaskExecutor;
+import com.okhttplib.helper.OkHttpHelper;
+import com.okhttplib.log.OkLog;
+import com.okhttplib.util.EncryptUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下载管理器：
+ * 同时下载的文件数不超过上限，其余任务按优先级（数值越小越优先）排队，相同优先级先进先出
+ * 支持按任务标识暂停、继续与取消，取消时删除断点文件
+ * 设置日志文件后排队、暂停与失败的任务保存到日志中，进程重启后调用restore恢复
+ * @author zhousf
+ */
+public class DownloadManager {
+
+    private static final String TAG = "DownloadManager";
+
+    /**
+     * 任务状态监听：非UI线程
+     */
+    public interface Listener {
+
+        /**
+         * 任务状态变化
+         * @param task 下载任务
+         */
+        void onStatusChanged(DownloadTask task);
+
+    }
+
+    private final OkHttpUtilInterface okHttpUtil;
+    private final int maxActive;
+    private final DownloadJournal journal;
+    private final TaskExecutor executor;
+    private final Map<String,DownloadTask> tasks = new LinkedHashMap<>();
+    private final PriorityQueue<DownloadTask> queue = new PriorityQueue<>();
+    private final Set<DownloadTask> interrupted = new HashSet<>();//关闭时中断的任务：恢复后重新排队
+    private volatile Listener listener;
+    private int activeCount;
+    private long sequence;
+
+    /**
+     * @param okHttpUtil 执行下载的OkHttpUtil
+     * @param maxActive 同时下载的最大文件数
+     * @param journalFile 任务日志文件：为null时不保存任务
+     */
+    public DownloadManager(OkHttpUtilInterface okHttpUtil, int maxActive, File journalFile) {
+        if(null == okHttpUtil)
+            throw new IllegalArgumentException("okHttpUtil == null");
+        if(maxActive < 1)
+            throw new IllegalArgumentException("maxActive must be >= 1");
+        this.okHttpUtil = okHttpUtil;
+        this.maxActive = maxActive;
+        this.journal = null == journalFile ? null : new DownloadJournal(journalFile);
+        this.executor = new BoundedTaskExecutor("OkHttp Download",maxActive,maxActive, RejectPolicy.ABORT);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 恢复日志中的任务：排队中的任务重新排队，暂停与失败的任务保持原状态
+     * @return 恢复的任务
+     */
+    public List<DownloadTask> restore(){
+        List<DownloadTask> restored = new ArrayList<>();
+        if(null == journal)
+            return restored;
+        synchronized (this){
+            for(DownloadJournal.Entry entry : journal.read()){
+                String id = taskId(entry.url);
+                if(tasks.containsKey(id))
+                    continue;
+                DownloadFileInfo fileInfo = new DownloadFileInfo(entry.url,entry.saveFileDir,entry.saveFileName,null);
+                fileInfo.setSegmentCount(entry.segmentCount);
+                DownloadTask task = newTask(id,fileInfo,entry.priority);
+                task.setCompletedSize(entry.completedSize);
+                task.setContentLength(entry.contentLength);
+                if(DownloadStatus.PAUSE.equals(entry.status) || DownloadStatus.FAILED.equals(entry.status)){
+                    task.setStatus(entry.status);
+                }else{
+                    queue.add(task);
+                }
+                restored.add(task);
+            }
+        }
+        promote();
+        return restored;
+    }
+
+    /**
+     * 添加下载任务：相同下载地址的任务只保留一个，已暂停或失败的任务继续下载
+     * @param fileInfo 下载文件信息
+     * @param priority 优先级
+     * @return 任务标识
+     */
+    public String enqueue(DownloadFileInfo fileInfo, @Priority int priority){
+        String id = taskId(fileInfo.getUrl());
+        DownloadTask task;
+        synchronized (this){
+            DownloadTask exist = tasks.get(id);
+            if(null != exist && !DownloadStatus.COMPLETED.equals(exist.getStatus())){
+                task = null;
+            }else{
+                task = newTask(id,fileInfo,checkPriority(priority));
+                queue.add(task);
+                saveJournal();
+            }
+        }
+        if(null == task){
+            resume(id);
+            return id;
+        }
+        notifyChanged(task);
+        promote();
+        return id;
+    }
+
+    /**
+     * 暂停下载：正在下载的任务在当前数据写入后暂停
+     * @return 任务不存在或不能暂停时返回false
+     */
+    public boolean pause(String id){
+        DownloadTask task;
+        synchronized (this){
+            task = tasks.get(id);
+            if(null == task)
+                return false;
+            String status = task.getStatus();
+            if(DownloadStatus.DOWNLOADING.equals(status)){
+                task.pauseRequested = true;
+                task.getFileInfo().setDownloadStatus(DownloadStatus.PAUSE);
+                return true;
+            }
+            if(!DownloadStatus.WAITING.equals(status))
+                return false;
+            queue.remove(task);
+            task.setStatus(DownloadStatus.PAUSE);
+            saveJournal();
+        }
+        notifyChanged(task);
+        return true;
+    }
+
+    /**
+     * 继续下载：暂停或失败的任务重新排队
+     * @return 任务不存在或不能继续时返回false
+     */
+    public boolean resume(String id){
+        DownloadTask task;
+        synchronized (this){
+            task = tasks.get(id);
+            if(null == task)
+                return false;
+            String status = task.getStatus();
+            if(!DownloadStatus.PAUSE.equals(status) && !DownloadStatus.FAILED.equals(status))
+                return false;
+            task.setStatus(DownloadStatus.WAITING);
+            queue.add(task);
+            saveJournal();
+        }
+        notifyChanged(task);
+        promote();
+        return true;
+    }
+
+    /**
+     * 取消下载：删除任务与断点文件，正在下载的任务停止后删除，删除后通知取消状态
+     * @return 任务不存在时返回false
+     */
+    public boolean cancel(String id){
+        DownloadTask task;
+        synchronized (this){
+            task = tasks.get(id);
+            if(null == task)
+                return false;
+            if(DownloadStatus.DOWNLOADING.equals(task.getStatus())){
+                task.cancelRequested = true;
+                task.getFileInfo().setDownloadStatus(DownloadStatus.PAUSE);
+                return true;
+            }
+            queue.remove(task);
+            tasks.remove(id);
+            if(!DownloadStatus.COMPLETED.equals(task.getStatus()))
+                OkHttpHelper.deleteDownloadFiles(task.getFileInfo());
+            task.setStatus(DownloadStatus.CANCELED);
+            saveJournal();
+        }
+        notifyChanged(task);
+        return true;
+    }
+
+    public synchronized DownloadTask getTask(String id){
+        return tasks.get(id);
+    }
+
+    /**
+     * 全部任务：按添加顺序
+     */
+    public synchronized List<DownloadTask> getTasks(){
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * 正在下载的任务数
+     */
+    public synchronized int getActiveCount(){
+        return activeCount;
+    }
+
+    /**
+     * 关闭下载管理器：停止正在下载的任务，与排队的任务一起保留在日志中，恢复后重新排队
+     */
+    public void shutdown(){
+        synchronized (this){
+            for(DownloadTask task : tasks.values()){
+                if(DownloadStatus.DOWNLOADING.equals(task.getStatus()) && !task.pauseRequested){
+                    task.pauseRequested = true;
+                    task.getFileInfo().setDownloadStatus(DownloadStatus.PAUSE);
+                    interrupted.add(task);
+                }
+            }
+            queue.clear();
+        }
+        executor.shutdown();
+    }
+
+    private DownloadTask newTask(String id, DownloadFileInfo fileInfo, int priority){
+        DownloadTask task = new DownloadTask(id,fileInfo,priority,sequence++);
+        ProgressCallback progressCallback = fileInfo.getProgressCallback();
+        if(progressCallback instanceof TaskProgressCallback)
+            progressCallback = ((TaskProgressCallback) progressCallback).task.getProgressCallback();
+        task.setProgressCallback(progressCallback);
+        fileInfo.setProgressCallback(new TaskProgressCallback(task));
+        tasks.put(id,task);
+        return task;
+    }
+
+    /**
+     * 执行排队的任务直到达到并发上限
+     */
+    private void promote(){
+        List<DownloadTask> started = new ArrayList<>();
+        synchronized (this){
+            while (activeCount < maxActive && !queue.isEmpty()){
+                DownloadTask task = queue.poll();
+                task.setStatus(DownloadStatus.DOWNLOADING);
+                activeCount++;
+                started.add(task);
+            }
+            if(!started.isEmpty())
+                saveJournal();
+        }
+        for(final DownloadTask task : started){
+            notifyChanged(task);
+            executor.execute(new TaskExecutor.Task() {
+                @Override
+                public void run() {
+                    download(task);
+                }
+
+                @Override
+                public void onRejected() {
+                    finish(task,null,false);
+                }
+            },0,TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void download(DownloadTask task){
+        HttpInfo info = null;
+        boolean failed = true;
+        try {
+            if(!task.pauseRequested && !task.cancelRequested){
+                info = HttpInfo.Builder().addDownloadFile(task.getFileInfo()).build();
+                okHttpUtil.doDownloadFileSync(info);
+            }
+            failed = false;
+        } catch (RuntimeException e){
+            OkLog.w(TAG,"下载任务异常："+e.getMessage());
+        } finally {
+            //下载抛出异常时任务结束为失败状态，释放下载名额
+            finish(task,info,failed);
+        }
+    }
+
+    /**
+     * 任务结束
+     * @param failed 下载是否抛出异常
+     */
+    private void finish(DownloadTask task, HttpInfo info, boolean failed){
+        synchronized (this){
+            activeCount--;
+            task.setInfo(info);
+            boolean requeue = interrupted.remove(task);
+            if(task.cancelRequested){
+                tasks.remove(task.getId());
+                OkHttpHelper.deleteDownloadFiles(task.getFileInfo());
+                task.setStatus(DownloadStatus.CANCELED);
+            }else if(failed){
+                task.setStatus(DownloadStatus.FAILED);
+            }else if(DownloadStatus.COMPLETED.equals(task.getFileInfo().getDownloadStatus())){
+                task.setStatus(DownloadStatus.COMPLETED);
+            }else if(requeue){
+                task.setStatus(DownloadStatus.WAITING);
+            }else if(task.pauseRequested){
+                task.setStatus(DownloadStatus.PAUSE);
+            }else{
+                task.setStatus(DownloadStatus.FAILED);
+            }
+            task.pauseRequested = false;
+            saveJournal();
+        }
+        notifyChanged(task);
+        promote();
+    }
+
+    private void saveJournal(){
+        if(null == journal)
+            return ;
+        List<DownloadTask> pending = new ArrayList<>();
+        for(DownloadTask task : tasks.values()){
+            if(!DownloadStatus.COMPLETED.equals(task.getStatus()))
+                pending.add(task);
+        }
+        try {
+            journal.write(pending);
+        } catch (IOException e){
+            OkLog.w(TAG,"保存下载任务失败："+e.getMessage());
+        }
+    }
+
+    private void notifyChanged(DownloadTask task){
+        Listener listener = this.listener;
+        if(null != listener)
+            listener.onStatusChanged(task);
+    }
+
+    private static int checkPriority(int priority){
+        if(priority < Priority.CRITICAL || priority > Priority.PREFETCH)
+            return Priority.NORMAL;
+        return priority;
+    }
+
+    /**
+     * 任务标识：下载地址的MD5，与断点文件名称一致
+     */
+    private static String taskId(String url){
+        try {
+            return EncryptUtil.MD5StringTo32Bit(url,true);
+        } catch (Exception e){
+            return url;
+        }
+    }
+
+    /**
+     * 任务进度回调：记录下载进度并转发给调用方的进度回调，
+     * 下载开始前收到的暂停请求在开始写入后生效
+     */
+    private static final class TaskProgressCallback extends ProgressCallback {
+
+        private final DownloadTask task;
+
+        TaskProgressCallback(DownloadTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void onProgressAsync(int percent, long bytesWritten, long contentLength, boolean done) {
+            task.setCompletedSize(bytesWritten);
+            task.setContentLength(contentLength);
+            if(task.pauseRequested || task.cancelRequested)
+                task.getFileInfo().setDownloadStatus(DownloadStatus.PAUSE);
+            ProgressCallback callback = task.getProgressCallback();
+            if(null != callback)
+                callback.onProgressAsync(percent,bytesWritten,contentLength,done);
+        }
+
+        @Override
+        public void onProgressMain(int percent, long bytesWritten, long contentLength, boolean done) {
+            ProgressCallback callback = task.getProgressCallback();
+            if(null != callback)
+                callback.onProgressMain(percent,bytesWritten,contentLength,done);
+        }
+
+        @Override
+        public void onResponseSync(String filePath, HttpInfo info) {
+            ProgressCallback callback = task.getProgressCallback();
+            if(null != callback)
+                callback.onResponseSync(filePath,info);
+        }
+
+        @Override
+        public void onResponseMain(String filePath, HttpInfo info) {
+            ProgressCallback callback = task.getProgressCallback();
+            if(null != callback)
+                callback.onResponseMain(filePath,info);
+        }
+    }
+
+}
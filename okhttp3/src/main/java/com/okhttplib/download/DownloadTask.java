@@ -0,0 +1,114 @@
+package com.okhttplib.download;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.annotation.DownloadStatus;
+import com.okhttplib.annotation.Priority;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.callback.ProgressCallback;
+
+/**
+ * 下载任务：下载管理器中的一个下载文件，任务标识为下载地址的MD5（与断点文件名称一致）
+ * @author zhousf
+ */
+public final class DownloadTask implements Comparable<DownloadTask> {
+
+    private final String id;
+    private final DownloadFileInfo fileInfo;
+    private final @Priority int priority;
+    final long seq;
+    private volatile String status = DownloadStatus.WAITING;
+    private volatile ProgressCallback progressCallback;//调用方的进度回调
+    private volatile long completedSize;
+    private volatile long contentLength;
+    private volatile HttpInfo info;//最近一次下载结果
+
+    //**下载管理器控制参数**/
+    volatile boolean pauseRequested;
+    volatile boolean cancelRequested;
+
+    DownloadTask(String id, DownloadFileInfo fileInfo, @Priority int priority, long seq) {
+        this.id = id;
+        this.fileInfo = fileInfo;
+        this.priority = priority;
+        this.seq = seq;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return fileInfo.getUrl();
+    }
+
+    public DownloadFileInfo getFileInfo() {
+        return fileInfo;
+    }
+
+    public @Priority int getPriority() {
+        return priority;
+    }
+
+    /**
+     * 任务状态：WAITING、DOWNLOADING、PAUSE、FAILED、COMPLETED、CANCELED
+     */
+    public @DownloadStatus String getStatus() {
+        return status;
+    }
+
+    void setStatus(@DownloadStatus String status) {
+        this.status = status;
+    }
+
+    public ProgressCallback getProgressCallback() {
+        return progressCallback;
+    }
+
+    /**
+     * 设置进度回调：由下载管理器转发，进程重启恢复的任务通过该方法设置回调
+     */
+    public void setProgressCallback(ProgressCallback progressCallback) {
+        this.progressCallback = progressCallback;
+    }
+
+    /**
+     * 已下载字节数：暂停或进程重启恢复后为最近一次保存的值
+     */
+    public long getCompletedSize() {
+        return completedSize;
+    }
+
+    void setCompletedSize(long completedSize) {
+        this.completedSize = completedSize;
+    }
+
+    /**
+     * 文件总长度：未开始下载时为0
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * 最近一次下载结果：未执行过下载时为null
+     */
+    public HttpInfo getInfo() {
+        return info;
+    }
+
+    void setInfo(HttpInfo info) {
+        this.info = info;
+    }
+
+    @Override
+    public int compareTo(DownloadTask other) {
+        if(priority != other.priority)
+            return priority < other.priority ? -1 : 1;
+        return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.okhttplib.executor;
+
+import com.okhttplib.annotation.RejectPolicy;
+import com.okhttplib.platform.Platform;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界任务执行器：
+ * 固定线程数、有界等待队列、可配置拒绝策略，线程按名称标识
+ * 延迟任务由共享的调度线程计时，到期后再进入等待队列
+ * 统计任务在等待队列中的等待时间
+ * @author zhousf
+ */
+public class BoundedTaskExecutor implements TaskExecutor {
+
+    /**
+     * 延迟任务调度线程：只负责计时，不执行任务
+     */
+    private static ScheduledExecutorService scheduler;
+
+    private final ThreadPoolExecutor executor;
+    private final @RejectPolicy int rejectPolicy;
+
+    //**统计参数定义**/
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    /**
+     * @param name 线程名称
+     * @param threadCount 线程数
+     * @param queueCapacity 等待队列容量
+     * @param rejectPolicy 队列已满时的拒绝策略
+     */
+    public BoundedTaskExecutor(String name, int threadCount, int queueCapacity, @RejectPolicy int rejectPolicy) {
+        if(threadCount < 1)
+            throw new IllegalArgumentException("threadCount must be >= 1");
+        if(queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity must be >= 1");
+        this.rejectPolicy = rejectPolicy;
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new NamedThreadFactory(name),
+                REJECTED_HANDLER);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(final Task task, long delay, TimeUnit unit) {
+        if(delay <= 0){
+            submit(task,false);
+            return ;
+        }
+        try {
+            getScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    submit(task,true);
+                }
+            },delay,unit);
+        } catch (Exception e){
+            rejectedCount.incrementAndGet();
+            task.onRejected();
+        }
+    }
+
+    /**
+     * @param delayed 是否由调度线程提交的延迟任务
+     */
+    private void submit(Task task, boolean delayed){
+        QueuedTask queuedTask = new QueuedTask(task,delayed);
+        if(executor.isShutdown()){
+            reject(queuedTask);
+            return ;
+        }
+        executor.execute(queuedTask);
+    }
+
+    private void reject(QueuedTask task){
+        rejectedCount.incrementAndGet();
+        task.task.onRejected();
+    }
+
+    /**
+     * 拒绝策略处理
+     */
+    private final RejectedExecutionHandler REJECTED_HANDLER = new RejectedExecutionHandler() {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            QueuedTask task = (QueuedTask) r;
+            if(executor.isShutdown()){
+                reject(task);
+                return ;
+            }
+            switch (rejectPolicy){
+                case RejectPolicy.DISCARD_OLDEST:
+                    BlockingQueue<Runnable> queue = executor.getQueue();
+                    Runnable oldest = queue.poll();
+                    if(null != oldest){
+                        reject((QueuedTask) oldest);
+                    }
+                    if(!queue.offer(task)){
+                        reject(task);
+                    }
+                    break;
+                case RejectPolicy.CALLER_RUNS:
+                    //调度线程由所有执行器共享，主线程中执行会阻塞界面：均不执行被拒绝的任务
+                    if(task.delayed || Platform.isMainThread()){
+                        reject(task);
+                    }else{
+                        task.run();
+                    }
+                    break;
+                case RejectPolicy.ABORT:
+                default:
+                    reject(task);
+                    break;
+            }
+        }
+    };
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean isShutdown(){
+        return executor.isShutdown();
+    }
+
+    /**
+     * 等待执行的任务数
+     */
+    public int getQueueSize(){
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getActiveCount(){
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 已开始执行的任务数
+     */
+    public long getExecutedCount(){
+        return executedCount.get();
+    }
+
+    /**
+     * 被拒绝的任务数
+     */
+    public long getRejectedCount(){
+        return rejectedCount.get();
+    }
+
+    /**
+     * 平均队列等待时间（毫秒）
+     */
+    public double getAvgQueueWaitMillis(){
+        long count = executedCount.get();
+        return count == 0 ? 0d : totalQueueWaitNanos.get() / 1e6d / count;
+    }
+
+    /**
+     * 最大队列等待时间（毫秒）
+     */
+    public double getMaxQueueWaitMillis(){
+        return maxQueueWaitNanos.get() / 1e6d;
+    }
+
+    private void recordQueueWait(long waitNanos){
+        executedCount.incrementAndGet();
+        totalQueueWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = maxQueueWaitNanos.get();
+        } while (waitNanos > max && !maxQueueWaitNanos.compareAndSet(max,waitNanos));
+    }
+
+    private static synchronized ScheduledExecutorService getScheduler(){
+        if(null == scheduler){
+            scheduler = new ScheduledThreadPoolExecutor(1,new NamedThreadFactory("OkHttp Scheduler"));
+        }
+        return scheduler;
+    }
+
+    /**
+     * 排队任务：记录进入等待队列的时间
+     */
+    private final class QueuedTask implements Runnable {
+
+        private final Task task;
+        private final boolean delayed;
+        private final long queuedTime = System.nanoTime();
+
+        QueuedTask(Task task, boolean delayed) {
+            this.task = task;
+            this.delayed = delayed;
+        }
+
+        @Override
+        public void run() {
+            recordQueueWait(System.nanoTime() - queuedTime);
+            task.run();
+        }
+    }
+
+    /**
+     * 线程命名工厂
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger index = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + " " + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.okhttplib.executor;
+
+import com.okhttplib.annotation.Priority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 优先级调度队列：
+ * 正在执行的异步请求数未达上限时直接在调用线程中执行，否则按优先级排队，
+ * 请求结束后（finish）取出优先级最高的请求执行
+ * 老化机制：排序键=入队时间+优先级*老化时间，低优先级请求最多等待若干个老化时间后优先于新的高优先级请求，避免饥饿
+ * @author zhousf
+ */
+public class PriorityDispatchQueue {
+
+    private static final int PRIORITY_COUNT = 4;
+
+    private final int maxRunning;
+    private final long agingNanos;
+    private final PriorityQueue<PendingTask> queue = new PriorityQueue<>();
+    private final WaitTimeReservoir[] reservoirs = new WaitTimeReservoir[PRIORITY_COUNT];
+    private int runningCount;
+    private long sequence;
+
+    /**
+     * 当前线程待执行的任务：避免请求同步结束时递归执行
+     */
+    private final ThreadLocal<List<Runnable>> pendingRuns = new ThreadLocal<>();
+
+    /**
+     * @param maxRunning 最大并发执行数
+     * @param agingTime 老化时间
+     * @param unit 时间单位
+     */
+    public PriorityDispatchQueue(int maxRunning, long agingTime, TimeUnit unit) {
+        if(maxRunning < 1)
+            throw new IllegalArgumentException("maxRunning must be >= 1");
+        this.maxRunning = maxRunning;
+        this.agingNanos = unit.toNanos(agingTime);
+        for(int i = 0; i < PRIORITY_COUNT; i++){
+            reservoirs[i] = new WaitTimeReservoir();
+        }
+    }
+
+    /**
+     * 提交任务：任务执行的请求结束后必须调用finish
+     * @param priority 优先级
+     * @param task 任务
+     */
+    public void submit(@Priority int priority, Runnable task){
+        priority = checkPriority(priority);
+        synchronized (this){
+            if(runningCount >= maxRunning){
+                queue.add(new PendingTask(priority,task,sequence++));
+                return ;
+            }
+            runningCount++;
+        }
+        reservoirs[priority-1].record(0L);
+        run(task);
+    }
+
+    /**
+     * 请求结束：释放执行名额并执行下一个优先级最高的任务
+     */
+    public void finish(){
+        PendingTask next;
+        synchronized (this){
+            next = queue.poll();
+            if(null == next){
+                if(runningCount > 0)
+                    runningCount--;
+                return ;
+            }
+        }
+        reservoirs[next.priority-1].record(System.nanoTime() - next.queuedTime);
+        run(next.task);
+    }
+
+    private void run(Runnable task){
+        List<Runnable> pending = pendingRuns.get();
+        if(null != pending){
+            pending.add(task);
+            return ;
+        }
+        pending = new ArrayList<>();
+        pendingRuns.set(pending);
+        RuntimeException error;
+        try {
+            error = runTask(task,null);
+            //任务抛出异常时继续执行其他待执行的任务，避免已占用的执行名额无法释放
+            while (!pending.isEmpty()){
+                error = runTask(pending.remove(0),error);
+            }
+        } finally {
+            pendingRuns.remove();
+        }
+        if(null != error)
+            throw error;
+    }
+
+    /**
+     * 执行任务
+     * @param error 之前任务抛出的异常
+     * @return 首个抛出的异常
+     */
+    private static RuntimeException runTask(Runnable task, RuntimeException error){
+        try {
+            task.run();
+        } catch (RuntimeException e){
+            if(null == error)
+                return e;
+        }
+        return error;
+    }
+
+    private int checkPriority(int priority){
+        if(priority < Priority.CRITICAL || priority > Priority.PREFETCH)
+            return Priority.NORMAL;
+        return priority;
+    }
+
+    /**
+     * 等待执行的任务数
+     */
+    public synchronized int getQueuedCount(){
+        return queue.size();
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public synchronized int getRunningCount(){
+        return runningCount;
+    }
+
+    /**
+     * 获取指定优先级的排队等待时间百分位（最近1024个请求）
+     * @param priority 优先级
+     * @param percentile 百分位：0~100，如50、90、99
+     * @return 等待时间（毫秒）
+     */
+    public double getWaitTimeMillis(@Priority int priority, double percentile){
+        return reservoirs[checkPriority(priority)-1].percentile(percentile) / 1e6d;
+    }
+
+    /**
+     * 排队任务
+     */
+    private final class PendingTask implements Comparable<PendingTask> {
+
+        private final int priority;
+        private final Runnable task;
+        private final long seq;
+        private final long queuedTime = System.nanoTime();
+        private final long sortKey;
+
+        PendingTask(int priority, Runnable task, long seq) {
+            this.priority = priority;
+            this.task = task;
+            this.seq = seq;
+            this.sortKey = queuedTime + (priority - Priority.CRITICAL) * agingNanos;
+        }
+
+        @Override
+        public int compareTo(PendingTask other) {
+            if(sortKey != other.sortKey)
+                return sortKey < other.sortKey ? -1 : 1;
+            return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+        }
+    }
+
+    /**
+     * 等待时间采样：保留最近的采样值
+     */
+    private static final class WaitTimeReservoir {
+
+        private final long[] samples = new long[1024];
+        private int count;
+        private int index;
+
+        synchronized void record(long waitNanos){
+            samples[index] = waitNanos;
+            index = (index + 1) % samples.length;
+            if(count < samples.length)
+                count++;
+        }
+
+        double percentile(double percentile){
+            long[] copy;
+            synchronized (this){
+                if(count == 0)
+                    return 0d;
+                copy = Arrays.copyOf(samples,count);
+            }
+            Arrays.sort(copy);
+            int position = (int) Math.ceil(percentile / 100d * copy.length) - 1;
+            position = Math.max(0,Math.min(copy.length-1,position));
+            return copy[position];
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.okhttplib.executor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务执行器接口：负责执行延迟请求、文件上传/下载等异步任务
+ * @author zhousf
+ */
+public interface TaskExecutor {
+
+    /**
+     * 提交任务
+     * @param task 任务
+     * @param delay 延迟执行时间
+     * @param unit 时间单位
+     */
+    void execute(Task task, long delay, TimeUnit unit);
+
+    /**
+     * 关闭执行器：不再接收新任务
+     */
+    void shutdown();
+
+    /**
+     * 异步任务
+     */
+    interface Task extends Runnable {
+
+        /**
+         * 任务被拒绝执行（队列已满、被丢弃或执行器已关闭）
+         */
+        void onRejected();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.okhttplib.future;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.callback.DirectCallback;
+
+import okhttp3.Call;
+
+/**
+ * 异步请求结果回调：在请求线程中直接完成HttpFuture
+ * @author zhousf
+ */
+public final class FutureCallback implements DirectCallback {
+
+    private final HttpFuture<HttpInfo> future;
+
+    public FutureCallback(HttpFuture<HttpInfo> future) {
+        this.future = future;
+    }
+
+    /**
+     * 绑定网络请求：HttpFuture取消时取消该请求，已取消时立即取消
+     */
+    public void bindCall(final Call call){
+        future.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                call.cancel();
+            }
+        });
+    }
+
+    /**
+     * 结果是否已取消：已取消时无需发起网络请求
+     */
+    public boolean isCancelled(){
+        return future.isCancelled();
+    }
+
+    @Override
+    public void onResponse(HttpInfo info) {
+        future.complete(info);
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.okhttplib.future;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步请求结果：由请求线程直接完成，支持组合与取消
+ * 取消时同时取消对应的网络请求（Call），组合后的结果取消时向上传递
+ * 回调方法在完成该结果的线程中执行（通常是OkHttp请求线程），不能更新UI
+ * @author zhousf
+ */
+public class HttpFuture<T> implements Future<T> {
+
+    private static final int PENDING = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+    private static final int CANCELLED = 3;
+
+    private int state = PENDING;
+    private T value;
+    private Throwable error;
+    private List<Listener<? super T>> listeners = new ArrayList<>(2);
+    private List<Runnable> cancelHooks;
+
+    /**
+     * 结果转换
+     */
+    public interface Function<T,R> {
+        R apply(T t) throws Exception;
+    }
+
+    /**
+     * 结果监听：成功时error为null，取消时error为CancellationException
+     */
+    public interface Listener<T> {
+        void onComplete(T value, Throwable error);
+    }
+
+    public HttpFuture() {
+    }
+
+    /**
+     * 已完成的结果
+     */
+    public static <T> HttpFuture<T> completed(T value){
+        HttpFuture<T> future = new HttpFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * 所有结果都完成后完成：任一结果失败或取消时立即失败，取消时取消所有结果
+     */
+    public static HttpFuture<Void> allOf(final HttpFuture<?>... futures){
+        final HttpFuture<Void> all = new HttpFuture<>();
+        if(futures.length == 0){
+            all.complete(null);
+            return all;
+        }
+        final AtomicInteger remaining = new AtomicInteger(futures.length);
+        for(HttpFuture<?> future : futures){
+            future.whenComplete(new Listener<Object>() {
+                @Override
+                public void onComplete(Object value, Throwable error) {
+                    if(null != error){
+                        all.completeExceptionally(error);
+                    }else if(remaining.decrementAndGet() == 0){
+                        all.complete(null);
+                    }
+                }
+            });
+        }
+        all.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                for(HttpFuture<?> future : futures){
+                    future.cancel(true);
+                }
+            }
+        });
+        return all;
+    }
+
+    /**
+     * 完成
+     * @return 是否由本次调用完成
+     */
+    public boolean complete(T value){
+        return finish(SUCCESS,value,null);
+    }
+
+    /**
+     * 异常完成
+     * @return 是否由本次调用完成
+     */
+    public boolean completeExceptionally(Throwable error){
+        if(null == error)
+            throw new NullPointerException("error == null");
+        return finish(FAILURE,null,error);
+    }
+
+    /**
+     * 取消：同时取消对应的网络请求
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return finish(CANCELLED,null,new CancellationException());
+    }
+
+    private boolean finish(int newState, T newValue, Throwable newError){
+        List<Listener<? super T>> toNotify;
+        List<Runnable> hooks;
+        synchronized (this){
+            if(state != PENDING)
+                return false;
+            state = newState;
+            value = newValue;
+            error = newError;
+            toNotify = listeners;
+            listeners = null;
+            hooks = newState == CANCELLED ? cancelHooks : null;
+            cancelHooks = null;
+            notifyAll();
+        }
+        if(null != hooks){
+            for(Runnable hook : hooks){
+                hook.run();
+            }
+        }
+        for(Listener<? super T> listener : toNotify){
+            notifyListener(listener);
+        }
+        return true;
+    }
+
+    private void notifyListener(Listener<? super T> listener){
+        try {
+            listener.onComplete(value,error);
+        } catch (RuntimeException e){
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 取消时执行：已取消时立即执行
+     */
+    void onCancel(Runnable hook){
+        synchronized (this){
+            if(state == PENDING){
+                if(null == cancelHooks)
+                    cancelHooks = new ArrayList<>(2);
+                cancelHooks.add(hook);
+                return ;
+            }
+            if(state != CANCELLED)
+                return ;
+        }
+        hook.run();
+    }
+
+    /**
+     * 添加结果监听：已完成时立即回调
+     */
+    public HttpFuture<T> whenComplete(Listener<? super T> listener){
+        synchronized (this){
+            if(state == PENDING){
+                listeners.add(listener);
+                return this;
+            }
+        }
+        notifyListener(listener);
+        return this;
+    }
+
+    /**
+     * 结果转换
+     */
+    public <R> HttpFuture<R> thenApply(final Function<? super T,? extends R> function){
+        final HttpFuture<R> next = new HttpFuture<>();
+        next.onCancel(cancelTask(this));
+        whenComplete(new Listener<T>() {
+            @Override
+            public void onComplete(T value, Throwable error) {
+                if(null != error){
+                    next.completeExceptionally(error);
+                    return ;
+                }
+                try {
+                    next.complete(function.apply(value));
+                } catch (Exception e){
+                    next.completeExceptionally(e);
+                }
+            }
+        });
+        return next;
+    }
+
+    /**
+     * 结果组合：当前结果完成后发起下一个异步请求，取消时取消当前正在进行的请求
+     */
+    public <R> HttpFuture<R> thenCompose(final Function<? super T,? extends HttpFuture<R>> function){
+        final HttpFuture<R> next = new HttpFuture<>();
+        next.onCancel(cancelTask(this));
+        whenComplete(new Listener<T>() {
+            @Override
+            public void onComplete(T value, Throwable error) {
+                if(null != error){
+                    next.completeExceptionally(error);
+                    return ;
+                }
+                HttpFuture<R> stage;
+                try {
+                    stage = function.apply(value);
+                } catch (Exception e){
+                    next.completeExceptionally(e);
+                    return ;
+                }
+                if(null == stage){
+                    next.completeExceptionally(new NullPointerException("thenCompose function returned null"));
+                    return ;
+                }
+                next.onCancel(cancelTask(stage));
+                stage.whenComplete(new Listener<R>() {
+                    @Override
+                    public void onComplete(R value, Throwable error) {
+                        if(null != error){
+                            next.completeExceptionally(error);
+                        }else{
+                            next.complete(value);
+                        }
+                    }
+                });
+            }
+        });
+        return next;
+    }
+
+    private static Runnable cancelTask(final HttpFuture<?> future){
+        return new Runnable() {
+            @Override
+            public void run() {
+                future.cancel(true);
+            }
+        };
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (state == PENDING){
+            wait();
+        }
+        return report();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+        while (state == PENDING){
+            if(remaining <= 0)
+                throw new TimeoutException();
+            TimeUnit.NANOSECONDS.timedWait(this,remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        return report();
+    }
+
+    private T report() throws ExecutionException {
+        if(state == SUCCESS)
+            return value;
+        if(state == CANCELLED)
+            throw (CancellationException) error;
+        throw new ExecutionException(error);
+    }
+
+}
@@ -1,26 +1,26 @@
 package com.okhttplib.handler;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.os.Message;
-
 import com.okhttplib.HttpInfo;
+import com.okhttplib.bean.BatchMessage;
 import com.okhttplib.bean.CallbackMessage;
 import com.okhttplib.bean.DownloadMessage;
+import com.okhttplib.bean.OkMessage;
 import com.okhttplib.bean.ProgressMessage;
 import com.okhttplib.bean.UploadMessage;
-import com.okhttplib.callback.BaseActivityLifecycleCallbacks;
 import com.okhttplib.callback.BaseCallback;
+import com.okhttplib.callback.CallRegistry;
 import com.okhttplib.callback.CallbackOk;
+import com.okhttplib.callback.DirectCallback;
+import com.okhttplib.platform.Platform;
 
 import okhttp3.Call;
 import okhttp3.Response;
 
 /**
- * 主线程Handler
+ * 回调分发：通过Platform的回调执行器分发请求结果与进度，Android中切换到主线程，JVM中在请求线程中回调
  * @author zhousf
  */
-public class OkMainHandler extends Handler {
+public class OkMainHandler {
 
     private static OkMainHandler singleton;
 
@@ -35,7 +35,6 @@ public class OkMainHandler extends Handler {
     }
 
     private OkMainHandler() {
-        super(Looper.getMainLooper());
     }
 
     /**
@@ -58,19 +57,55 @@ public class OkMainHandler extends Handler {
      */
     public static final int RESPONSE_DOWNLOAD_CALLBACK = 0x04;
 
+    /**
+     * 批量请求结果回调标识
+     */
+    public static final int RESPONSE_BATCH_CALLBACK = 0x05;
+
+    /**
+     * 发送请求结果：DirectCallback直接在当前线程回调，其他回调切换到主线程
+     */
+    public void sendCallback(CallbackMessage callMsg){
+        if(callMsg.callback instanceof DirectCallback){
+            try {
+                ((DirectCallback)callMsg.callback).onResponse(callMsg.info);
+            } finally {
+                if(null != callMsg.call){
+                    CallRegistry.cancel(callMsg.requestTag,callMsg.call);
+                }
+            }
+            return ;
+        }
+        sendMessage(callMsg);
+    }
 
-    @Override
-    public void handleMessage(Message msg) {
-        final int what = msg.what;
+    /**
+     * 发送回调信息：由回调执行器执行，已保留的请求标识在回调结束后释放
+     */
+    public void sendMessage(final OkMessage msg){
+        Platform.getCallbackExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handleMessage(msg.what,msg);
+                } finally {
+                    if(msg.heldTag)
+                        CallRegistry.release(msg.requestTag);
+                }
+            }
+        });
+    }
+
+    private void handleMessage(int what, Object obj) {
         String requestTag = "";
         try {
             switch (what){
                 case RESPONSE_CALLBACK://网络请求
-                    CallbackMessage callMsg = (CallbackMessage) msg.obj;
+                    CallbackMessage callMsg = (CallbackMessage) obj;
                     if(null != callMsg.callback){
                         //开始回调
                         requestTag = callMsg.requestTag;
-                        if(!BaseActivityLifecycleCallbacks.isActivityDestroyed(callMsg.requestTag)){
+                        if(!CallRegistry.isDestroyed(callMsg.requestTag)){
                             BaseCallback callback = callMsg.callback;
                             if(callback instanceof CallbackOk){
                                 ((CallbackOk)callback).onResponse(callMsg.info);
@@ -96,44 +131,52 @@ public class OkMainHandler extends Handler {
                         if(!call.isCanceled()){
                             call.cancel();
                         }
-                        BaseActivityLifecycleCallbacks.cancel(requestTag,call);
+                        CallRegistry.cancel(requestTag,call);
                     }
                     break;
                 case PROGRESS_CALLBACK://进度回调
-                    ProgressMessage proMsg = (ProgressMessage) msg.obj;
+                    ProgressMessage proMsg = (ProgressMessage) obj;
                     if(null != proMsg.progressCallback){
                         requestTag = proMsg.requestTag;
-                        if(!BaseActivityLifecycleCallbacks.isActivityDestroyed(proMsg.requestTag)){
+                        if(!CallRegistry.isDestroyed(proMsg.requestTag)){
                             proMsg.progressCallback.onProgressMain(proMsg.percent,proMsg.bytesWritten,proMsg.contentLength,proMsg.done);
                         }
                     }
                     break;
                 case RESPONSE_UPLOAD_CALLBACK://上传结果回调
-                    UploadMessage uploadMsg = (UploadMessage) msg.obj;
+                    UploadMessage uploadMsg = (UploadMessage) obj;
                     if(null != uploadMsg.progressCallback){
                         requestTag = uploadMsg.requestTag;
-                        if(!BaseActivityLifecycleCallbacks.isActivityDestroyed(requestTag)){
+                        if(!CallRegistry.isDestroyed(requestTag)){
                             uploadMsg.progressCallback.onResponseMain(uploadMsg.filePath,uploadMsg.info);
-                            BaseActivityLifecycleCallbacks.cancel(requestTag);
+                            CallRegistry.cancel(requestTag);
                         }
                     }
                     break;
                 case RESPONSE_DOWNLOAD_CALLBACK://下载结果回调
-                    DownloadMessage downloadMsg = (DownloadMessage) msg.obj;
+                    DownloadMessage downloadMsg = (DownloadMessage) obj;
                     if(null != downloadMsg){
                         requestTag = downloadMsg.requestTag;
-                        if(!BaseActivityLifecycleCallbacks.isActivityDestroyed(requestTag)){
+                        if(!CallRegistry.isDestroyed(requestTag)){
                             downloadMsg.progressCallback.onResponseMain(downloadMsg.filePath,downloadMsg.info);
-                            BaseActivityLifecycleCallbacks.cancel(requestTag);
+                            CallRegistry.cancel(requestTag);
+                        }
+                    }
+                    break;
+                case RESPONSE_BATCH_CALLBACK://批量请求结果回调
+                    BatchMessage batchMsg = (BatchMessage) obj;
+                    if(null != batchMsg.callback){
+                        requestTag = batchMsg.requestTag;
+                        if(!CallRegistry.isDestroyed(requestTag)){
+                            batchMsg.callback.onResponse(batchMsg.result);
                         }
                     }
                     break;
                 default:
-                    super.handleMessage(msg);
                     break;
             }
         }catch (Exception e){
-            BaseActivityLifecycleCallbacks.cancel(requestTag);
+            CallRegistry.cancel(requestTag);
         }
     }
 
@@ -1,22 +1,25 @@
 package com.okhttplib.helper;
 
 import android.annotation.SuppressLint;
-import android.os.Message;
-import android.text.TextUtils;
-import android.util.Log;
 
 import com.okhttplib.HttpInfo;
 import com.okhttplib.annotation.CacheType;
 import com.okhttplib.annotation.ContentType;
+import com.okhttplib.annotation.LogLevel;
 import com.okhttplib.bean.DownloadMessage;
 import com.okhttplib.bean.UploadFileInfo;
 import com.okhttplib.bean.UploadMessage;
-import com.okhttplib.callback.BaseActivityLifecycleCallbacks;
+import com.okhttplib.callback.CallRegistry;
 import com.okhttplib.callback.ProgressCallback;
 import com.okhttplib.handler.OkMainHandler;
 import com.okhttplib.interceptor.ExceptionInterceptor;
 import com.okhttplib.interceptor.ResultInterceptor;
+import com.okhttplib.log.LogEvent;
+import com.okhttplib.log.OkLog;
+import com.okhttplib.stat.CallTiming;
 import com.okhttplib.util.MediaTypeUtil;
+import com.okhttplib.util.StringUtil;
+import com.okhttplib.util.UnicodeUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,16 +33,16 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
@@ -48,7 +51,6 @@ import okhttp3.CacheControl;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -74,6 +76,14 @@ abstract class BaseHelper {
     HttpInfo httpInfo;
     private List<ResultInterceptor> resultInterceptors;//请求结果拦截器
     private List<ExceptionInterceptor> exceptionInterceptors;//请求链路异常拦截器
+    private static SSLSocketFactory defaultSslSocketFactory;//默认SSLSocketFactory
+    static final int MAX_SSL_SOCKET_FACTORY_COUNT = 16;//自定义证书SSLSocketFactory最大数量：超出时移除最久未使用的证书
+    private static final Map<Certificate,SSLSocketFactory> sslSocketFactoryMap = new LinkedHashMap<Certificate,SSLSocketFactory>(16,0.75f,true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Certificate,SSLSocketFactory> eldest) {
+            return size() > MAX_SSL_SOCKET_FACTORY_COUNT;
+        }
+    };//自定义证书SSLSocketFactory
 
     BaseHelper(HelperInfo helperInfo) {
         this.helperInfo = helperInfo;
@@ -105,7 +115,6 @@ abstract class BaseHelper {
 
     private OkHttpClient initHttpClient(HelperInfo helperInfo){
         OkHttpClient.Builder clientBuilder = helperInfo.getClientBuilder();
-        clientBuilder.protocols(Arrays.asList(Protocol.SPDY_3, Protocol.HTTP_1_1));
         clientBuilder.addInterceptor(NO_NETWORK_INTERCEPTOR);
         clientBuilder.addNetworkInterceptor(NETWORK_INTERCEPTOR);
         if(helperInfo.isGzip()){
@@ -270,32 +279,64 @@ abstract class BaseHelper {
     private void setDefaultSslSocketFactory(OkHttpClient.Builder clientBuilder){
         clientBuilder.hostnameVerifier(DO_NOT_VERIFY);
         try {
-            SSLContext sc = SSLContext.getInstance("TLS");
-            sc.init(null,new TrustManager[]{TRUST_MANAGER}, new SecureRandom());
-            clientBuilder.sslSocketFactory(sc.getSocketFactory(),TRUST_MANAGER);
+            clientBuilder.sslSocketFactory(getDefaultSslSocketFactory(),TRUST_MANAGER);
         } catch (Exception e) {
             showLog("Https认证异常: "+e.getMessage());
         }
     }
 
+    /**
+     * 默认SSLSocketFactory：全局共享，保证共享连接池中的Https连接可以被复用
+     */
+    private static synchronized SSLSocketFactory getDefaultSslSocketFactory() throws Exception{
+        if(null == defaultSslSocketFactory){
+            SSLContext sc = SSLContext.getInstance("TLS");
+            sc.init(null,new TrustManager[]{TRUST_MANAGER}, new SecureRandom());
+            defaultSslSocketFactory = sc.getSocketFactory();
+        }
+        return defaultSslSocketFactory;
+    }
+
     /**
      * 设置HTTPS认证
      */
     private void setSslSocketFactory(OkHttpClient.Builder clientBuilder){
-        SSLContext sslContext = getSSLContext();
-        if(sslContext != null){
-            clientBuilder.sslSocketFactory(sslContext.getSocketFactory(),TRUST_MANAGER);
+        SSLSocketFactory sslSocketFactory = getSslSocketFactory();
+        if(sslSocketFactory != null){
+            clientBuilder.sslSocketFactory(sslSocketFactory,TRUST_MANAGER);
         }
     }
 
-    @SuppressLint("TrulyRandom")
-    private SSLContext getSSLContext() {
-        SSLContext sslContext = null;
+    /**
+     * 自定义证书的SSLSocketFactory：相同证书共享，保证共享连接池中的Https连接可以被复用
+     */
+    private SSLSocketFactory getSslSocketFactory(){
         try {
-            sslContext = SSLContext.getInstance("TLS");
             InputStream inputStream = helperInfo.getHttpsCertificateStream();
             CertificateFactory cerFactory = CertificateFactory.getInstance("X.509");
             Certificate cer = cerFactory.generateCertificate(inputStream);
+            synchronized (sslSocketFactoryMap){
+                SSLSocketFactory sslSocketFactory = sslSocketFactoryMap.get(cer);
+                if(null == sslSocketFactory){
+                    SSLContext sslContext = getSSLContext(cer);
+                    if(null == sslContext)
+                        return null;
+                    sslSocketFactory = sslContext.getSocketFactory();
+                    sslSocketFactoryMap.put(cer,sslSocketFactory);
+                }
+                return sslSocketFactory;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @SuppressLint("TrulyRandom")
+    private SSLContext getSSLContext(Certificate cer) {
+        SSLContext sslContext = null;
+        try {
+            sslContext = SSLContext.getInstance("TLS");
             KeyStore keyStore = KeyStore.getInstance("PKCS12");
             keyStore.load(null, null);
             keyStore.setCertificateEntry("trust", cer);
@@ -332,21 +373,34 @@ abstract class BaseHelper {
         }
     };
 
+    /**
+     * 绑定请求耗时：CallEventListener通过请求的tag记录各阶段耗时
+     */
+    void bindTiming(HttpInfo info, Request.Builder requestBuilder){
+        CallTiming timing = new CallTiming();
+        requestBuilder.tag(CallTiming.class,timing);
+        info.setTiming(timing);
+    }
+
     /**
      * 添加请求头参数
      */
     void addHeadsToRequest(HttpInfo info, Request.Builder requestBuilder){
         if(null != info.getHeads() && !info.getHeads().isEmpty()){
-            StringBuilder log = new StringBuilder("Heads: ");
-            for (String key : info.getHeads().keySet()) {
-                requestBuilder.addHeader(key,info.getHeads().get(key));
-                log.append(key).append("=").append(info.getHeads().get(key)).append(" | ");
+            for (Map.Entry<String,String> entry : info.getHeads().entrySet()) {
+                requestBuilder.addHeader(entry.getKey(),entry.getValue());
             }
-            int point = log.lastIndexOf("|");
-            if(point != -1){
-                log.deleteCharAt(point);
+            if(isLoggable()){
+                StringBuilder log = new StringBuilder("Heads: ");
+                for (Map.Entry<String,String> entry : info.getHeads().entrySet()) {
+                    log.append(entry.getKey()).append("=").append(entry.getValue()).append(" | ");
+                }
+                int point = log.lastIndexOf("|");
+                if(point != -1){
+                    log.deleteCharAt(point);
+                }
+                showLog(log.toString());
             }
-            showLog(log.toString());
         }
     }
 
@@ -366,10 +420,11 @@ abstract class BaseHelper {
      * 封装请求结果
      */
     HttpInfo retInfo(HttpInfo info, int netCode, int code, String resDetail){
-        info.packInfo(netCode,code,unicodeToString(resDetail));
+        info.packInfo(netCode,code,unicodeToString(info,resDetail));
         //拦截请求结果
         dealInterceptor(info);
-        showLog("Response: "+info.getRetDetail());
+        if(isLoggable())
+            showLog("Response: "+info.getRetDetail());
         return info;
     }
 
@@ -377,17 +432,12 @@ abstract class BaseHelper {
     /**
      * unicode中文转码
      */
-    private String unicodeToString(String str) {
-        if(TextUtils.isEmpty(str))
+    private String unicodeToString(HttpInfo info, String str) {
+        if(StringUtil.isEmpty(str))
             return "";
-        Pattern pattern = Pattern.compile("(\\\\u(\\p{XDigit}{4}))");
-        Matcher matcher = pattern.matcher(str);
-        char ch;
-        while (matcher.find()) {
-            ch = (char) Integer.parseInt(matcher.group(2), 16);
-            str = str.replace(matcher.group(1), ch + "");
-        }
-        return str;
+        if(!info.isUnescapeUnicode())
+            return str;
+        return UnicodeUtil.unescape(str);
     }
 
     /**
@@ -395,7 +445,7 @@ abstract class BaseHelper {
      */
     private void dealInterceptor(HttpInfo info){
         try {
-            if(BaseActivityLifecycleCallbacks.isActivityDestroyed(requestTag))
+            if(CallRegistry.isDestroyed(requestTag))
                 return ;
             if(info.isSuccessful() && null != resultInterceptors){ //请求结果拦截器
                 for(ResultInterceptor interceptor : resultInterceptors){
@@ -417,36 +467,82 @@ abstract class BaseHelper {
      * 请求结果回调
      */
     void responseCallback(HttpInfo info, ProgressCallback progressCallback, int code, String requestTag){
+        responseCallback(info,progressCallback,code,requestTag,false);
+    }
+
+    /**
+     * 请求结果回调
+     * @param heldTag 请求标识已保留：回调结束后释放
+     */
+    void responseCallback(HttpInfo info, ProgressCallback progressCallback, int code, String requestTag, boolean heldTag){
         //同步回调
         if(null != progressCallback)
             progressCallback.onResponseSync(info.getUrl(),info);
-        //异步主线程回调
+        //异步回调（Android中为主线程）
         if(OkMainHandler.RESPONSE_DOWNLOAD_CALLBACK == code){
-            Message msg = new DownloadMessage(
+            DownloadMessage msg = new DownloadMessage(
                     code,
                     info.getUrl(),
                     info,
-                    progressCallback,requestTag)
-                    .build();
+                    progressCallback,requestTag);
+            msg.heldTag = heldTag;
             OkMainHandler.getInstance().sendMessage(msg);
         } else if(OkMainHandler.RESPONSE_UPLOAD_CALLBACK == code){
-            Message msg = new UploadMessage(
+            UploadMessage msg = new UploadMessage(
                     code,
                     info.getUrl(),
                     info,
-                    progressCallback,requestTag)
-                    .build();
+                    progressCallback,requestTag);
+            msg.heldTag = heldTag;
             OkMainHandler.getInstance().sendMessage(msg);
         }
     }
 
+    /**
+     * 是否打印日志：拼接日志信息前先检查，日志关闭时不产生任何开销
+     */
+    boolean isLoggable(){
+        return showHttpLog && OkLog.isLoggable(LogLevel.DEBUG);
+    }
+
     /**
      * 打印日志
      * @param msg 日志信息
      */
     void showLog(String msg){
-        if(showHttpLog)
-            Log.d(TAG+"["+timeStamp+"]", msg);
+        if(isLoggable())
+            OkLog.d(TAG+"["+timeStamp+"]", msg);
+    }
+
+    /**
+     * 输出请求日志事件：请求标识、请求方式、地址、状态码、耗时、请求及响应大小
+     * @param status 响应状态码，请求失败为0
+     * @param costTime 耗时（毫秒）
+     * @param responseBytes 响应大小，未知为-1
+     * @param message 附加信息
+     */
+    void showRequestLog(Request request, int status, long costTime, long responseBytes, String message){
+        if(!isLoggable() || null == request)
+            return ;
+        long requestBytes = -1;
+        if(null != request.body()){
+            try {
+                requestBytes = request.body().contentLength();
+            } catch (IOException e){
+                requestBytes = -1;
+            }
+        }
+        OkLog.event(LogEvent.Builder()
+                .setTag(TAG)
+                .setRequestId(timeStamp)
+                .setMethod(request.method())
+                .setUrl(request.url().toString())
+                .setStatus(status)
+                .setCostTime(costTime)
+                .setRequestBytes(requestBytes)
+                .setResponseBytes(responseBytes)
+                .setMessage(message)
+                .build());
     }
 
 
@@ -455,7 +551,7 @@ abstract class BaseHelper {
         MediaType mediaType;
         //设置请求参数编码格式
         String requestEncoding = info.getRequestEncoding();
-        if(TextUtils.isEmpty(requestEncoding)){
+        if(StringUtil.isEmpty(requestEncoding)){
             requestEncoding = ";charset=" + helperInfo.getRequestEncoding().toLowerCase();
         }else{
             requestEncoding = ";charset=" + requestEncoding.toLowerCase();
@@ -463,11 +559,11 @@ abstract class BaseHelper {
         //上传文件
         if(fileInfo != null){
             String contentType = fileInfo.getContentType();
-            contentType = TextUtils.isEmpty(contentType)?info.getContentType():contentType;
+            contentType = StringUtil.isEmpty(contentType)?info.getContentType():contentType;
             mediaType = MediaType.parse(contentType+requestEncoding);
             String filePath = fileInfo.getFilePathWithName();
             if(fileInfo.getFile() != null){
-                if(TextUtils.isEmpty(filePath)){
+                if(StringUtil.isEmpty(filePath)){
                     requestBody = RequestBody.create(mediaType,fileInfo.getFile());
                 }else{
                     requestBody = RequestBody.create(
@@ -482,17 +578,19 @@ abstract class BaseHelper {
             return requestBody;
         }
         //兼容以前版本(新版本扩展了ContentType)
-        if(!TextUtils.isEmpty(info.getContentType())){
+        if(!StringUtil.isEmpty(info.getContentType())){
             mediaType = MediaType.parse(info.getContentType()+requestEncoding);
             if(info.getParamBytes() != null){
                 requestBody = RequestBody.create(mediaType,info.getParamBytes());
             } else if(info.getParamFile() != null){
                 requestBody = RequestBody.create(mediaType,info.getParamFile());
             } else if(info.getParamJson() != null){
-                showLog("Params: "+info.getParamJson());
+                if(isLoggable())
+                    showLog("Params: "+info.getParamJson());
                 requestBody = RequestBody.create(mediaType,info.getParamJson());
             } else if(info.getParamForm() != null){
-                showLog("Params: "+info.getParamForm());
+                if(isLoggable())
+                    showLog("Params: "+info.getParamForm());
                 requestBody = RequestBody.create(mediaType,info.getParamForm());
             } else {
                 requestBody = packageRequestBody(info,mediaType);
@@ -503,10 +601,12 @@ abstract class BaseHelper {
             } else if(info.getParamFile() != null){
                 requestBody = RequestBody.create(MediaType.parse(ContentType.MARKDOWN+requestEncoding),info.getParamFile());
             } else if(info.getParamJson() != null){
-                showLog("Params: "+info.getParamJson());
+                if(isLoggable())
+                    showLog("Params: "+info.getParamJson());
                 requestBody = RequestBody.create(MediaType.parse(ContentType.JSON+requestEncoding),info.getParamJson());
             } else if(info.getParamForm() != null){
-                showLog("Params: "+info.getParamForm());
+                if(isLoggable())
+                    showLog("Params: "+info.getParamForm());
                 requestBody = RequestBody.create(MediaType.parse(ContentType.FORM+requestEncoding),info.getParamForm());
             } else{
                 requestBody = packageRequestBody(info,MediaType.parse(ContentType.FORM+requestEncoding));
@@ -518,23 +618,21 @@ abstract class BaseHelper {
     private RequestBody packageRequestBody(HttpInfo info, MediaType contentType){
         String value;
         StringBuilder param = new StringBuilder();
-        StringBuilder log = new StringBuilder();
         boolean isFirst = true;
         if(info.getParams() != null){
-            for (String key : info.getParams().keySet()) {
-                value = info.getParams().get(key);
+            for (Map.Entry<String,String> entry : info.getParams().entrySet()) {
+                value = entry.getValue();
                 value = value == null ? "" : value;
                 if(isFirst){
                     isFirst = false;
-                    param.append(key).append("=").append(value);
-                    log.append(key).append("=").append(value);
                 }else{
-                    param.append("&").append(key).append("=").append(value);
-                    log.append(" | ").append(key).append("=").append(value);
+                    param.append("&");
                 }
+                param.append(entry.getKey()).append("=").append(value);
             }
         }
-        showLog("Params: "+log.toString());
+        if(isLoggable())
+            showLog("Params: "+param.toString().replace("&"," | "));
         return RequestBody.create(contentType,param.toString());
     }
 
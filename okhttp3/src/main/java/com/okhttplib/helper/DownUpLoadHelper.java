@@ -1,22 +1,25 @@
 package com.okhttplib.helper;
 
-import android.text.TextUtils;
 
 import com.okhttplib.HttpInfo;
 import com.okhttplib.annotation.DownloadStatus;
 import com.okhttplib.bean.DownloadFileInfo;
 import com.okhttplib.bean.UploadFileInfo;
+import com.okhttplib.callback.CallRegistry;
 import com.okhttplib.callback.ProgressCallback;
 import com.okhttplib.handler.OkMainHandler;
 import com.okhttplib.progress.ProgressRequestBody;
 import com.okhttplib.progress.ProgressResponseBody;
+import com.okhttplib.util.DownloadFileWriter;
 import com.okhttplib.util.EncryptUtil;
+import com.okhttplib.util.StringUtil;
 
-import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.List;
@@ -30,6 +33,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 
 /**
  * 上传/下载业务类
@@ -38,12 +42,20 @@ import okhttp3.ResponseBody;
 class DownUpLoadHelper extends BaseHelper{
 
     private String downloadFileDir;//下载文件保存目录
+    private int downloadSegmentCount;//下载分段数
+    int downloadBufferSize;//下载写入缓冲区大小
+    long downloadCheckpointSize;//下载检查点间隔
+
+    private static final String CHECKPOINT_SUFFIX = ".ckp";
 
     private static Map<String,String> downloadTaskMap;
 
     DownUpLoadHelper(HelperInfo helperInfo) {
         super(helperInfo);
         downloadFileDir = helperInfo.getDownloadFileDir();
+        downloadSegmentCount = helperInfo.getDownloadSegmentCount();
+        downloadBufferSize = helperInfo.getDownloadBufferSize();
+        downloadCheckpointSize = helperInfo.getDownloadCheckpointSize();
     }
 
     /**
@@ -54,19 +66,19 @@ class DownUpLoadHelper extends BaseHelper{
             final HttpInfo info = httpInfo;
             List<UploadFileInfo> uploadFileList = helper.getUploadFileInfoList();
             String url = info.getUrl();
-            if(TextUtils.isEmpty(url)){
+            if(StringUtil.isEmpty(url)){
                 showLog("文件上传接口地址不能为空");
                 return ;
             }
-            StringBuilder log = new StringBuilder("PostParams: ");
+            final boolean loggable = isLoggable();
+            StringBuilder log = loggable ? new StringBuilder("PostParams: ") : null;
             MultipartBody.Builder mBuilder = new MultipartBody.Builder().setType(MultipartBody.FORM);
             ProgressCallback progressCallback = helper.getProgressCallback();
-            String logInfo;
             if(null != info.getParams() && !info.getParams().isEmpty()){
-                for (String key : info.getParams().keySet()) {
-                    mBuilder.addFormDataPart(key, info.getParams().get(key));
-                    logInfo = key+" ="+info.getParams().get(key)+", ";
-                    log.append(logInfo);
+                for (Map.Entry<String,String> entry : info.getParams().entrySet()) {
+                    mBuilder.addFormDataPart(entry.getKey(), entry.getValue());
+                    if(loggable)
+                        log.append(entry.getKey()).append(" =").append(entry.getValue()).append(", ");
                 }
             }
             for (UploadFileInfo fileInfo : uploadFileList){
@@ -76,18 +88,20 @@ class DownUpLoadHelper extends BaseHelper{
                 String interfaceParamName = fileInfo.getInterfaceParamName();
                 String filePath = fileInfo.getFilePathWithName();
                 String fileName = interfaceParamName;
-                if(!TextUtils.isEmpty(filePath)){
+                if(!StringUtil.isEmpty(filePath)){
                     File file = new File(filePath);
                     fileName = file.getName();
                     fileInfo.setFile(file);
                 }
                 mBuilder.addFormDataPart(interfaceParamName,fileName,matchContentType(info,fileInfo));
             }
-            showLog(log.toString());
+            if(loggable)
+                showLog(log.toString());
             RequestBody requestBody = mBuilder.build();
             Request.Builder requestBuilder = new Request.Builder();
             requestBuilder.url(url).post(new ProgressRequestBody(requestBody,progressCallback,timeStamp,requestTag));
             addHeadsToRequest(info,requestBuilder);
+            bindTiming(info,requestBuilder);
             Request request = requestBuilder.build();
             helper.setRequest(request);
             responseCallback(helper.doRequestSync(),progressCallback, OkMainHandler.RESPONSE_UPLOAD_CALLBACK,requestTag);
@@ -104,7 +118,7 @@ class DownUpLoadHelper extends BaseHelper{
             final HttpInfo info = httpInfo;
             final DownloadFileInfo fileInfo = helper.getDownloadFileInfo();
             String url = fileInfo.getUrl();
-            if(TextUtils.isEmpty(url)){
+            if(StringUtil.isEmpty(url)){
                 showLog("下载文件失败：文件下载地址不能为空！");
                 return ;
             }
@@ -131,12 +145,37 @@ class DownUpLoadHelper extends BaseHelper{
                 }
             };
             try {
+                //分段下载：存在分段进度时继续分段下载
+                int segmentCount = fileInfo.getSegmentCount() > 0 ? fileInfo.getSegmentCount() : downloadSegmentCount;
+                if(segmentCount > 1 || SegmentDownloader.hasState(fileInfo)){
+                    //分段请求结束时移除：保留请求标识直到下载结果回调结束
+                    CallRegistry.hold(requestTag);
+                    HttpInfo result = null;
+                    try {
+                        result = new SegmentDownloader(this,helper,fileInfo,info).download(segmentCount);
+                    } finally {
+                        if(null == result)
+                            CallRegistry.release(requestTag);
+                    }
+                    if(null != result){
+                        responseCallback(result,progressCallback,OkMainHandler.RESPONSE_DOWNLOAD_CALLBACK,requestTag,true);
+                        return ;
+                    }
+                    //分段下载可能已删除断点文件：重新获取断点
+                    completedSize = fetchCompletedSize(fileInfo);
+                    fileInfo.setCompletedSize(completedSize);
+                }
                 //采用新的OkHttpClient处理多线程干扰回调进度问题
                 OkHttpClient httpClient = helper.getClientBuilder().addInterceptor(interceptor).build();
                 Request.Builder requestBuilder = new Request.Builder();
                 requestBuilder.url(url)
                         .header("RANGE", "bytes=" + completedSize + "-");
+                //继续下载时校验服务器文件是否变化：文件变化时服务器返回完整文件
+                DownloadMeta meta = completedSize > 0 ? DownloadMeta.read(metaFile(fileInfo)) : null;
+                if(null != meta && null != meta.ifRange())
+                    requestBuilder.header("If-Range", meta.ifRange());
                 addHeadsToRequest(info, requestBuilder);
+                bindTiming(info,requestBuilder);
                 Request request = requestBuilder.build();
                 helper.setRequest(request);
                 helper.setHttpClient(httpClient);
@@ -159,51 +198,63 @@ class DownUpLoadHelper extends BaseHelper{
     HttpInfo downloadingFile(OkHttpHelper okHttpInfo ,Response res){
         final HttpInfo info = httpInfo;
         final DownloadFileInfo fileInfo = okHttpInfo.getDownloadFileInfo();
-        RandomAccessFile accessFile = null;
-        InputStream inputStream = null;
-        BufferedInputStream bis = null;
+        DownloadFileWriter writer = null;
+        BufferedSource source = null;
         String filePath = fileInfo.getSaveFileDir()+fileInfo.getSaveFileNameWithExtension();
         try {
             ResponseBody responseBody = res.body();
-            int length;
             long completedSize = fileInfo.getCompletedSize();
-            accessFile = new RandomAccessFile(fileInfo.getSaveFileDir()+fileInfo.getSaveFileNameEncrypt(),"rwd");
-            //服务器不支持断点下载时重新下载
-            if(TextUtils.isEmpty(res.header("Content-Range"))){
+            long totalLength = DownloadMeta.totalLength(res);
+            File metaFile = metaFile(fileInfo);
+            if(StringUtil.isEmpty(res.header("Content-Range"))){
+                //服务器不支持断点下载或文件已变化时重新下载
+                if(completedSize > 0)
+                    showLog("服务器返回完整文件，重新下载");
                 completedSize = 0L;
                 fileInfo.setCompletedSize(completedSize);
+            }else{
+                //服务器未校验If-Range时通过文件总长度判断文件是否变化
+                DownloadMeta meta = DownloadMeta.read(metaFile);
+                if(null != meta && !meta.matchesLength(totalLength)){
+                    deleteDownloadFiles(fileInfo);
+                    return retInfo(info,HttpInfo.ConnectionInterruption,"文件已变化，请重新下载");
+                }
             }
-            accessFile.seek(completedSize);
             if(responseBody == null){
                 return retInfo(info,HttpInfo.CheckURL);
             }
-            inputStream = responseBody.byteStream();
-            byte[] buffer = new byte[2048];
-            bis = new BufferedInputStream(inputStream);
+            try {
+                DownloadMeta.from(res,totalLength).write(metaFile);
+            } catch (IOException e){
+                showLog("保存断点文件元数据失败："+e.getMessage());
+            }
+            writer = new DownloadFileWriter(new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt()),
+                    completedSize,downloadBufferSize,downloadCheckpointSize);
+            //删除断点之后未同步到存储的数据
+            writer.truncate();
+            if(completedSize == 0L)
+                deleteCheckpoint(fileInfo);
+            writer.setCheckpointListener(new DownloadFileWriter.CheckpointListener() {
+                @Override
+                public void onCheckpoint(long position) {
+                    writeCheckpoint(fileInfo,position);
+                }
+            });
+            source = responseBody.source();
             fileInfo.setDownloadStatus(DownloadStatus.DOWNLOADING);
-            while ( (length = bis.read(buffer)) > 0 &&
-                    (DownloadStatus.DOWNLOADING.equals(fileInfo.getDownloadStatus()))) {
-                accessFile.write(buffer, 0, length);
-                completedSize += length;
+            //数据从Okio缓冲直接写入文件缓冲区
+            while (DownloadStatus.DOWNLOADING.equals(fileInfo.getDownloadStatus())) {
+                if(writer.transferFrom(source,Long.MAX_VALUE) == -1)
+                    break;
             }
+            writer.close();
+            writer = null;
             if(DownloadStatus.PAUSE.equals(fileInfo.getDownloadStatus())){
                 return retInfo(info,HttpInfo.Message,"暂停下载");
             }
             //下载完成
             if(DownloadStatus.DOWNLOADING.equals(fileInfo.getDownloadStatus())){
-                fileInfo.setDownloadStatus(DownloadStatus.COMPLETED);
-                File newFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameWithExtension());
-                //处理文件已存在逻辑
-                if(newFile.exists() && newFile.isFile()){
-                    filePath = fileInfo.getSaveFileDir()+fileInfo.getSaveFileNameCopy();
-                    newFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameCopy());
-                }
-                File oldFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt());
-                if(oldFile.exists() && oldFile.isFile()){
-                    boolean rename = oldFile.renameTo(newFile);
-                    showLog("重命名["+rename+"]:"+newFile.getAbsolutePath());
-                }
-                return retInfo(info,HttpInfo.SUCCESS,filePath);
+                return retInfo(info,HttpInfo.SUCCESS,completeDownload(fileInfo));
             }
         }catch(SocketTimeoutException e){
             return retInfo(info,HttpInfo.WriteAndReadTimeOut);
@@ -214,12 +265,10 @@ class DownUpLoadHelper extends BaseHelper{
             return retInfo(info,HttpInfo.ConnectionInterruption);
         }finally {
             try {
-                if(null != bis)
-                    bis.close();
-                if(null != inputStream)
-                    inputStream.close();
-                if(null != accessFile)
-                    accessFile.close();
+                if(null != source)
+                    source.close();
+                if(null != writer)
+                    writer.close();
             }catch (IOException e){
                 e.printStackTrace();
             }
@@ -230,6 +279,116 @@ class DownUpLoadHelper extends BaseHelper{
         return retInfo(info,HttpInfo.SUCCESS,filePath);
     }
 
+    /**
+     * 下载完成：将断点文件重命名为保存文件
+     * @return 保存文件路径
+     */
+    String completeDownload(DownloadFileInfo fileInfo){
+        fileInfo.setDownloadStatus(DownloadStatus.COMPLETED);
+        String filePath = fileInfo.getSaveFileDir()+fileInfo.getSaveFileNameWithExtension();
+        File newFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameWithExtension());
+        //处理文件已存在逻辑
+        if(newFile.exists() && newFile.isFile()){
+            filePath = fileInfo.getSaveFileDir()+fileInfo.getSaveFileNameCopy();
+            newFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameCopy());
+        }
+        File oldFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt());
+        if(oldFile.exists() && oldFile.isFile()){
+            boolean rename = oldFile.renameTo(newFile);
+            showLog("重命名["+rename+"]:"+newFile.getAbsolutePath());
+        }
+        deleteCheckpoint(fileInfo);
+        File metaFile = metaFile(fileInfo);
+        if(metaFile.exists() && !metaFile.delete())
+            showLog("删除元数据文件失败："+metaFile.getAbsolutePath());
+        return filePath;
+    }
+
+    private void deleteCheckpoint(DownloadFileInfo fileInfo){
+        File file = checkpointFile(fileInfo);
+        if(file.exists() && !file.delete())
+            showLog("删除检查点文件失败："+file.getAbsolutePath());
+    }
+
+    /**
+     * 删除断点文件：包括断点文件、检查点文件、分段进度文件与元数据文件
+     * @return 是否全部删除
+     */
+    static boolean deleteDownloadFiles(DownloadFileInfo fileInfo){
+        String saveFileDir = fileInfo.getSaveFileDir();
+        if(StringUtil.isEmpty(saveFileDir))
+            return true;
+        String saveFileNameEncrypt = fileInfo.getSaveFileNameEncrypt();
+        if(StringUtil.isEmpty(saveFileNameEncrypt)){
+            try {
+                saveFileNameEncrypt = EncryptUtil.MD5StringTo32Bit(fileInfo.getUrl(),true);
+            } catch (Exception e){
+                return false;
+            }
+        }
+        boolean deleted = true;
+        String[] suffixes = {"",CHECKPOINT_SUFFIX,SegmentDownloader.STATE_SUFFIX,DownloadMeta.META_SUFFIX};
+        for(String suffix : suffixes){
+            File file = new File(saveFileDir,saveFileNameEncrypt+suffix);
+            if(file.exists() && !file.delete())
+                deleted = false;
+        }
+        return deleted;
+    }
+
+    static File metaFile(DownloadFileInfo fileInfo){
+        return new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt()+DownloadMeta.META_SUFFIX);
+    }
+
+    private static File checkpointFile(DownloadFileInfo fileInfo){
+        return new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt()+CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * 保存检查点：检查点之前的数据已同步到存储，先写入临时文件再重命名
+     */
+    private void writeCheckpoint(DownloadFileInfo fileInfo, long position){
+        File file = checkpointFile(fileInfo);
+        File temp = new File(file.getPath()+".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+            try {
+                out.writeLong(position);
+            } finally {
+                out.close();
+            }
+            if(!temp.renameTo(file))
+                showLog("保存检查点失败："+file.getAbsolutePath());
+        } catch (IOException e){
+            showLog("保存检查点失败："+e.getMessage());
+        }
+    }
+
+    /**
+     * 读取检查点
+     * @return 检查点文件不存在或无效时返回-1
+     */
+    private long readCheckpoint(DownloadFileInfo fileInfo){
+        File file = checkpointFile(fileInfo);
+        if(!file.isFile())
+            return -1;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            return in.readLong();
+        } catch (IOException e){
+            return -1;
+        } finally {
+            if(null != in){
+                try {
+                    in.close();
+                } catch (IOException e){
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
     /**
      * 获取断点文件已完成的节点
      */
@@ -238,18 +397,18 @@ class DownUpLoadHelper extends BaseHelper{
         String saveFileName = fileInfo.getSaveFileName();
         String url = fileInfo.getUrl();
         String originalFileName = "";
-        if(TextUtils.isEmpty(saveFileName)){
+        if(StringUtil.isEmpty(saveFileName)){
             if(url.contains("/") && !url.endsWith("/")){
                 //文件原名称
                 originalFileName = url.substring(url.lastIndexOf("/")+1);
             }
         }
         //自定义名称为空时采用文件原名称
-        if(TextUtils.isEmpty(saveFileName)){
+        if(StringUtil.isEmpty(saveFileName)){
             saveFileName = originalFileName;
         }
         String saveFileNameCopy = "["+timeStamp+"]"+saveFileName;
-        saveFileDir = TextUtils.isEmpty(saveFileDir) ? downloadFileDir : saveFileDir;
+        saveFileDir = StringUtil.isEmpty(saveFileDir) ? downloadFileDir : saveFileDir;
         mkDirNotExists(saveFileDir);
         fileInfo.setSaveFileDir(saveFileDir);
         fileInfo.setSaveFileNameCopy(saveFileNameCopy);
@@ -264,6 +423,10 @@ class DownUpLoadHelper extends BaseHelper{
         File file = new File(saveFileDir,saveFileNameEncrypt);
         if(file.exists() && file.isFile()){
             long size = file.length();
+            //检查点之后的数据可能未同步到存储，从检查点继续下载
+            long checkpoint = readCheckpoint(fileInfo);
+            if(checkpoint >= 0 && checkpoint < size)
+                size = checkpoint;
             showLog("断点文件下载，节点["+size+"]");
             return size;
         }
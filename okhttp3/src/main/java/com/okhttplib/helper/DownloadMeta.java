@@ -0,0 +1,135 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.util.StringUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import okhttp3.Response;
+
+/**
+ * 断点文件元数据：保存服务器文件的ETag、Last-Modified与文件总长度，
+ * 继续下载时通过If-Range校验服务器文件是否变化，文件变化时服务器返回完整文件，重新下载
+ * @author zhousf
+ */
+final class DownloadMeta {
+
+    static final String META_SUFFIX = ".meta";
+    private static final int META_VERSION = 1;
+
+    final String etag;
+    final String lastModified;
+    final long contentLength;//文件总长度：未知时为-1
+
+    DownloadMeta(String etag, String lastModified, long contentLength) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * 从响应中读取元数据
+     * @param contentLength 文件总长度
+     */
+    static DownloadMeta from(Response res, long contentLength){
+        return new DownloadMeta(res.header("ETag"),res.header("Last-Modified"),contentLength);
+    }
+
+    /**
+     * If-Range校验值：优先采用强ETag，弱ETag不能用于If-Range时采用Last-Modified
+     * @return 没有可用的校验值时返回null
+     */
+    String ifRange(){
+        if(!StringUtil.isEmpty(etag) && !etag.startsWith("W/"))
+            return etag;
+        if(!StringUtil.isEmpty(lastModified))
+            return lastModified;
+        return null;
+    }
+
+    /**
+     * 文件总长度：206响应从Content-Range中获取，其他响应为Content-Length
+     * @return 未知时返回-1
+     */
+    static long totalLength(Response res){
+        String contentRange = res.header("Content-Range");
+        if(!StringUtil.isEmpty(contentRange)){
+            int index = contentRange.lastIndexOf('/');
+            if(index < 0 || index == contentRange.length() - 1 || contentRange.endsWith("*"))
+                return -1;
+            try {
+                return Long.parseLong(contentRange.substring(index + 1).trim());
+            } catch (NumberFormatException e){
+                return -1;
+            }
+        }
+        String length = res.header("Content-Length");
+        if(StringUtil.isEmpty(length))
+            return -1;
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    /**
+     * 文件总长度是否与元数据一致：任一方未知时视为一致
+     */
+    boolean matchesLength(long contentLength){
+        return this.contentLength < 0 || contentLength < 0 || this.contentLength == contentLength;
+    }
+
+    /**
+     * 保存元数据：先写入临时文件再重命名
+     */
+    void write(File file) throws IOException {
+        File temp = new File(file.getPath()+".tmp");
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+        try {
+            out.writeInt(META_VERSION);
+            out.writeUTF(null == etag ? "" : etag);
+            out.writeUTF(null == lastModified ? "" : lastModified);
+            out.writeLong(contentLength);
+        } finally {
+            out.close();
+        }
+        if(!temp.renameTo(file))
+            throw new IOException("rename failed: "+file);
+    }
+
+    /**
+     * 读取元数据
+     * @return 元数据文件不存在或无效时返回null
+     */
+    static DownloadMeta read(File file){
+        if(!file.isFile())
+            return null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if(in.readInt() != META_VERSION)
+                return null;
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            long contentLength = in.readLong();
+            return new DownloadMeta(StringUtil.isEmpty(etag) ? null : etag,
+                    StringUtil.isEmpty(lastModified) ? null : lastModified,contentLength);
+        } catch (IOException e){
+            return null;
+        } finally {
+            if(null != in){
+                try {
+                    in.close();
+                } catch (IOException e){
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+}
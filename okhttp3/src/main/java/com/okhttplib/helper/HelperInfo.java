@@ -32,10 +32,15 @@ public class HelperInfo {
     private List<ResultInterceptor> resultInterceptors;//请求结果拦截器
     private List<ExceptionInterceptor> exceptionInterceptors;//请求链路异常拦截器
     private String downloadFileDir;//下载文件保存目录
+    private int downloadSegmentCount;//下载分段数
+    private int downloadBufferSize;//下载写入缓冲区大小
+    private long downloadCheckpointSize;//下载检查点间隔
     private @Encoding String responseEncoding;//服务器响应编码
     private @Encoding String requestEncoding;//请求参数编码
     private boolean isGzip = false;//Gzip压缩
     private InputStream httpsCertificateStream;//Https证书
+    private boolean keepAlive = true;//连接保持
+    private Object coalesceScope;//请求合并范围：相同客户端配置的请求才能合并
 
 
     public String getLogTAG() {
@@ -94,6 +99,30 @@ public class HelperInfo {
         this.downloadFileDir = downloadFileDir;
     }
 
+    public int getDownloadSegmentCount() {
+        return downloadSegmentCount;
+    }
+
+    public void setDownloadSegmentCount(int downloadSegmentCount) {
+        this.downloadSegmentCount = downloadSegmentCount;
+    }
+
+    public int getDownloadBufferSize() {
+        return downloadBufferSize;
+    }
+
+    public void setDownloadBufferSize(int downloadBufferSize) {
+        this.downloadBufferSize = downloadBufferSize;
+    }
+
+    public long getDownloadCheckpointSize() {
+        return downloadCheckpointSize;
+    }
+
+    public void setDownloadCheckpointSize(long downloadCheckpointSize) {
+        this.downloadCheckpointSize = downloadCheckpointSize;
+    }
+
     public OkHttpClient.Builder getClientBuilder() {
         return clientBuilder;
     }
@@ -173,4 +202,20 @@ public class HelperInfo {
     public void setHttpsCertificateStream(InputStream httpsCertificateStream) {
         this.httpsCertificateStream = httpsCertificateStream;
     }
+
+    public Object getCoalesceScope() {
+        return coalesceScope;
+    }
+
+    public void setCoalesceScope(Object coalesceScope) {
+        this.coalesceScope = coalesceScope;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
 }
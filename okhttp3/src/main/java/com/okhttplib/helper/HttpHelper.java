@@ -1,25 +1,25 @@
 package com.okhttplib.helper;
 
-import android.os.Build;
-import android.os.Message;
-import android.os.NetworkOnMainThreadException;
-import android.text.TextUtils;
-
+import com.google.gson.stream.JsonReader;
 import com.okhttplib.HttpInfo;
 import com.okhttplib.annotation.BusinessType;
 import com.okhttplib.annotation.RequestType;
 import com.okhttplib.bean.CallbackMessage;
-import com.okhttplib.callback.BaseActivityLifecycleCallbacks;
 import com.okhttplib.callback.BaseCallback;
+import com.okhttplib.callback.CallRegistry;
 import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.future.FutureCallback;
 import com.okhttplib.handler.OkMainHandler;
 import com.okhttplib.progress.ProgressRequestBody;
+import com.okhttplib.stat.CallTiming;
+import com.okhttplib.stat.MetricsRegistry;
+import com.okhttplib.util.StringUtil;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Locale;
 
 import okhttp3.Call;
@@ -30,6 +30,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 
 import static com.okhttplib.HttpInfo.ConnectionTimeOut;
 import static com.okhttplib.HttpInfo.WriteAndReadTimeOut;
@@ -40,6 +41,13 @@ import static com.okhttplib.HttpInfo.WriteAndReadTimeOut;
  */
 class HttpHelper extends BaseHelper{
 
+    private static final String NETWORK_ON_MAIN_THREAD = "android.os.NetworkOnMainThreadException";
+
+    /**
+     * 按Content-Length预先分配数组的最大响应体长度
+     */
+    static final long MAX_PRESIZED_BODY = 4 * 1024 * 1024;
+
     private long startTime;
 
     HttpHelper(HelperInfo helperInfo) {
@@ -50,6 +58,12 @@ class HttpHelper extends BaseHelper{
      * 同步请求
      */
     HttpInfo doRequestSync(OkHttpHelper helper){
+        HttpInfo result = executeSync(helper);
+        recordMetrics(helper.getRequest(),helper.getRequestType(),result);
+        return result;
+    }
+
+    private HttpInfo executeSync(OkHttpHelper helper){
         Call call = null;
         final HttpInfo info = httpInfo;
         Request request = helper.getRequest();
@@ -64,7 +78,7 @@ class HttpHelper extends BaseHelper{
         try {
             httpClient = httpClient == null ? super.httpClient : httpClient;
             call = httpClient.newCall(request);
-            BaseActivityLifecycleCallbacks.putCall(requestTag,call);
+            CallRegistry.putCall(requestTag,call);
             Response res = call.execute();
             return dealResponse(helper, res);
         } catch (IllegalArgumentException e){
@@ -83,14 +97,15 @@ class HttpHelper extends BaseHelper{
             }else{
                 return retInfo(info,HttpInfo.CheckURL,"["+e.getMessage()+"]");
             }
-        } catch(NetworkOnMainThreadException e){
-            return retInfo(info,HttpInfo.NetworkOnMainThreadException);
         } catch(Exception e) {
+            //android.os.NetworkOnMainThreadException：按类名判断，避免依赖Android类型
+            if(NETWORK_ON_MAIN_THREAD.equals(e.getClass().getName()))
+                return retInfo(info,HttpInfo.NetworkOnMainThreadException);
             return retInfo(info,HttpInfo.NoResult,"["+e.getMessage()+"]");
         }finally {
             //普通网络请求结束时自动取消请求，文件下载或上传需要在异步返回时取消，避免因提前取消请求导致无法回调的问题
             if(helper.getBusinessType() == BusinessType.HttpOrHttps){
-                BaseActivityLifecycleCallbacks.cancel(requestTag,call);
+                CallRegistry.cancel(requestTag,call);
             }
         }
     }
@@ -99,30 +114,49 @@ class HttpHelper extends BaseHelper{
      * 异步请求
      */
     void doRequestAsync(final OkHttpHelper helper){
-        if(httpInfo == null)
+        if(httpInfo == null){
+            helper.finishDispatch();
             return ;
+        }
         final HttpInfo info = httpInfo;
         final BaseCallback callback = helper.getCallback();
         Request request = helper.getRequest();
         String url = info.getUrl();
         if(!checkUrl(url)){
+            helper.finishDispatch();
             //主线程回调
-            Message msg =  new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
+            OkMainHandler.getInstance().sendCallback(new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
                     callback,
                     retInfo(info,HttpInfo.CheckURL),
                     requestTag,
-                    null)
-                    .build();
-            OkMainHandler.getInstance().sendMessage(msg);
+                    null));
+            return ;
+        }
+        //异步请求结果已取消时无需发起网络请求
+        if(callback instanceof FutureCallback && ((FutureCallback)callback).isCancelled()){
+            helper.finishDispatch();
             return ;
         }
         request = request == null ? buildRequest(info,helper.getRequestType(),helper.getProgressCallback()) : request;
+        //合并相同的GET请求：已有相同请求进行中时挂靠到该请求上，不再发起网络请求
+        final List<Object> coalesceKey = isCoalescable(helper)
+                ? RequestCoalescer.key(helperInfo.getCoalesceScope(),info,requestTag) : null;
+        if(null != coalesceKey && RequestCoalescer.join(coalesceKey,info,callback,requestTag)){
+            helper.finishDispatch();
+            if(isLoggable())
+                showLog(String.format("Coalesced-URL: %s %n",request.url()));
+            return ;
+        }
         showUrlLog(request);
         Call call = httpClient.newCall(request);
-        BaseActivityLifecycleCallbacks.putCall(requestTag,call);
+        CallRegistry.putCall(requestTag,call);
+        if(callback instanceof FutureCallback){
+            ((FutureCallback)callback).bindCall(call);
+        }
         call.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
+                helper.finishDispatch();
                 //主线程回调
                 int code = HttpInfo.CheckNet;
                 if(e instanceof UnknownHostException){
@@ -139,35 +173,72 @@ class HttpHelper extends BaseHelper{
                             code = HttpInfo.WriteAndReadTimeOut;
                     }
                 }
-                Message msg =  new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
+                HttpInfo result = retInfo(info,code,"["+e.getMessage()+"]");
+                showRequestLog(call.request(),0,costTime(),-1,e.getMessage());
+                recordMetrics(call.request(),helper.getRequestType(),result);
+                completeCoalesced(coalesceKey,result);
+                OkMainHandler.getInstance().sendCallback(new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
                         callback,
-                        retInfo(info,code,"["+e.getMessage()+"]"),
+                        result,
                         requestTag,
-                        call)
-                        .build();
-                OkMainHandler.getInstance().sendMessage(msg);
+                        call));
             }
 
             @Override
             public void onResponse(Call call, Response res) throws IOException {
+                HttpInfo result;
+                try {
+                    result = dealResponse(helper,res);
+                } finally {
+                    helper.finishDispatch();
+                }
+                recordMetrics(call.request(),helper.getRequestType(),result);
                 //主线程回调
-                Message msg =  new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
+                completeCoalesced(coalesceKey,result);
+                OkMainHandler.getInstance().sendCallback(new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
                         callback,
-                        dealResponse(helper,res),
+                        result,
                         requestTag,
-                        call)
-                        .build();
-                OkMainHandler.getInstance().sendMessage(msg);
+                        call));
             }
         });
     }
 
+    /**
+     * 是否可以合并请求：仅合并普通的异步GET请求，返回结果为Response时无法共享，
+     * 可单独取消的FutureCallback请求不参与合并，避免取消后挂靠的请求一同失败
+     */
+    private boolean isCoalescable(OkHttpHelper helper){
+        return httpInfo.isCoalesce()
+                && !(helper.getCallback() instanceof FutureCallback)
+                && null != helperInfo.getCoalesceScope()
+                && helper.getRequestType() == RequestType.GET
+                && helper.getBusinessType() == BusinessType.HttpOrHttps
+                && !httpInfo.isNeedResponse();
+    }
+
+    /**
+     * 合并的请求结束：挂靠的请求回调相同的结果
+     */
+    private void completeCoalesced(List<Object> coalesceKey, HttpInfo result){
+        if(null == coalesceKey)
+            return ;
+        for(RequestCoalescer.Follower follower : RequestCoalescer.complete(coalesceKey,result)){
+            //主线程回调
+            OkMainHandler.getInstance().sendCallback(new CallbackMessage(OkMainHandler.RESPONSE_CALLBACK,
+                    follower.callback,
+                    follower.info,
+                    follower.requestTag,
+                    null));
+        }
+    }
+
     /**
      * 检查请求URL
      */
     private boolean checkUrl(String url){
         HttpUrl parsed = HttpUrl.parse(url);
-        return parsed != null && !TextUtils.isEmpty(url);
+        return parsed != null && !StringUtil.isEmpty(url);
     }
 
     /**
@@ -212,10 +283,12 @@ class HttpHelper extends BaseHelper{
                 requestBuilder.url(url).post(progress);
             }
         }
-        if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB_MR2) {
+        //默认复用连接，关闭连接保持或单次请求要求关闭时请求结束后关闭连接
+        if(!helperInfo.isKeepAlive() || info.isCloseAfterRequest()){
             requestBuilder.addHeader("Connection", "close");
         }
         addHeadsToRequest(info,requestBuilder);
+        bindTiming(info,requestBuilder);
         request = requestBuilder.build();
         return request;
     }
@@ -223,16 +296,46 @@ class HttpHelper extends BaseHelper{
 
     private void showUrlLog(Request request){
         startTime = System.nanoTime();
+        if(!isLoggable())
+            return ;
         showLog(String.format("%s-URL: %s %n",request.method(),request.url()));
     }
 
+    /**
+     * 一次性读取响应体：Content-Length不超过MAX_PRESIZED_BODY时直接读入相同大小的数组，保留原始字节（包括换行符）
+     * 更大或未知长度的响应体按实际读取的数据扩容，避免错误的Content-Length导致预先分配超大数组
+     */
+    private byte[] readBody(ResponseBody body) throws IOException {
+        BufferedSource source = body.source();
+        long contentLength = body.contentLength();
+        if(contentLength < 0 || contentLength > MAX_PRESIZED_BODY){
+            return source.readByteArray();
+        }
+        byte[] bytes = new byte[(int) contentLength];
+        source.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * 从响应流解析Json对象：边读边解析，避免先生成完整的字符串
+     */
+    private Object readObject(ResponseBody body, String encoding) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(body.byteStream(),encoding));
+        try {
+            return httpInfo.getGson().fromJson(reader,httpInfo.getRetType());
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * 处理HTTP响应
      */
     private HttpInfo dealResponse(OkHttpHelper helper,Response res){
-        showLog(String.format(Locale.getDefault(),"CostTime: %.3fs",(System.nanoTime()-startTime)/1e9d));
-        BufferedReader bufferedReader = null ;
+        if(isLoggable())
+            showLog(String.format(Locale.getDefault(),"CostTime: %.3fs",(System.nanoTime()-startTime)/1e9d));
         StringBuilder result = new StringBuilder("");
+        long responseBytes = -1;
         try {
             if(null != res){
                 final int netCode = res.code();
@@ -246,24 +349,32 @@ class HttpHelper extends BaseHelper{
                             || helper.getBusinessType() == BusinessType.UploadFile){
                         //服务器响应编码格式
                         String encoding = httpInfo.getResponseEncoding();
-                        if(TextUtils.isEmpty(encoding)){
+                        if(StringUtil.isEmpty(encoding)){
                             encoding = helper.getResponseEncoding();
                         }
                         ResponseBody body = res.body();
-                        if(body != null){
-                            bufferedReader = new BufferedReader(new InputStreamReader(body.byteStream(), encoding));
-                            String line;
-                            while ((line = bufferedReader.readLine()) != null) {
-                                result.append(line);
-                            }
+                        if(null != httpInfo.getRetType()){
+                            //直接从响应流解析为对象，不生成返回结果字符串
+                            httpInfo.setRetObject(body == null ? null : readObject(body,encoding));
+                            retInfo(httpInfo,netCode,HttpInfo.SUCCESS,null);
+                            httpInfo.setRetDetail("");
+                            return httpInfo;
+                        }
+                        byte[] bytes = body == null ? new byte[0] : readBody(body);
+                        responseBytes = bytes.length;
+                        if(httpInfo.isNeedBytes()){
+                            //返回结果为字节数组，无需解码
+                            httpInfo.setRetBytes(bytes);
+                            return retInfo(httpInfo,netCode,HttpInfo.SUCCESS,null);
                         }
                         //200即业务成功
-                        return retInfo(httpInfo,netCode,HttpInfo.SUCCESS,result.toString());
+                        return retInfo(httpInfo,netCode,HttpInfo.SUCCESS,new String(bytes,encoding));
                     }else if(helper.getBusinessType() == BusinessType.DownloadFile){ //下载文件
                         return helper.getDownUpLoadHelper().downloadingFile(helper,res);
                     }
                 }else{
-                    showLog("HttpStatus: "+netCode);
+                    if(isLoggable())
+                        showLog("HttpStatus: "+netCode);
                     if(netCode == 400){
                         return retInfo(httpInfo,netCode,HttpInfo.RequestParamError);
                     }else if(netCode == 404){//请求页面路径错误
@@ -285,21 +396,39 @@ class HttpHelper extends BaseHelper{
         } catch (Exception e) {
             return retInfo(httpInfo,HttpInfo.NoResult,"["+e.getMessage()+"]");
         } finally {
+            if(null != res && isLoggable()){
+                if(responseBytes < 0 && null != res.body())
+                    responseBytes = res.body().contentLength();
+                showRequestLog(res.request(),res.code(),costTime(),responseBytes,null);
+            }
             if(!httpInfo.isNeedResponse()){
                 if(null != res){
                     res.close();
                 }
-                if(null != bufferedReader){
-                    try {
-                        bufferedReader.close();
-                    } catch (IOException e){
-                        e.printStackTrace();
-                    }
-                }
             }
         }
     }
 
+    /**
+     * 记录请求指标：未发起网络请求（如URL错误）时不记录
+     */
+    private void recordMetrics(Request request, @RequestType int requestType, HttpInfo result){
+        if(null == request || null == result || !MetricsRegistry.isEnabled())
+            return ;
+        CallTiming timing = result.getTiming();
+        MetricsRegistry.record(request.url().host(),requestType,result.getRetCode(),System.nanoTime() - startTime,
+                null == timing ? -1 : timing.getRequestBytes(),
+                null == timing ? -1 : timing.getResponseBytes(),
+                result.isFromCache());
+    }
+
+    /**
+     * 请求耗时（毫秒）
+     */
+    private long costTime(){
+        return (System.nanoTime() - startTime) / 1000000L;
+    }
+
 
 
 
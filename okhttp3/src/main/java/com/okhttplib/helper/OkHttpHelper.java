@@ -1,6 +1,5 @@
 package com.okhttplib.helper;
 
-import android.text.TextUtils;
 
 import com.okhttplib.HttpInfo;
 import com.okhttplib.annotation.BusinessType;
@@ -10,9 +9,12 @@ import com.okhttplib.bean.DownloadFileInfo;
 import com.okhttplib.bean.UploadFileInfo;
 import com.okhttplib.callback.BaseCallback;
 import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.executor.PriorityDispatchQueue;
+import com.okhttplib.util.StringUtil;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -40,6 +42,8 @@ public class OkHttpHelper {
     private @BusinessType int businessType;//业务类型
     private @Encoding String responseEncoding;//服务器响应编码
     private @Encoding String requestEncoding;//请求参数编码
+    private PriorityDispatchQueue dispatchQueue;//优先级调度队列
+    private final AtomicBoolean dispatchFinished = new AtomicBoolean(false);
 
 
     private OkHttpHelper(Builder builder) {
@@ -51,6 +55,7 @@ public class OkHttpHelper {
         callback = builder.callback;
         progressCallback = builder.progressCallback;
         businessType = builder.businessType;
+        dispatchQueue = builder.dispatchQueue;
         responseEncoding = builder.helperInfo.getResponseEncoding();
         requestEncoding = builder.helperInfo.getRequestEncoding();
         builder.helperInfo.setHttpInfo(httpInfo);
@@ -64,7 +69,12 @@ public class OkHttpHelper {
     }
 
     public void doRequestAsync(){
-        httpHelper.doRequestAsync(this);
+        try {
+            httpHelper.doRequestAsync(this);
+        } catch (RuntimeException e){
+            finishDispatch();
+            throw e;
+        }
     }
 
     public void downloadFile(){
@@ -75,6 +85,14 @@ public class OkHttpHelper {
         downUpLoadHelper.uploadFile(this);
     }
 
+    /**
+     * 删除下载文件的断点数据：用于取消下载
+     * @return 是否全部删除
+     */
+    public static boolean deleteDownloadFiles(DownloadFileInfo fileInfo){
+        return DownUpLoadHelper.deleteDownloadFiles(fileInfo);
+    }
+
 
     public static Builder Builder(){
         return new Builder();
@@ -90,6 +108,7 @@ public class OkHttpHelper {
         private BaseCallback callback;
         private ProgressCallback progressCallback;
         private @BusinessType int businessType;
+        private PriorityDispatchQueue dispatchQueue;
 
         public Builder() {
         }
@@ -98,12 +117,12 @@ public class OkHttpHelper {
             if(!this.uploadFileInfoList.isEmpty()){
                 this.businessType = BusinessType.UploadFile;//文件上传
                 UploadFileInfo uploadFileInfo = uploadFileInfoList.get(0);
-                if(!TextUtils.isEmpty(uploadFileInfo.getUrl())){
+                if(!StringUtil.isEmpty(uploadFileInfo.getUrl())){
                     this.httpInfo.setUrl(uploadFileInfo.getUrl());
                 }
             } else if(downloadFileInfo != null){
                 this.businessType = BusinessType.DownloadFile;//文件下载
-                if(!TextUtils.isEmpty(downloadFileInfo.getUrl())){
+                if(!StringUtil.isEmpty(downloadFileInfo.getUrl())){
                     this.httpInfo.setUrl(downloadFileInfo.getUrl());
                 }
             } else{
@@ -157,6 +176,11 @@ public class OkHttpHelper {
             this.progressCallback = progressCallback;
             return this;
         }
+
+        public Builder dispatchQueue(PriorityDispatchQueue dispatchQueue){
+            this.dispatchQueue = dispatchQueue;
+            return this;
+        }
     }
 
     HttpInfo getHttpInfo() {
@@ -215,6 +239,15 @@ public class OkHttpHelper {
         this.request = request;
     }
 
+    /**
+     * 异步请求结束：释放优先级调度队列的执行名额（只释放一次）
+     */
+    void finishDispatch(){
+        if(null != dispatchQueue && dispatchFinished.compareAndSet(false,true)){
+            dispatchQueue.finish();
+        }
+    }
+
     OkHttpClient getHttpClient() {
         return httpClient;
     }
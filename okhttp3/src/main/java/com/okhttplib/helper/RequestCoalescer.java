@@ -0,0 +1,171 @@
+package com.okhttplib.helper;
+
+import com.google.gson.Gson;
+import com.okhttplib.HttpInfo;
+import com.okhttplib.callback.BaseCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求合并：相同请求标识下相同的GET请求进行中时，后续请求不再发起网络请求，
+ * 挂靠到进行中的请求上，请求结束后所有请求回调相同的结果（各自持有结果副本）
+ * 只合并同一请求标识下的请求：挂靠的请求与发起请求同时随请求标识销毁，不会因其他页面取消请求而失败
+ * @author zhousf
+ */
+public final class RequestCoalescer {
+
+    /**
+     * 进行中的请求: key=请求标识 value=挂靠的请求
+     */
+    private static final Map<List<Object>,List<Follower>> inFlightMap = new HashMap<>();
+
+    /**
+     * 实际发起的网络请求次数
+     */
+    private static final AtomicLong leaderCount = new AtomicLong();
+
+    /**
+     * 合并后节省的网络请求次数
+     */
+    private static final AtomicLong savedCount = new AtomicLong();
+
+    private RequestCoalescer() {
+    }
+
+    /**
+     * 生成请求标识：请求标识+请求方式+地址+排序后的参数+指定请求头
+     * @param scope 客户端配置标识
+     * @param info 请求信息体
+     * @param requestTag 请求标识
+     */
+    static List<Object> key(Object scope, HttpInfo info, String requestTag){
+        StringBuilder key = new StringBuilder();
+        key.append(null == requestTag ? "" : requestTag).append("|GET|").append(info.isNeedBytes()).append('|').append(info.getRetType()).append('|').append(info.getUrl()).append('|');
+        if(null != info.getParams()){
+            for(Map.Entry<String,String> entry : new TreeMap<>(info.getParams()).entrySet()){
+                key.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+            }
+        }
+        key.append('|');
+        Map<String,String> heads = info.getHeads();
+        if(null != heads && !heads.isEmpty()){
+            String[] keyHeads = info.getCoalesceHeads();
+            if(null == keyHeads){
+                for(Map.Entry<String,String> entry : new TreeMap<>(heads).entrySet()){
+                    key.append(entry.getKey()).append(':').append(entry.getValue()).append('\n');
+                }
+            }else{
+                for(String name : keyHeads){
+                    key.append(name).append(':').append(heads.get(name)).append('\n');
+                }
+            }
+        }
+        return Arrays.asList(scope,key.toString());
+    }
+
+    /**
+     * 加入请求
+     * @return true 已有相同请求进行中，当前请求已挂靠；false 当前请求需要发起网络请求
+     */
+    static boolean join(List<Object> key, HttpInfo info, BaseCallback callback, String requestTag){
+        synchronized (inFlightMap){
+            List<Follower> followers = inFlightMap.get(key);
+            if(null == followers){
+                inFlightMap.put(key,new ArrayList<Follower>(2));
+                leaderCount.incrementAndGet();
+                return false;
+            }
+            followers.add(new Follower(info,callback,requestTag));
+            savedCount.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * 请求结束：移除进行中的请求并将结果复制给挂靠的请求，字节数组与结果对象每个挂靠的请求各自一份
+     * @param result 网络请求结果
+     * @return 挂靠的请求
+     */
+    static List<Follower> complete(List<Object> key, HttpInfo result){
+        List<Follower> followers;
+        synchronized (inFlightMap){
+            followers = inFlightMap.remove(key);
+        }
+        if(null == followers)
+            return new ArrayList<>(0);
+        for(Follower follower : followers){
+            follower.info.packInfo(result.getNetCode(),result.getRetCode(),result.getRetDetail());
+            follower.info.setRetDetail(result.getRetDetail());
+            follower.info.setFromCache(result.isFromCache());
+            byte[] retBytes = result.getRetBytes();
+            follower.info.setRetBytes(null == retBytes ? null : retBytes.clone());
+            follower.info.setRetObject(copyObject(follower.info,result.getRetObject()));
+            follower.info.setTiming(result.getTiming());
+        }
+        return followers;
+    }
+
+    /**
+     * 复制结果对象：通过Gson转换生成新的对象，避免多个回调修改同一个对象
+     */
+    private static Object copyObject(HttpInfo info, Object retObject){
+        if(null == retObject || null == info.getRetType())
+            return retObject;
+        Gson gson = info.getGson();
+        return gson.fromJson(gson.toJsonTree(retObject),info.getRetType());
+    }
+
+    /**
+     * 实际发起的网络请求次数（参与合并的请求）
+     */
+    public static long getLeaderCount(){
+        return leaderCount.get();
+    }
+
+    /**
+     * 合并后节省的网络请求次数
+     */
+    public static long getSavedCount(){
+        return savedCount.get();
+    }
+
+    /**
+     * 当前进行中的合并请求数量
+     */
+    public static int getInFlightCount(){
+        synchronized (inFlightMap){
+            return inFlightMap.size();
+        }
+    }
+
+    /**
+     * 重置统计
+     */
+    public static void reset(){
+        leaderCount.set(0);
+        savedCount.set(0);
+    }
+
+    /**
+     * 挂靠的请求
+     */
+    static final class Follower {
+
+        final HttpInfo info;
+        final BaseCallback callback;
+        final String requestTag;
+
+        private Follower(HttpInfo info, BaseCallback callback, String requestTag) {
+            this.info = info;
+            this.callback = callback;
+            this.requestTag = requestTag;
+        }
+    }
+
+}
@@ -0,0 +1,474 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.annotation.DownloadStatus;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.bean.ProgressMessage;
+import com.okhttplib.callback.CallRegistry;
+import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.handler.OkMainHandler;
+import com.okhttplib.util.DownloadFileWriter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * 分段下载：探测文件长度（Content-Length）与Range支持（Accept-Ranges）后将文件分成多段，
+ * 通过共享的调度器与连接池并行下载，每段写入断点文件的对应位置
+ * 各段进度保存在断点文件旁的分段文件（.seg）中，重启后从各段已完成位置继续下载
+ * 服务器不支持Range、文件过小或断点文件来自单线程下载时不分段，由调用方按单线程下载
+ * @author zhousf
+ */
+class SegmentDownloader {
+
+    /**
+     * 每段最小长度：小于两段长度的文件不分段
+     */
+    static final long MIN_SEGMENT_SIZE = 512 * 1024;
+
+    static final String STATE_SUFFIX = ".seg";
+    private static final int STATE_VERSION = 1;
+
+    private final DownUpLoadHelper helper;
+    private final OkHttpHelper okHttpHelper;
+    private final DownloadFileInfo fileInfo;
+    private final HttpInfo info;
+    private final File tempFile;
+    private final File stateFile;
+    private final File metaFile;
+
+    //**下载过程参数定义**/
+    private SegmentState state;
+    private DownloadMeta meta;
+    private CountDownLatch latch;
+    private final List<Call> calls = new ArrayList<>();
+    private final AtomicLong completedSize = new AtomicLong();
+    private final AtomicInteger lastPercent = new AtomicInteger(-1);
+    private volatile int errorCode;
+    private volatile String errorDetail;
+    private volatile boolean restart;//服务器不再支持Range：删除断点重新下载
+
+    SegmentDownloader(DownUpLoadHelper helper, OkHttpHelper okHttpHelper, DownloadFileInfo fileInfo, HttpInfo info) {
+        this.helper = helper;
+        this.okHttpHelper = okHttpHelper;
+        this.fileInfo = fileInfo;
+        this.info = info;
+        this.tempFile = new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt());
+        this.stateFile = stateFile(fileInfo);
+        this.metaFile = DownUpLoadHelper.metaFile(fileInfo);
+    }
+
+    /**
+     * 是否存在分段进度：存在时无论分段数设置如何都按分段继续下载，避免按单线程从预分配的文件末尾续传
+     */
+    static boolean hasState(DownloadFileInfo fileInfo){
+        return stateFile(fileInfo).isFile();
+    }
+
+    private static File stateFile(DownloadFileInfo fileInfo){
+        return new File(fileInfo.getSaveFileDir(),fileInfo.getSaveFileNameEncrypt()+STATE_SUFFIX);
+    }
+
+    /**
+     * 分段下载：服务器文件已变化或不再支持Range时删除断点重新下载一次
+     * @param segmentCount 分段数
+     * @return 下载结果，返回null时按单线程下载
+     */
+    HttpInfo download(int segmentCount){
+        HttpInfo result = attempt(segmentCount);
+        if(restart && DownloadStatus.DOWNLOADING.equals(fileInfo.getDownloadStatus())){
+            helper.showLog("分段下载: 服务器文件已变化，重新下载");
+            reset();
+            result = attempt(segmentCount);
+        }
+        return result;
+    }
+
+    private HttpInfo attempt(int segmentCount){
+        OkHttpClient client = okHttpHelper.getClientBuilder().build();
+        try {
+            state = SegmentState.read(stateFile);
+            meta = DownloadMeta.read(metaFile);
+            if(null == state && stateFile.isFile()
+                    || null != state && null != meta && !meta.matchesLength(state.contentLength)){
+                //分段文件无效或与元数据不一致：重新下载
+                deleteFiles();
+                state = null;
+            }
+            if(null == state){
+                //断点文件来自单线程下载
+                if(tempFile.isFile() && tempFile.length() > 0)
+                    return null;
+                long contentLength = probe(client);
+                if(contentLength < MIN_SEGMENT_SIZE * 2){
+                    helper.showLog("分段下载: 不支持分段["+contentLength+"]，采用单线程下载");
+                    return null;
+                }
+                int count = (int) Math.min(segmentCount, contentLength / MIN_SEGMENT_SIZE);
+                state = SegmentState.split(contentLength,count);
+                //先保存分段进度再分配文件：分配后中断时不会留下没有分段进度的完整长度断点文件
+                state.write(stateFile);
+                if(null != meta)
+                    meta.write(metaFile);
+                RandomAccessFile accessFile = new RandomAccessFile(tempFile,"rw");
+                try {
+                    accessFile.setLength(contentLength);
+                } finally {
+                    accessFile.close();
+                }
+            }
+        } catch (IOException e){
+            helper.showLog("分段下载: 探测失败 "+e.getMessage()+"，采用单线程下载");
+            return null;
+        }
+        return fetch(client);
+    }
+
+    /**
+     * 探测文件长度与Range支持
+     * @return 文件长度，不支持分段时返回-1
+     */
+    private long probe(OkHttpClient client) throws IOException {
+        Request.Builder requestBuilder = new Request.Builder().url(fileInfo.getUrl()).head();
+        helper.addHeadsToRequest(info,requestBuilder);
+        Response res = client.newCall(requestBuilder.build()).execute();
+        try {
+            if(!res.isSuccessful() || !"bytes".equalsIgnoreCase(res.header("Accept-Ranges")))
+                return -1;
+            String length = res.header("Content-Length");
+            long contentLength = null == length ? -1 : Long.parseLong(length.trim());
+            meta = DownloadMeta.from(res,contentLength);
+            return contentLength;
+        } catch (NumberFormatException e){
+            return -1;
+        } finally {
+            res.close();
+        }
+    }
+
+    /**
+     * 并行下载未完成的分段并等待全部结束
+     */
+    private HttpInfo fetch(OkHttpClient client){
+        final int count = state.count();
+        completedSize.set(state.completedSize());
+        fileInfo.setCompletedSize(completedSize.get());
+        fileInfo.setDownloadStatus(DownloadStatus.DOWNLOADING);
+        helper.showLog("分段下载: "+count+"段，节点["+completedSize.get()+"/"+state.contentLength+"]");
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if(state.remaining(i) > 0)
+                pending.add(i);
+        }
+        latch = new CountDownLatch(pending.size());
+        for(final int index : pending){
+            Request.Builder requestBuilder = new Request.Builder()
+                    .url(fileInfo.getUrl())
+                    .header("RANGE","bytes="+state.position(index)+"-"+state.ends[index]);
+            //校验服务器文件是否变化：文件变化时服务器返回完整文件
+            if(null != meta && null != meta.ifRange())
+                requestBuilder.header("If-Range",meta.ifRange());
+            helper.addHeadsToRequest(info,requestBuilder);
+            Call call = client.newCall(requestBuilder.build());
+            synchronized (calls){
+                calls.add(call);
+            }
+            CallRegistry.putCall(helper.requestTag,call);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    fail(e);
+                    CallRegistry.cancel(helper.requestTag,call);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onResponse(Call call, Response res) {
+                    try {
+                        writeSegment(index,res);
+                    } catch (IOException e){
+                        fail(e);
+                    } finally {
+                        res.close();
+                        CallRegistry.cancel(helper.requestTag,call);
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            cancel();
+            Thread.currentThread().interrupt();
+            fail(new SocketException("interrupted"));
+        }
+        fileInfo.setCompletedSize(completedSize.get());
+        if(restart){
+            deleteFiles();
+            return helper.retInfo(info,errorCode,errorDetail);
+        }
+        saveState();
+        if(state.completedSize() == state.contentLength){
+            if(!stateFile.delete())
+                helper.showLog("分段下载: 删除分段文件失败");
+            String filePath = helper.completeDownload(fileInfo);
+            return helper.retInfo(info,HttpInfo.SUCCESS,filePath);
+        }
+        if(DownloadStatus.PAUSE.equals(fileInfo.getDownloadStatus()))
+            return helper.retInfo(info,HttpInfo.Message,"暂停下载");
+        return helper.retInfo(info,0 == errorCode ? HttpInfo.ConnectionInterruption : errorCode,errorDetail);
+    }
+
+    /**
+     * 下载分段：写入断点文件的对应位置
+     */
+    private void writeSegment(final int index, Response res) throws IOException {
+        ResponseBody body = res.body();
+        long totalLength = DownloadMeta.totalLength(res);
+        if(res.code() != 206 || null == body || (totalLength >= 0 && totalLength != state.contentLength)){
+            //服务器文件已变化或不再支持Range
+            restart = true;
+            errorCode = HttpInfo.ConnectionInterruption;
+            errorDetail = "分段下载: 服务器返回["+res.code()+"]，请重新下载";
+            cancel();
+            return ;
+        }
+        BufferedSource source = body.source();
+        DownloadFileWriter writer = null;
+        try {
+            writer = new DownloadFileWriter(tempFile,state.position(index),
+                    helper.downloadBufferSize,helper.downloadCheckpointSize);
+            //分段进度只记录已同步到存储的位置
+            writer.setCheckpointListener(new DownloadFileWriter.CheckpointListener() {
+                @Override
+                public void onCheckpoint(long position) {
+                    state.checkpoint(index,position);
+                    saveState();
+                }
+            });
+            long remaining = state.remaining(index);
+            int length;
+            //数据从Okio缓冲直接写入文件缓冲区
+            while (remaining > 0 && DownloadStatus.DOWNLOADING.equals(fileInfo.getDownloadStatus())
+                    && (length = writer.transferFrom(source,remaining)) > 0){
+                remaining -= length;
+                onProgress(length);
+            }
+        } finally {
+            source.close();
+            if(null != writer)
+                writer.close();
+        }
+    }
+
+    private void onProgress(int length){
+        long completed = completedSize.addAndGet(length);
+        ProgressCallback progressCallback = fileInfo.getProgressCallback();
+        if(null == progressCallback)
+            return ;
+        long contentLength = state.contentLength;
+        int percent = (int) ((100 * completed) / contentLength);
+        int last = lastPercent.get();
+        //每处理1%则立即回调
+        if(percent > last && lastPercent.compareAndSet(last,percent)){
+            boolean done = completed == contentLength;
+            progressCallback.onProgressAsync(percent,completed,contentLength,done);
+            OkMainHandler.getInstance().sendMessage(new ProgressMessage(OkMainHandler.PROGRESS_CALLBACK,
+                    progressCallback,percent,completed,contentLength,done,helper.requestTag));
+        }
+    }
+
+    private void fail(IOException e){
+        if(0 != errorCode)
+            return ;
+        if(e instanceof SocketTimeoutException){
+            errorCode = HttpInfo.WriteAndReadTimeOut;
+        }else{
+            errorCode = HttpInfo.ConnectionInterruption;
+            errorDetail = e.getMessage();
+        }
+        helper.showLog("分段下载异常："+e.getMessage());
+        //一段失败时取消其他分段，保留已下载的进度
+        cancel();
+    }
+
+    private void cancel(){
+        synchronized (calls){
+            for(Call call : calls){
+                if(!call.isCanceled())
+                    call.cancel();
+            }
+        }
+    }
+
+    private synchronized void saveState(){
+        try {
+            state.write(stateFile);
+        } catch (IOException e){
+            helper.showLog("分段下载: 保存分段进度失败 "+e.getMessage());
+        }
+    }
+
+    private void deleteFiles(){
+        if(!DownUpLoadHelper.deleteDownloadFiles(fileInfo))
+            helper.showLog("分段下载: 删除断点文件失败");
+    }
+
+    private void reset(){
+        state = null;
+        meta = null;
+        synchronized (calls){
+            calls.clear();
+        }
+        completedSize.set(0);
+        lastPercent.set(-1);
+        errorCode = 0;
+        errorDetail = null;
+        restart = false;
+    }
+
+    /**
+     * 分段进度：每段的起止位置（包含）与已下载字节数
+     */
+    static final class SegmentState {
+
+        final long contentLength;
+        final long[] starts;
+        final long[] ends;
+        final AtomicLongArray downloaded;
+
+        private SegmentState(long contentLength, long[] starts, long[] ends, AtomicLongArray downloaded) {
+            this.contentLength = contentLength;
+            this.starts = starts;
+            this.ends = ends;
+            this.downloaded = downloaded;
+        }
+
+        /**
+         * 平均分段：余数由最后一段下载
+         */
+        static SegmentState split(long contentLength, int count){
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            long size = contentLength / count;
+            for (int i = 0; i < count; i++) {
+                starts[i] = i * size;
+                ends[i] = i == count - 1 ? contentLength - 1 : (i + 1) * size - 1;
+            }
+            return new SegmentState(contentLength,starts,ends,new AtomicLongArray(count));
+        }
+
+        int count(){
+            return starts.length;
+        }
+
+        long position(int index){
+            return starts[index] + downloaded.get(index);
+        }
+
+        long remaining(int index){
+            return ends[index] - position(index) + 1;
+        }
+
+        /**
+         * 检查点：分段已同步到存储的文件位置
+         */
+        void checkpoint(int index, long position){
+            downloaded.set(index,position - starts[index]);
+        }
+
+        long completedSize(){
+            long size = 0;
+            for (int i = 0; i < downloaded.length(); i++) {
+                size += downloaded.get(i);
+            }
+            return size;
+        }
+
+        /**
+         * 保存分段进度：先写入临时文件再重命名，避免中断时分段文件不完整
+         */
+        void write(File file) throws IOException {
+            File temp = new File(file.getPath()+".tmp");
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+            try {
+                out.writeInt(STATE_VERSION);
+                out.writeLong(contentLength);
+                out.writeInt(count());
+                for (int i = 0; i < count(); i++) {
+                    out.writeLong(starts[i]);
+                    out.writeLong(ends[i]);
+                    out.writeLong(downloaded.get(i));
+                }
+            } finally {
+                out.close();
+            }
+            if(!temp.renameTo(file))
+                throw new IOException("rename failed: "+file);
+        }
+
+        /**
+         * 读取分段进度
+         * @return 分段文件不存在或无效时返回null
+         */
+        static SegmentState read(File file){
+            if(!file.isFile())
+                return null;
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new FileInputStream(file));
+                if(in.readInt() != STATE_VERSION)
+                    return null;
+                long contentLength = in.readLong();
+                int count = in.readInt();
+                if(contentLength <= 0 || count <= 0)
+                    return null;
+                long[] starts = new long[count];
+                long[] ends = new long[count];
+                AtomicLongArray downloaded = new AtomicLongArray(count);
+                for (int i = 0; i < count; i++) {
+                    starts[i] = in.readLong();
+                    ends[i] = in.readLong();
+                    long size = in.readLong();
+                    if(size < 0 || starts[i] + size > ends[i] + 1)
+                        return null;
+                    downloaded.set(i,size);
+                }
+                return new SegmentState(contentLength,starts,ends,downloaded);
+            } catch (IOException e){
+                return null;
+            } finally {
+                if(null != in){
+                    try {
+                        in.close();
+                    } catch (IOException e){
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+}
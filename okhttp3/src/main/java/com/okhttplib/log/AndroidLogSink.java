@@ -0,0 +1,18 @@
+package com.okhttplib.log;
+
+import android.util.Log;
+
+import com.okhttplib.annotation.LogLevel;
+
+/**
+ * Android日志输出：android.util.Log
+ * @author zhousf
+ */
+public class AndroidLogSink implements LogSink {
+
+    @Override
+    public void log(@LogLevel int level, String tag, String msg) {
+        Log.println(level,tag,msg);
+    }
+
+}
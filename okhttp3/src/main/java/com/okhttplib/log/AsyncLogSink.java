@@ -0,0 +1,145 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志输出：日志事件写入有界无锁环形缓冲区后立即返回，由后台线程写入LogEventWriter
+ * 缓冲区满时丢弃日志并计数，网络线程不会因写日志而阻塞
+ * @author zhousf
+ */
+public class AsyncLogSink implements LogSink {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LogRingBuffer ringBuffer;
+    private final LogEventWriter writer;
+    private final int maxMessageLength;
+    private final Thread writerThread;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile boolean waiting;
+
+    /**
+     * @param capacity 缓冲区容量（条）
+     * @param maxMessageLength 日志信息（如响应内容）最大长度，超出部分截断，小于0时不截断
+     * @param writer 日志事件输出
+     */
+    public AsyncLogSink(int capacity, int maxMessageLength, LogEventWriter writer) {
+        if(null == writer)
+            throw new NullPointerException("writer == null");
+        this.ringBuffer = new LogRingBuffer(capacity);
+        this.maxMessageLength = maxMessageLength;
+        this.writer = writer;
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        },"OkHttp LogWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void log(@LogLevel int level, String tag, String msg) {
+        logEvent(LogEvent.message(level,tag,msg));
+    }
+
+    /**
+     * 写入结构化日志事件：不阻塞，缓冲区满或已关闭时丢弃
+     * @return 是否写入成功
+     */
+    public boolean logEvent(LogEvent event){
+        if(!running || !ringBuffer.offer(event.truncate(maxMessageLength))){
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        if(waiting)
+            LockSupport.unpark(writerThread);
+        return true;
+    }
+
+    private void drainLoop(){
+        while (running || !ringBuffer.isEmpty()){
+            LogEvent event = ringBuffer.poll();
+            if(null == event){
+                flushWriter();
+                waiting = true;
+                if(running && ringBuffer.isEmpty())
+                    LockSupport.parkNanos(this,PARK_NANOS);
+                waiting = false;
+                continue;
+            }
+            try {
+                writer.write(event);
+                writtenCount.incrementAndGet();
+            } catch (IOException | RuntimeException e){
+                failedCount.incrementAndGet();
+            }
+        }
+        flushWriter();
+        try {
+            writer.close();
+        } catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+    private void flushWriter(){
+        try {
+            writer.flush();
+        } catch (IOException | RuntimeException e){
+            failedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 关闭：不再接收新的日志，后台线程写完缓冲区中的日志后关闭输出
+     * @param timeout 等待写完的最长时间（毫秒）
+     */
+    public void shutdown(long timeout){
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(timeout);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 缓冲区满被丢弃的日志数量
+     */
+    public long getDroppedCount(){
+        return droppedCount.get();
+    }
+
+    /**
+     * 已写入的日志数量
+     */
+    public long getWrittenCount(){
+        return writtenCount.get();
+    }
+
+    /**
+     * 写入失败的次数
+     */
+    public long getFailedCount(){
+        return failedCount.get();
+    }
+
+    /**
+     * 缓冲区中待写入的日志数量
+     */
+    public int getPendingCount(){
+        return ringBuffer.size();
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+
+/**
+ * 控制台日志输出：JVM中的默认输出，WARN及以上级别输出到标准错误
+ * @author zhousf
+ */
+public class ConsoleLogSink implements LogSink {
+
+    private static final String[] LEVELS = {"", "", "V", "D", "I", "W", "E", "A"};
+
+    @Override
+    public void log(@LogLevel int level, String tag, String msg) {
+        String label = level >= 0 && level < LEVELS.length ? LEVELS[level] : String.valueOf(level);
+        String line = label + "/" + tag + ": " + msg;
+        if(level >= LogLevel.WARN){
+            System.err.println(line);
+        }else{
+            System.out.println(line);
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+
+/**
+ * 结构化日志事件
+ * 普通日志只有tag与message，请求日志包含请求标识、请求方式、地址、状态码、耗时、请求及响应大小
+ * @author zhousf
+ */
+public final class LogEvent {
+
+    private final long time;//日志时间（毫秒）
+    private final @LogLevel int level;//日志级别
+    private final String tag;//日志标识
+    private final String message;//日志信息
+    private final String requestId;//请求标识
+    private final String method;//请求方式
+    private final String url;//请求地址
+    private final int status;//响应状态码
+    private final long costTime;//耗时（毫秒）
+    private final long requestBytes;//请求大小，未知为-1
+    private final long responseBytes;//响应大小，未知为-1
+
+    private LogEvent(Builder builder) {
+        this.time = builder.time;
+        this.level = builder.level;
+        this.tag = builder.tag;
+        this.message = builder.message;
+        this.requestId = builder.requestId;
+        this.method = builder.method;
+        this.url = builder.url;
+        this.status = builder.status;
+        this.costTime = builder.costTime;
+        this.requestBytes = builder.requestBytes;
+        this.responseBytes = builder.responseBytes;
+    }
+
+    public static Builder Builder() {
+        return new Builder();
+    }
+
+    /**
+     * 普通日志事件
+     */
+    static LogEvent message(@LogLevel int level, String tag, String message){
+        return new Builder().setLevel(level).setTag(tag).setMessage(message).build();
+    }
+
+    /**
+     * 截断日志信息
+     * @param maxLength 最大长度
+     */
+    LogEvent truncate(int maxLength){
+        if(null == message || maxLength < 0 || message.length() <= maxLength)
+            return this;
+        Builder builder = new Builder(this);
+        builder.message = message.substring(0,maxLength) + "...(" + message.length() + " chars)";
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private long time = System.currentTimeMillis();
+        private @LogLevel int level = LogLevel.DEBUG;
+        private String tag;
+        private String message;
+        private String requestId;
+        private String method;
+        private String url;
+        private int status;
+        private long costTime = -1;
+        private long requestBytes = -1;
+        private long responseBytes = -1;
+
+        public Builder() {
+        }
+
+        private Builder(LogEvent event) {
+            this.time = event.time;
+            this.level = event.level;
+            this.tag = event.tag;
+            this.message = event.message;
+            this.requestId = event.requestId;
+            this.method = event.method;
+            this.url = event.url;
+            this.status = event.status;
+            this.costTime = event.costTime;
+            this.requestBytes = event.requestBytes;
+            this.responseBytes = event.responseBytes;
+        }
+
+        public LogEvent build(){
+            return new LogEvent(this);
+        }
+
+        public Builder setLevel(@LogLevel int level) {
+            this.level = level;
+            return this;
+        }
+
+        public Builder setTag(String tag) {
+            this.tag = tag;
+            return this;
+        }
+
+        public Builder setMessage(String message) {
+            this.message = message;
+            return this;
+        }
+
+        public Builder setRequestId(String requestId) {
+            this.requestId = requestId;
+            return this;
+        }
+
+        public Builder setMethod(String method) {
+            this.method = method;
+            return this;
+        }
+
+        public Builder setUrl(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder setStatus(int status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder setCostTime(long costTime) {
+            this.costTime = costTime;
+            return this;
+        }
+
+        public Builder setRequestBytes(long requestBytes) {
+            this.requestBytes = requestBytes;
+            return this;
+        }
+
+        public Builder setResponseBytes(long responseBytes) {
+            this.responseBytes = responseBytes;
+            return this;
+        }
+    }
+
+    /**
+     * 是否为请求日志
+     */
+    public boolean isRequest(){
+        return null != url;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public @LogLevel int getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getCostTime() {
+        return costTime;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        if(null != requestId)
+            builder.append('[').append(requestId).append("] ");
+        if(isRequest()){
+            builder.append(method).append(' ').append(url)
+                    .append(" status=").append(status)
+                    .append(" cost=").append(costTime).append("ms")
+                    .append(" req=").append(requestBytes)
+                    .append(" res=").append(responseBytes);
+            if(null != message)
+                builder.append(' ');
+        }
+        if(null != message)
+            builder.append(message);
+        return builder.toString();
+    }
+
+}
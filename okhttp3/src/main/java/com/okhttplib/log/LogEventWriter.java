@@ -0,0 +1,26 @@
+package com.okhttplib.log;
+
+import java.io.IOException;
+
+/**
+ * 日志事件输出接口：由AsyncLogSink的后台线程调用
+ * @author zhousf
+ */
+public interface LogEventWriter {
+
+    /**
+     * 写入日志事件
+     */
+    void write(LogEvent event) throws IOException;
+
+    /**
+     * 缓冲区已取空时调用：将已写入的日志刷新到存储
+     */
+    void flush() throws IOException;
+
+    /**
+     * 关闭
+     */
+    void close() throws IOException;
+
+}
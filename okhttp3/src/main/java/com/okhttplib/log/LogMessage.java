@@ -0,0 +1,11 @@
+package com.okhttplib.log;
+
+/**
+ * 延迟生成的日志信息：日志关闭时不会调用，避免拼接字符串
+ * @author zhousf
+ */
+public interface LogMessage {
+
+    String get();
+
+}
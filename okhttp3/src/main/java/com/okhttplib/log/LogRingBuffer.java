@@ -0,0 +1,87 @@
+package com.okhttplib.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区：多生产者单消费者
+ * 每个槽位带序号，生产者通过CAS抢占写入位置，缓冲区满时立即返回失败而不阻塞
+ * @author zhousf
+ */
+final class LogRingBuffer {
+
+    private final AtomicReferenceArray<LogEvent> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();//下一个写入位置
+    private volatile long head;//下一个读取位置（仅消费者线程修改）
+
+    /**
+     * @param capacity 容量：向上取整为2的幂
+     */
+    LogRingBuffer(int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("capacity must be > 0");
+        int size = 1;
+        while (size < capacity){
+            size <<= 1;
+        }
+        buffer = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i,i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 写入：缓冲区满时返回false
+     */
+    boolean offer(LogEvent event){
+        long position;
+        int index;
+        for (;;){
+            position = tail.get();
+            index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if(diff == 0){
+                if(tail.compareAndSet(position,position + 1))
+                    break;
+            }else if(diff < 0){
+                return false;
+            }
+        }
+        buffer.lazySet(index,event);
+        sequences.set(index,position + 1);
+        return true;
+    }
+
+    /**
+     * 读取：仅由消费者线程调用，缓冲区为空时返回null
+     */
+    LogEvent poll(){
+        long position = head;
+        int index = (int) (position & mask);
+        if(sequences.get(index) != position + 1)
+            return null;
+        LogEvent event = buffer.get(index);
+        buffer.lazySet(index,null);
+        sequences.set(index,position + mask + 1);
+        head = position + 1;
+        return event;
+    }
+
+    boolean isEmpty(){
+        return tail.get() == head;
+    }
+
+    int size(){
+        return (int) (tail.get() - head);
+    }
+
+    int capacity(){
+        return mask + 1;
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+
+/**
+ * 日志输出接口：可替换为文件、异步队列等输出方式
+ * @author zhousf
+ */
+public interface LogSink {
+
+    /**
+     * 输出日志：只有通过级别检查的日志才会调用该方法
+     * @param level 日志级别
+     * @param tag 日志标识
+     * @param msg 日志信息
+     */
+    void log(@LogLevel int level, String tag, String msg);
+
+}
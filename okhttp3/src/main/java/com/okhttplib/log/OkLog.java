@@ -0,0 +1,93 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+import com.okhttplib.platform.Platform;
+
+/**
+ * 日志门面：先检查日志级别再生成日志信息，日志关闭时请求链路上不产生任何日志开销
+ * 使用方式：
+ * if(OkLog.isLoggable(LogLevel.DEBUG)) OkLog.d(tag, "Url: "+url);
+ * 或 OkLog.d(tag, message) 其中message为LogMessage，日志关闭时不会调用
+ * @author zhousf
+ */
+public final class OkLog {
+
+    private static volatile int level = LogLevel.DEBUG;
+
+    private static volatile LogSink sink = Platform.defaultLogSink();
+
+    private OkLog() {
+    }
+
+    /**
+     * 设置日志级别（默认：DEBUG），低于该级别的日志不输出，LogLevel.NONE关闭所有日志
+     */
+    public static void setLevel(@LogLevel int level){
+        OkLog.level = level;
+    }
+
+    public static @LogLevel int getLevel(){
+        return level;
+    }
+
+    /**
+     * 设置日志输出（默认：android.util.Log），为null时关闭所有日志
+     */
+    public static void setSink(LogSink sink){
+        OkLog.sink = sink;
+    }
+
+    public static LogSink getSink(){
+        return sink;
+    }
+
+    /**
+     * 该级别的日志是否输出：拼接日志信息前先调用该方法
+     */
+    public static boolean isLoggable(@LogLevel int level){
+        return level >= OkLog.level && null != sink;
+    }
+
+    public static void log(@LogLevel int level, String tag, String msg){
+        LogSink logSink = sink;
+        if(level >= OkLog.level && null != logSink)
+            logSink.log(level,tag,msg);
+    }
+
+    public static void log(@LogLevel int level, String tag, LogMessage message){
+        LogSink logSink = sink;
+        if(level >= OkLog.level && null != logSink)
+            logSink.log(level,tag,message.get());
+    }
+
+    /**
+     * 输出结构化日志事件：异步日志输出直接写入环形缓冲区，其他日志输出转换为文本
+     */
+    public static void event(LogEvent event){
+        LogSink logSink = sink;
+        if(event.getLevel() >= OkLog.level && null != logSink){
+            if(logSink instanceof AsyncLogSink){
+                ((AsyncLogSink)logSink).logEvent(event);
+            }else{
+                logSink.log(event.getLevel(),event.getTag(),event.toString());
+            }
+        }
+    }
+
+    public static void d(String tag, String msg){
+        log(LogLevel.DEBUG,tag,msg);
+    }
+
+    public static void d(String tag, LogMessage message){
+        log(LogLevel.DEBUG,tag,message);
+    }
+
+    public static void w(String tag, String msg){
+        log(LogLevel.WARN,tag,msg);
+    }
+
+    public static void e(String tag, String msg){
+        log(LogLevel.ERROR,tag,msg);
+    }
+
+}
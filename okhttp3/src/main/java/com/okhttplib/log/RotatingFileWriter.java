@@ -0,0 +1,106 @@
+package com.okhttplib.log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 滚动日志文件：当前文件超过最大大小时重命名为file.1，原file.1重命名为file.2，以此类推，
+ * 超出保留数量的文件被删除
+ * 仅由AsyncLogSink的后台线程调用，非线程安全
+ * @author zhousf
+ */
+public class RotatingFileWriter implements LogEventWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[] LEVELS = {"", "", "V", "D", "I", "W", "E", "A", ""};
+
+    private final File file;
+    private final long maxFileSize;
+    private final int maxBackupCount;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    private final Date date = new Date();
+    private final StringBuilder line = new StringBuilder(256);
+    private OutputStream out;
+    private long fileSize;
+
+    /**
+     * @param file 日志文件
+     * @param maxFileSize 单个文件最大大小（字节）
+     * @param maxBackupCount 保留的历史文件数量
+     */
+    public RotatingFileWriter(File file, long maxFileSize, int maxBackupCount) {
+        if(maxFileSize <= 0)
+            throw new IllegalArgumentException("maxFileSize must be > 0");
+        if(maxBackupCount < 0)
+            throw new IllegalArgumentException("maxBackupCount must be >= 0");
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxBackupCount = maxBackupCount;
+    }
+
+    @Override
+    public void write(LogEvent event) throws IOException {
+        date.setTime(event.getTime());
+        line.setLength(0);
+        int level = event.getLevel();
+        line.append(dateFormat.format(date)).append(' ')
+                .append(level >= 0 && level < LEVELS.length ? LEVELS[level] : "").append('/')
+                .append(event.getTag()).append(": ")
+                .append(event.toString()).append('\n');
+        byte[] bytes = line.toString().getBytes(UTF_8);
+        if(null == out){
+            open();
+        }else if(fileSize + bytes.length > maxFileSize && fileSize > 0){
+            rotate();
+        }
+        out.write(bytes);
+        fileSize += bytes.length;
+    }
+
+    private void open() throws IOException {
+        File dir = file.getParentFile();
+        if(null != dir && !dir.exists())
+            dir.mkdirs();
+        fileSize = file.length();
+        out = new BufferedOutputStream(new FileOutputStream(file,true),8 * 1024);
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        out = null;
+        if(maxBackupCount == 0){
+            file.delete();
+        }else{
+            new File(file.getPath() + "." + maxBackupCount).delete();
+            for (int i = maxBackupCount - 1; i >= 1; i--) {
+                File backup = new File(file.getPath() + "." + i);
+                if(backup.exists())
+                    backup.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+            file.renameTo(new File(file.getPath() + ".1"));
+        }
+        open();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if(null != out)
+            out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(null != out){
+            out.close();
+            out = null;
+        }
+    }
+
+}
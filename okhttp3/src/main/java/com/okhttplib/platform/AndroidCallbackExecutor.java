@@ -0,0 +1,23 @@
+package com.okhttplib.platform;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Android回调执行器：切换到主线程执行
+ * @author zhousf
+ */
+public class AndroidCallbackExecutor implements CallbackExecutor {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable command) {
+        handler.post(command);
+    }
+
+    static boolean isMainThread(){
+        return Looper.getMainLooper() == Looper.myLooper();
+    }
+
+}
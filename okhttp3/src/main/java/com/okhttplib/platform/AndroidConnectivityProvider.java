@@ -0,0 +1,43 @@
+package com.okhttplib.platform;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+import com.okhttplib.OkApplication;
+
+/**
+ * Android网络状态：通过ConnectivityManager判断，无法获取上下文时认为网络可用
+ * @author zhousf
+ */
+public class AndroidConnectivityProvider implements ConnectivityProvider {
+
+    private Context context;
+
+    /**
+     * @param context 上下文，为null时通过反射获取Application
+     */
+    public AndroidConnectivityProvider(Context context) {
+        this.context = context;
+    }
+
+    private Context getContext(){
+        if(null == context)
+            context = OkApplication.getContext();
+        return context;
+    }
+
+    @Override
+    @SuppressWarnings("all")
+    public boolean isNetworkAvailable() {
+        Context context = getContext();
+        if(null == context)
+            return true;
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if(null == cm)
+            return true;
+        NetworkInfo net = cm.getActiveNetworkInfo();
+        return net != null && net.getState() == NetworkInfo.State.CONNECTED;
+    }
+
+}
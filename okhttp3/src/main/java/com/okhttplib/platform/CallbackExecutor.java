@@ -0,0 +1,24 @@
+package com.okhttplib.platform;
+
+/**
+ * 回调执行器：决定请求结果、进度等回调在哪个线程执行
+ * @author zhousf
+ */
+public interface CallbackExecutor {
+
+    /**
+     * 直接在当前线程（请求线程）执行
+     */
+    CallbackExecutor DIRECT = new CallbackExecutor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 执行回调
+     */
+    void execute(Runnable command);
+
+}
@@ -0,0 +1,24 @@
+package com.okhttplib.platform;
+
+/**
+ * 网络状态：用于区分无网络与地址错误，以及缓存策略中判断是否读取缓存
+ * @author zhousf
+ */
+public interface ConnectivityProvider {
+
+    /**
+     * 始终认为网络可用
+     */
+    ConnectivityProvider ALWAYS_AVAILABLE = new ConnectivityProvider() {
+        @Override
+        public boolean isNetworkAvailable() {
+            return true;
+        }
+    };
+
+    /**
+     * 网络是否可用
+     */
+    boolean isNetworkAvailable();
+
+}
@@ -0,0 +1,84 @@
+package com.okhttplib.platform;
+
+import com.okhttplib.log.AndroidLogSink;
+import com.okhttplib.log.ConsoleLogSink;
+import com.okhttplib.log.LogSink;
+
+/**
+ * 运行平台：回调线程、网络状态与日志输出均通过接口提供，请求链路不直接依赖Android类型
+ * Android中回调切换到主线程、通过ConnectivityManager判断网络、日志输出到Logcat；
+ * JVM中（单元测试、基准测试、压测）回调在请求线程中执行、网络始终可用、日志输出到控制台
+ * @author zhousf
+ */
+public final class Platform {
+
+    private static final boolean ANDROID = "Dalvik".equals(System.getProperty("java.vm.name"));
+
+    private static volatile CallbackExecutor callbackExecutor;
+    private static volatile ConnectivityProvider connectivityProvider;
+
+    private Platform() {
+    }
+
+    /**
+     * 是否运行在Android中
+     */
+    public static boolean isAndroid(){
+        return ANDROID;
+    }
+
+    /**
+     * 当前线程是否为Android主线程
+     */
+    public static boolean isMainThread(){
+        return ANDROID && AndroidCallbackExecutor.isMainThread();
+    }
+
+    public static CallbackExecutor getCallbackExecutor(){
+        CallbackExecutor executor = callbackExecutor;
+        if(null == executor){
+            synchronized (Platform.class){
+                if(null == callbackExecutor)
+                    callbackExecutor = ANDROID ? new AndroidCallbackExecutor() : CallbackExecutor.DIRECT;
+                executor = callbackExecutor;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 设置回调执行器
+     * @param executor 为null时恢复平台默认
+     */
+    public static void setCallbackExecutor(CallbackExecutor executor){
+        callbackExecutor = executor;
+    }
+
+    public static ConnectivityProvider getConnectivityProvider(){
+        ConnectivityProvider provider = connectivityProvider;
+        if(null == provider){
+            synchronized (Platform.class){
+                if(null == connectivityProvider)
+                    connectivityProvider = ANDROID ? new AndroidConnectivityProvider(null) : ConnectivityProvider.ALWAYS_AVAILABLE;
+                provider = connectivityProvider;
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * 设置网络状态
+     * @param provider 为null时恢复平台默认
+     */
+    public static void setConnectivityProvider(ConnectivityProvider provider){
+        connectivityProvider = provider;
+    }
+
+    /**
+     * 平台默认日志输出
+     */
+    public static LogSink defaultLogSink(){
+        return ANDROID ? new AndroidLogSink() : new ConsoleLogSink();
+    }
+
+}
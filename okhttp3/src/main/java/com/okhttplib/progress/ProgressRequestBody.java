@@ -1,7 +1,5 @@
 package com.okhttplib.progress;
 
-import android.os.Message;
-
 import com.okhttplib.bean.ProgressMessage;
 import com.okhttplib.callback.ProgressCallback;
 import com.okhttplib.handler.OkMainHandler;
@@ -76,13 +74,12 @@ public class ProgressRequestBody extends RequestBody {
                         lastPercent = percent;
                         progressCallback.onProgressAsync(percent, bytesWritten, contentLength, bytesWritten == contentLength);
                         //主线程回调
-                        Message msg = new ProgressMessage(OkMainHandler.PROGRESS_CALLBACK,
+                        ProgressMessage msg = new ProgressMessage(OkMainHandler.PROGRESS_CALLBACK,
                                 progressCallback,
                                 percent,
                                 bytesWritten,
                                 contentLength,
-                                bytesWritten == contentLength,requestTag)
-                                .build();
+                                bytesWritten == contentLength,requestTag);
                         OkMainHandler.getInstance().sendMessage(msg);
                     }
                 }
@@ -1,13 +1,12 @@
 package com.okhttplib.progress;
 
 
-import android.os.Message;
-import android.util.Log;
-
+import com.okhttplib.annotation.LogLevel;
 import com.okhttplib.bean.DownloadFileInfo;
 import com.okhttplib.bean.ProgressMessage;
 import com.okhttplib.callback.ProgressCallback;
 import com.okhttplib.handler.OkMainHandler;
+import com.okhttplib.log.OkLog;
 
 import java.io.IOException;
 
@@ -68,8 +67,9 @@ public class ProgressResponseBody extends ResponseBody{
                 long bytesRead = super.read(sink, byteCount);
                 if(totalBytesRead == 0){
                     totalBytesRead = downloadFileInfo.getCompletedSize();
-                    Log.d(requestTag+"["+timeStamp+"]","从节点["+totalBytesRead+"]开始下载"
-                            +downloadFileInfo.getSaveFileNameWithExtension());
+                    if(OkLog.isLoggable(LogLevel.DEBUG))
+                        OkLog.d(requestTag+"["+timeStamp+"]","从节点["+totalBytesRead+"]开始下载"
+                                +downloadFileInfo.getSaveFileNameWithExtension());
                 }
                 if (contentLength == 0) {
                     //文件总长度=当前需要下载长度+已完成长度
@@ -85,13 +85,12 @@ public class ProgressResponseBody extends ResponseBody{
                         lastPercent = percent;
                         progressCallback.onProgressAsync(percent, totalBytesRead,contentLength,totalBytesRead == -1);
                         //主线程回调
-                        Message msg = new ProgressMessage(OkMainHandler.PROGRESS_CALLBACK,
+                        ProgressMessage msg = new ProgressMessage(OkMainHandler.PROGRESS_CALLBACK,
                                 progressCallback,
                                 percent,
                                 totalBytesRead,
                                 contentLength,
-                                bytesRead == -1,requestTag)
-                                .build();
+                                bytesRead == -1,requestTag);
                         OkMainHandler.getInstance().sendMessage(msg);
                     }
                 }
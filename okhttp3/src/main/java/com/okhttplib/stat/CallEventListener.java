@@ -0,0 +1,164 @@
+package com.okhttplib.stat;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 请求事件监听：统计连接上的流（请求）数量，记录请求各阶段耗时并按主机汇总
+ * @author zhousf
+ */
+public class CallEventListener extends EventListener {
+
+    /**
+     * 监听工厂：每个请求创建一个监听，请求通过tag(CallTiming.class)绑定的耗时对象记录各阶段耗时
+     */
+    public static final Factory FACTORY = new Factory() {
+        @Override
+        public EventListener create(Call call) {
+            CallTiming timing = call.request().tag(CallTiming.class);
+            return new CallEventListener(null == timing ? new CallTiming() : timing);
+        }
+    };
+
+    private final CallTiming timing;
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long requestBase;
+    private long requestEnd;
+    private long responseBodyStart;
+    private boolean connectStarted;//本次请求是否建立过新连接
+
+    CallEventListener(CallTiming timing) {
+        this.timing = timing;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+        timing.host = call.request().url().host();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        timing.dnsNanos = CallTiming.add(timing.dnsNanos,System.nanoTime() - dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+        connectStarted = true;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        timing.tlsNanos = CallTiming.add(timing.tlsNanos,System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        timing.connectNanos = CallTiming.add(timing.connectNanos,System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                              Protocol protocol, IOException ioe) {
+        timing.connectNanos = CallTiming.add(timing.connectNanos,System.nanoTime() - connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        timing.connectionReused = !connectStarted;
+        ConnectionStat.onStreamAcquired(connection);
+    }
+
+    @Override
+    public void connectionReleased(Call call, Connection connection) {
+        ConnectionStat.onStreamReleased(connection);
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+        requestBase = timing.requestNanos == CallTiming.NONE ? 0 : timing.requestNanos;
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        onRequestEnd();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        timing.requestBytes = CallTiming.add(timing.requestBytes,byteCount);
+        onRequestEnd();
+    }
+
+    /**
+     * 请求发送完成：有请求体时以请求体发送完成为准
+     */
+    private void onRequestEnd(){
+        requestEnd = System.nanoTime();
+        timing.requestNanos = requestBase + requestEnd - requestStart;
+    }
+
+    /**
+     * 收到响应头：responseHeadersStart在开始等待响应时触发，因此以响应头读取完成计算首字节时间
+     */
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        timing.firstByteNanos = CallTiming.add(timing.firstByteNanos,System.nanoTime() - requestEnd);
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        timing.responseBodyNanos = CallTiming.add(timing.responseBodyNanos,System.nanoTime() - responseBodyStart);
+        timing.responseBytes = CallTiming.add(timing.responseBytes,byteCount);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        finish(false);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        finish(true);
+    }
+
+    private void finish(boolean failed){
+        timing.totalNanos = System.nanoTime() - callStart;
+        timing.failed = failed;
+        timing.complete();
+        HostTimingStat.record(timing);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.okhttplib.stat;
+
+import java.util.Locale;
+
+/**
+ * 请求各阶段耗时：由CallEventListener在请求线程中记录
+ * 时间单位为毫秒，未经历的阶段（如复用连接时的DNS、连接、TLS握手）为-1
+ * 同一请求重试或重定向时各阶段耗时累加
+ * @author zhousf
+ */
+public final class CallTiming {
+
+    static final long NONE = -1;
+
+    String host;//请求主机
+    long dnsNanos = NONE;//DNS解析
+    long connectNanos = NONE;//建立连接（包含TLS握手）
+    long tlsNanos = NONE;//TLS握手
+    long requestNanos = NONE;//发送请求（请求头与请求体）
+    long firstByteNanos = NONE;//请求发送完成到收到响应头（服务器处理时间）
+    long responseBodyNanos = NONE;//读取响应体
+    long totalNanos = NONE;//请求总耗时
+    long requestBytes = NONE;//请求体大小
+    long responseBytes = NONE;//响应体大小
+    boolean connectionReused;//是否复用连接：获取连接时确定，未获取到连接的请求为false
+    boolean failed;//请求是否失败
+    private volatile boolean completed;//请求是否结束
+
+    static long add(long total, long nanos){
+        return total == NONE ? nanos : total + nanos;
+    }
+
+    void complete(){
+        completed = true;
+    }
+
+    private static long toMillis(long nanos){
+        return nanos == NONE ? NONE : nanos / 1000000L;
+    }
+
+    /**
+     * 请求是否结束：结束后各阶段耗时才完整
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    public long getDnsTime() {
+        return toMillis(dnsNanos);
+    }
+
+    public long getConnectTime() {
+        return toMillis(connectNanos);
+    }
+
+    public long getTlsTime() {
+        return toMillis(tlsNanos);
+    }
+
+    public long getRequestTime() {
+        return toMillis(requestNanos);
+    }
+
+    /**
+     * 首字节时间：请求发送完成到收到响应头
+     */
+    public long getFirstByteTime() {
+        return toMillis(firstByteNanos);
+    }
+
+    public long getResponseBodyTime() {
+        return toMillis(responseBodyNanos);
+    }
+
+    public long getTotalTime() {
+        return toMillis(totalNanos);
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%s dns=%dms connect=%dms tls=%dms request=%dms ttfb=%dms body=%dms total=%dms req=%d res=%d reused=%b",
+                host,getDnsTime(),getConnectTime(),getTlsTime(),getRequestTime(),
+                getFirstByteTime(),getResponseBodyTime(),getTotalTime(),
+                requestBytes,responseBytes,connectionReused);
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.okhttplib.stat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * 连接复用统计：
+ * 网络请求使用连接池中已建立的连接记为命中，新建连接记为未命中
+ * 统计每个连接上的并发流数量（HTTP/2多路复用时多个请求共享同一个连接）
+ * @author zhousf
+ */
+public final class ConnectionStat {
+
+    /**
+     * 已使用过的连接：弱引用，连接被连接池回收后自动移除
+     */
+    private static final Map<Connection,Boolean> connectionMap = new WeakHashMap<>();
+
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    private static final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 连接的流统计：弱引用，连接被连接池回收后自动移除
+     */
+    private static final Map<Connection,StreamCount> streamMap = new WeakHashMap<>();
+
+    /**
+     * 所有连接中出现过的最大并发流数量
+     */
+    private static int maxConcurrentStreams;
+
+    private ConnectionStat() {
+    }
+
+    /**
+     * 连接统计拦截器：需添加为网络拦截器
+     */
+    public static final Interceptor INTERCEPTOR = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            record(chain.connection());
+            return chain.proceed(chain.request());
+        }
+    };
+
+    private static void record(Connection connection){
+        if(null == connection)
+            return ;
+        boolean reused;
+        synchronized (connectionMap){
+            reused = null != connectionMap.put(connection,Boolean.TRUE);
+        }
+        if(reused){
+            hitCount.incrementAndGet();
+        }else{
+            missCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 连接上开始一个新的流（请求）：由CallEventListener调用
+     */
+    static void onStreamAcquired(Connection connection){
+        synchronized (streamMap){
+            StreamCount count = streamMap.get(connection);
+            if(null == count){
+                count = new StreamCount(connection);
+                streamMap.put(connection,count);
+            }
+            count.activeStreams++;
+            count.totalStreams++;
+            if(count.activeStreams > count.maxConcurrentStreams)
+                count.maxConcurrentStreams = count.activeStreams;
+            if(count.activeStreams > maxConcurrentStreams)
+                maxConcurrentStreams = count.activeStreams;
+        }
+    }
+
+    /**
+     * 连接上的流（请求）结束：由CallEventListener调用
+     */
+    static void onStreamReleased(Connection connection){
+        synchronized (streamMap){
+            StreamCount count = streamMap.get(connection);
+            if(null != count && count.activeStreams > 0){
+                count.activeStreams--;
+            }
+        }
+    }
+
+    /**
+     * 获取当前所有存活连接的流统计
+     */
+    public static List<StreamCount> getStreamCounts(){
+        List<StreamCount> list = new ArrayList<>();
+        synchronized (streamMap){
+            for(StreamCount count : streamMap.values()){
+                list.add(count.copy());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 所有连接中出现过的最大并发流数量：大于1说明请求在同一个连接上多路复用
+     */
+    public static int getMaxConcurrentStreams(){
+        synchronized (streamMap){
+            return maxConcurrentStreams;
+        }
+    }
+
+    /**
+     * 连接池命中次数（复用已有连接，省去TCP/TLS握手）
+     */
+    public static long getHitCount(){
+        return hitCount.get();
+    }
+
+    /**
+     * 连接池未命中次数（新建连接）
+     */
+    public static long getMissCount(){
+        return missCount.get();
+    }
+
+    /**
+     * 连接池命中率
+     */
+    public static double getHitRate(){
+        long hit = hitCount.get();
+        long total = hit + missCount.get();
+        return total == 0 ? 0d : (double) hit / total;
+    }
+
+    /**
+     * 重置统计
+     */
+    public static void reset(){
+        hitCount.set(0);
+        missCount.set(0);
+        synchronized (streamMap){
+            maxConcurrentStreams = 0;
+        }
+    }
+
+    /**
+     * 单个连接的流统计
+     */
+    public static final class StreamCount {
+
+        private final String route;//连接地址
+        private final String protocol;//协议
+        private int activeStreams;//当前并发流数量
+        private int maxConcurrentStreams;//最大并发流数量
+        private long totalStreams;//累计流数量
+
+        private StreamCount(Connection connection) {
+            this.route = connection.route().socketAddress().toString();
+            this.protocol = connection.protocol().toString();
+        }
+
+        private StreamCount(StreamCount count) {
+            this.route = count.route;
+            this.protocol = count.protocol;
+            this.activeStreams = count.activeStreams;
+            this.maxConcurrentStreams = count.maxConcurrentStreams;
+            this.totalStreams = count.totalStreams;
+        }
+
+        private StreamCount copy(){
+            return new StreamCount(this);
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public String getProtocol() {
+            return protocol;
+        }
+
+        public int getActiveStreams() {
+            return activeStreams;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public long getTotalStreams() {
+            return totalStreams;
+        }
+
+        @Override
+        public String toString() {
+            return protocol+" "+route+" active="+activeStreams
+                    +" max="+maxConcurrentStreams+" total="+totalStreams;
+        }
+    }
+
+}
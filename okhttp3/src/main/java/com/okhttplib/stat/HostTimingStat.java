@@ -0,0 +1,192 @@
+package com.okhttplib.stat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主机汇总请求各阶段耗时：用于判断延迟来自握手、服务器处理还是数据量
+ * @author zhousf
+ */
+public final class HostTimingStat {
+
+    private static final ConcurrentHashMap<String,HostTiming> hostMap = new ConcurrentHashMap<>();
+
+    private HostTimingStat() {
+    }
+
+    /**
+     * 记录请求耗时：由CallEventListener在请求结束时调用
+     */
+    static void record(CallTiming timing){
+        if(null == timing.host)
+            return ;
+        HostTiming hostTiming = hostMap.get(timing.host);
+        if(null == hostTiming){
+            hostTiming = new HostTiming(timing.host);
+            HostTiming previous = hostMap.putIfAbsent(timing.host,hostTiming);
+            if(null != previous)
+                hostTiming = previous;
+        }
+        hostTiming.add(timing);
+    }
+
+    /**
+     * 获取主机的耗时汇总
+     * @return 未请求过该主机时返回null
+     */
+    public static HostTiming getHostTiming(String host){
+        HostTiming hostTiming = hostMap.get(host);
+        return null == hostTiming ? null : hostTiming.copy();
+    }
+
+    /**
+     * 获取所有主机的耗时汇总
+     */
+    public static List<HostTiming> getHostTimings(){
+        List<HostTiming> list = new ArrayList<>();
+        for(HostTiming hostTiming : hostMap.values()){
+            list.add(hostTiming.copy());
+        }
+        return list;
+    }
+
+    /**
+     * 重置统计
+     */
+    public static void reset(){
+        hostMap.clear();
+    }
+
+    /**
+     * 单个主机的耗时汇总：平均耗时只统计经历了该阶段的请求（单位：毫秒）
+     */
+    public static final class HostTiming {
+
+        private final String host;
+        private long callCount;//请求数量
+        private long failedCount;//失败数量
+        private long reusedCount;//复用连接的请求数量
+        private final long[] sums = new long[7];//各阶段耗时总和（纳秒）
+        private final long[] counts = new long[7];//经历各阶段的请求数量
+        private long requestBytes;//请求体总大小
+        private long responseBytes;//响应体总大小
+
+        private static final int DNS = 0;
+        private static final int CONNECT = 1;
+        private static final int TLS = 2;
+        private static final int REQUEST = 3;
+        private static final int FIRST_BYTE = 4;
+        private static final int RESPONSE_BODY = 5;
+        private static final int TOTAL = 6;
+
+        private HostTiming(String host) {
+            this.host = host;
+        }
+
+        private synchronized void add(CallTiming timing){
+            callCount++;
+            if(timing.failed)
+                failedCount++;
+            if(timing.connectionReused)
+                reusedCount++;
+            add(DNS,timing.dnsNanos);
+            add(CONNECT,timing.connectNanos);
+            add(TLS,timing.tlsNanos);
+            add(REQUEST,timing.requestNanos);
+            add(FIRST_BYTE,timing.firstByteNanos);
+            add(RESPONSE_BODY,timing.responseBodyNanos);
+            add(TOTAL,timing.totalNanos);
+            if(timing.requestBytes > 0)
+                requestBytes += timing.requestBytes;
+            if(timing.responseBytes > 0)
+                responseBytes += timing.responseBytes;
+        }
+
+        private void add(int phase, long nanos){
+            if(nanos == CallTiming.NONE)
+                return ;
+            sums[phase] += nanos;
+            counts[phase]++;
+        }
+
+        private synchronized HostTiming copy(){
+            HostTiming copy = new HostTiming(host);
+            copy.callCount = callCount;
+            copy.failedCount = failedCount;
+            copy.reusedCount = reusedCount;
+            System.arraycopy(sums,0,copy.sums,0,sums.length);
+            System.arraycopy(counts,0,copy.counts,0,counts.length);
+            copy.requestBytes = requestBytes;
+            copy.responseBytes = responseBytes;
+            return copy;
+        }
+
+        private double avg(int phase){
+            return counts[phase] == 0 ? 0d : sums[phase] / 1e6d / counts[phase];
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public long getCallCount() {
+            return callCount;
+        }
+
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        public long getReusedCount() {
+            return reusedCount;
+        }
+
+        public double getAvgDnsTime() {
+            return avg(DNS);
+        }
+
+        public double getAvgConnectTime() {
+            return avg(CONNECT);
+        }
+
+        public double getAvgTlsTime() {
+            return avg(TLS);
+        }
+
+        public double getAvgRequestTime() {
+            return avg(REQUEST);
+        }
+
+        public double getAvgFirstByteTime() {
+            return avg(FIRST_BYTE);
+        }
+
+        public double getAvgResponseBodyTime() {
+            return avg(RESPONSE_BODY);
+        }
+
+        public double getAvgTotalTime() {
+            return avg(TOTAL);
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s calls=%d failed=%d reused=%d dns=%.1fms connect=%.1fms tls=%.1fms request=%.1fms ttfb=%.1fms body=%.1fms total=%.1fms req=%d res=%d",
+                    host,callCount,failedCount,reusedCount,getAvgDnsTime(),getAvgConnectTime(),getAvgTlsTime(),
+                    getAvgRequestTime(),getAvgFirstByteTime(),getAvgResponseBodyTime(),getAvgTotalTime(),
+                    requestBytes,responseBytes);
+        }
+    }
+
+}
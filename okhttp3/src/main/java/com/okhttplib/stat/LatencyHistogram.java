@@ -0,0 +1,123 @@
+package com.okhttplib.stat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁耗时直方图：按2的幂分段，每段再均分为8个桶，相对误差不超过12.5%
+ * 记录只需原子自增，不加锁、不分配内存，可在请求线程中直接调用
+ * 记录单位为微秒，超过最大值（约12.7天）时按最大值记录
+ * @author zhousf
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录耗时
+     * @param micros 耗时（微秒）
+     */
+    public void record(long micros){
+        if(micros < 0)
+            micros = 0;
+        else if(micros > MAX_VALUE)
+            micros = MAX_VALUE;
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        long current;
+        do {
+            current = max.get();
+        } while (micros > current && !max.compareAndSet(current,micros));
+    }
+
+    static int bucketIndex(long value){
+        if(value < SUB_COUNT)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+    /**
+     * 桶内最大值
+     */
+    static long bucketUpperBound(int index){
+        if(index < SUB_COUNT)
+            return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long lower = (long) (SUB_COUNT + (index & (SUB_COUNT - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 获取快照：快照期间的并发记录可能只计入部分字段
+     */
+    public Snapshot snapshot(){
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts,total,sum.get(),max.get());
+    }
+
+    /**
+     * 直方图快照（单位：微秒）
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0d : (double) sum / count;
+        }
+
+        /**
+         * 百分位耗时：返回所在桶的上界，不超过最大值
+         * @param percentile 百分位（0-100）
+         */
+        public long getValueAtPercentile(double percentile){
+            if(count == 0)
+                return 0;
+            long rank = (long) Math.ceil(Math.min(100d,Math.max(0d,percentile)) / 100d * count);
+            if(rank < 1)
+                rank = 1;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank)
+                    return Math.min(bucketUpperBound(i),max);
+            }
+            return max;
+        }
+    }
+
+}
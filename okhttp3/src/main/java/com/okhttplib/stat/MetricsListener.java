@@ -0,0 +1,17 @@
+package com.okhttplib.stat;
+
+import java.util.List;
+
+/**
+ * 请求指标导出监听：在导出线程中回调，不能更新UI
+ * @author zhousf
+ */
+public interface MetricsListener {
+
+    /**
+     * 导出指标
+     * @param snapshots 按主机与请求方式汇总的指标快照
+     */
+    void onMetrics(List<MetricsSnapshot> snapshots);
+
+}
@@ -0,0 +1,217 @@
+package com.okhttplib.stat;
+
+import com.okhttplib.annotation.RequestType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 请求指标统计：按主机与请求方式记录耗时直方图（p50/p90/p99/max）、吞吐量、
+ * 请求与响应数据量、缓存命中率以及HttpInfo各返回码的数量
+ * 记录过程无锁，快照通过MetricsListener导出
+ * @author zhousf
+ */
+public final class MetricsRegistry {
+
+    private static final int RET_CODE_COUNT = 32;
+    private static final int REQUEST_TYPE_COUNT = RequestType.DELETE + 1;
+
+    private static volatile boolean enabled = true;
+    private static volatile Window window = new Window();
+    private static final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private static ScheduledExecutorService exporter;
+    private static ScheduledFuture<?> exportTask;
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * 设置是否统计请求指标（默认：统计）
+     */
+    public static void setEnabled(boolean enabled){
+        MetricsRegistry.enabled = enabled;
+    }
+
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * 记录请求：由请求线程在请求结束时调用
+     * @param host 请求主机
+     * @param requestType 请求方式
+     * @param retCode HttpInfo返回码
+     * @param costNanos 请求耗时（纳秒）
+     * @param bytesOut 请求体大小，未知时小于0
+     * @param bytesIn 响应体大小，未知时小于0
+     * @param fromCache 是否来自缓存
+     */
+    public static void record(String host, @RequestType int requestType, int retCode, long costNanos,
+                              long bytesOut, long bytesIn, boolean fromCache){
+        if(!enabled || null == host)
+            return ;
+        window.obtain(host,requestType).record(retCode,costNanos,bytesOut,bytesIn,fromCache);
+    }
+
+    /**
+     * 生成当前统计周期的指标快照
+     */
+    public static List<MetricsSnapshot> snapshot(){
+        return window.snapshot(System.nanoTime());
+    }
+
+    /**
+     * 重置统计：开始新的统计周期
+     */
+    public static void reset(){
+        window = new Window();
+    }
+
+    /**
+     * 导出指标：生成快照并回调所有监听
+     * @param reset 导出后是否开始新的统计周期（导出每个周期内的指标）
+     */
+    public static List<MetricsSnapshot> export(boolean reset){
+        List<MetricsSnapshot> snapshots;
+        if(reset){
+            Window previous = window;
+            window = new Window();
+            snapshots = previous.snapshot(System.nanoTime());
+        }else{
+            snapshots = snapshot();
+        }
+        for(MetricsListener listener : listeners){
+            try {
+                listener.onMetrics(snapshots);
+            } catch (RuntimeException e){
+                e.printStackTrace();
+            }
+        }
+        return snapshots;
+    }
+
+    public static void addListener(MetricsListener listener){
+        if(null != listener)
+            listeners.add(listener);
+    }
+
+    public static void removeListener(MetricsListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * 定时导出：每个周期导出一次并开始新的统计周期
+     * @param period 导出周期，小于等于0时停止定时导出
+     * @param unit 时间单位
+     */
+    public static synchronized void setExportInterval(long period, TimeUnit unit){
+        if(null != exportTask){
+            exportTask.cancel(false);
+            exportTask = null;
+        }
+        if(period <= 0)
+            return ;
+        if(null == exporter){
+            exporter = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r,"OkHttp Metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        exportTask = exporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                export(true);
+            }
+        },period,period,unit);
+    }
+
+    /**
+     * 统计周期
+     */
+    private static final class Window {
+
+        private final long startNanos = System.nanoTime();
+        private final ConcurrentHashMap<String,AtomicReferenceArray<CallMetrics>> hostMap = new ConcurrentHashMap<>();
+
+        CallMetrics obtain(String host, int requestType){
+            AtomicReferenceArray<CallMetrics> types = hostMap.get(host);
+            if(null == types){
+                types = new AtomicReferenceArray<>(REQUEST_TYPE_COUNT);
+                AtomicReferenceArray<CallMetrics> previous = hostMap.putIfAbsent(host,types);
+                if(null != previous)
+                    types = previous;
+            }
+            int index = requestType > 0 && requestType < REQUEST_TYPE_COUNT ? requestType : RequestType.GET;
+            CallMetrics metrics = types.get(index);
+            if(null == metrics){
+                types.compareAndSet(index,null,new CallMetrics());
+                metrics = types.get(index);
+            }
+            return metrics;
+        }
+
+        List<MetricsSnapshot> snapshot(long nowNanos){
+            long windowMillis = (nowNanos - startNanos) / 1000000L;
+            List<MetricsSnapshot> list = new ArrayList<>();
+            for(Map.Entry<String,AtomicReferenceArray<CallMetrics>> entry : hostMap.entrySet()){
+                AtomicReferenceArray<CallMetrics> types = entry.getValue();
+                for (int i = 0; i < types.length(); i++) {
+                    CallMetrics metrics = types.get(i);
+                    if(null != metrics)
+                        list.add(metrics.snapshot(entry.getKey(),i,windowMillis));
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+     * 同一主机、同一请求方式的指标
+     */
+    private static final class CallMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLongArray retCodes = new AtomicLongArray(RET_CODE_COUNT);
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+
+        void record(int retCode, long costNanos, long out, long in, boolean fromCache){
+            latency.record(costNanos / 1000L);
+            if(retCode >= 0 && retCode < RET_CODE_COUNT)
+                retCodes.incrementAndGet(retCode);
+            if(out > 0)
+                bytesOut.addAndGet(out);
+            if(in > 0)
+                bytesIn.addAndGet(in);
+            if(fromCache)
+                cacheHits.incrementAndGet();
+        }
+
+        @SuppressWarnings("WrongConstant")
+        MetricsSnapshot snapshot(String host, int requestType, long windowMillis){
+            long[] codes = new long[RET_CODE_COUNT];
+            for (int i = 0; i < RET_CODE_COUNT; i++) {
+                codes[i] = retCodes.get(i);
+            }
+            return new MetricsSnapshot(host,requestType,windowMillis,latency.snapshot(),codes,
+                    bytesIn.get(),bytesOut.get(),cacheHits.get());
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.okhttplib.stat;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.annotation.RequestType;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 请求指标快照：同一主机、同一请求方式的请求汇总（耗时单位：毫秒）
+ * @author zhousf
+ */
+public final class MetricsSnapshot {
+
+    private final String host;
+    private final @RequestType int requestType;
+    private final long windowMillis;//统计时长
+    private final LatencyHistogram.Snapshot latency;
+    private final long[] retCodeCounts;
+    private final long bytesIn;//响应体总大小
+    private final long bytesOut;//请求体总大小
+    private final long cacheHitCount;//缓存命中数量
+
+    MetricsSnapshot(String host, @RequestType int requestType, long windowMillis,
+                    LatencyHistogram.Snapshot latency, long[] retCodeCounts,
+                    long bytesIn, long bytesOut, long cacheHitCount) {
+        this.host = host;
+        this.requestType = requestType;
+        this.windowMillis = windowMillis;
+        this.latency = latency;
+        this.retCodeCounts = retCodeCounts;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.cacheHitCount = cacheHitCount;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public @RequestType int getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * 统计时长（毫秒）：从开始统计或上次重置到生成快照
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * 吞吐量（次/秒）
+     */
+    public double getThroughput() {
+        return windowMillis <= 0 ? 0d : latency.getCount() * 1000d / windowMillis;
+    }
+
+    public double getP50() {
+        return latency.getValueAtPercentile(50) / 1000d;
+    }
+
+    public double getP90() {
+        return latency.getValueAtPercentile(90) / 1000d;
+    }
+
+    public double getP99() {
+        return latency.getValueAtPercentile(99) / 1000d;
+    }
+
+    public double getMax() {
+        return latency.getMax() / 1000d;
+    }
+
+    public double getMean() {
+        return latency.getMean() / 1000d;
+    }
+
+    /**
+     * 百分位耗时（毫秒）
+     * @param percentile 百分位（0-100）
+     */
+    public double getPercentile(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000d;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * 缓存命中率
+     */
+    public double getCacheHitRatio() {
+        long count = latency.getCount();
+        return count == 0 ? 0d : (double) cacheHitCount / count;
+    }
+
+    /**
+     * 返回码数量
+     * @param retCode HttpInfo中定义的返回码，如HttpInfo.CheckNet
+     */
+    public long getRetCodeCount(int retCode) {
+        return retCode < 0 || retCode >= retCodeCounts.length ? 0 : retCodeCounts[retCode];
+    }
+
+    /**
+     * 所有出现过的返回码数量：key=返回码 value=数量
+     */
+    public Map<Integer,Long> getRetCodeCounts() {
+        Map<Integer,Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < retCodeCounts.length; i++) {
+            if(retCodeCounts[i] > 0)
+                map.put(i,retCodeCounts[i]);
+        }
+        return map;
+    }
+
+    /**
+     * 错误率：返回码不是HttpInfo.SUCCESS的请求比例
+     */
+    public double getErrorRate() {
+        long count = latency.getCount();
+        return count == 0 ? 0d : (double) (count - getRetCodeCount(HttpInfo.SUCCESS)) / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%s type=%d count=%d qps=%.2f p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms in=%d out=%d cacheHit=%.2f error=%.2f codes=%s",
+                host,requestType,getCount(),getThroughput(),getP50(),getP90(),getP99(),getMax(),
+                bytesIn,bytesOut,getCacheHitRatio(),getErrorRate(),getRetCodeCounts());
+    }
+
+}
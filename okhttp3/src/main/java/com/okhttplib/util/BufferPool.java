@@ -0,0 +1,139 @@
+package com.okhttplib.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 传输缓冲池：下载写入、文件哈希等按缓冲区大小借用和归还缓冲区，避免每次传输重新分配
+ * 池中空闲缓冲区总大小不超过上限，超过上限归还的缓冲区直接丢弃
+ * @author zhousf
+ */
+public final class BufferPool {
+
+    /**
+     * 默认空闲缓冲区上限：2MB
+     */
+    public static final long DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+    private static final BufferPool DEFAULT = new BufferPool(DEFAULT_MAX_SIZE);
+
+    private final Map<Integer,Deque<byte[]>> arrays = new HashMap<>();
+    private final Map<Integer,Deque<ByteBuffer>> directBuffers = new HashMap<>();
+    private long maxSize;
+    private long pooledSize;
+
+    public BufferPool(long maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * 全局缓冲池
+     */
+    public static BufferPool getDefault(){
+        return DEFAULT;
+    }
+
+    /**
+     * 设置空闲缓冲区上限：小于等于0时不缓存
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        trim(arrays);
+        trim(directBuffers);
+    }
+
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 池中空闲缓冲区总大小
+     */
+    public synchronized long getPooledSize() {
+        return pooledSize;
+    }
+
+    /**
+     * 借用字节数组
+     * @param size 数组长度
+     */
+    public byte[] takeArray(int size){
+        synchronized (this){
+            Deque<byte[]> deque = arrays.get(size);
+            if(null != deque && !deque.isEmpty()){
+                pooledSize -= size;
+                return deque.pop();
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * 归还字节数组
+     */
+    public void recycle(byte[] array){
+        if(null == array)
+            return ;
+        synchronized (this){
+            if(pooledSize + array.length > maxSize)
+                return ;
+            Deque<byte[]> deque = arrays.get(array.length);
+            if(null == deque){
+                deque = new ArrayDeque<>();
+                arrays.put(array.length,deque);
+            }
+            deque.push(array);
+            pooledSize += array.length;
+        }
+    }
+
+    /**
+     * 借用直接缓冲区：写模式，position为0
+     * @param size 缓冲区容量
+     */
+    public ByteBuffer takeDirect(int size){
+        synchronized (this){
+            Deque<ByteBuffer> deque = directBuffers.get(size);
+            if(null != deque && !deque.isEmpty()){
+                pooledSize -= size;
+                ByteBuffer buffer = deque.pop();
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * 归还直接缓冲区
+     */
+    public void recycle(ByteBuffer buffer){
+        if(null == buffer || !buffer.isDirect())
+            return ;
+        synchronized (this){
+            if(pooledSize + buffer.capacity() > maxSize)
+                return ;
+            Deque<ByteBuffer> deque = directBuffers.get(buffer.capacity());
+            if(null == deque){
+                deque = new ArrayDeque<>();
+                directBuffers.put(buffer.capacity(),deque);
+            }
+            deque.push(buffer);
+            pooledSize += buffer.capacity();
+        }
+    }
+
+    private <T> void trim(Map<Integer,Deque<T>> pool){
+        for(Map.Entry<Integer,Deque<T>> entry : pool.entrySet()){
+            Deque<T> deque = entry.getValue();
+            while (pooledSize > maxSize && !deque.isEmpty()){
+                deque.pop();
+                pooledSize -= entry.getKey();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.okhttplib.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 下载文件写入：数据先写入缓冲区，缓冲区满后通过FileChannel按位置写入文件，
+ * 每写入一个检查点间隔的数据同步一次存储（force）并回调检查点，断点续传以检查点为准
+ * 替代RandomAccessFile("rwd")每次写入都同步存储的方式，缓冲区从传输缓冲池中借用，关闭时归还
+ * @author zhousf
+ */
+public class DownloadFileWriter implements Closeable {
+
+    /**
+     * 默认缓冲区大小：64KB
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 默认检查点间隔：1MB
+     */
+    public static final long DEFAULT_CHECKPOINT_SIZE = 1024 * 1024;
+
+    /**
+     * 检查点回调：检查点之前的数据已同步到存储
+     */
+    public interface CheckpointListener {
+
+        /**
+         * @param position 已同步到存储的文件位置
+         */
+        void onCheckpoint(long position);
+
+    }
+
+    private final RandomAccessFile accessFile;
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private final long checkpointSize;
+    private CheckpointListener checkpointListener;
+    private long position;//缓冲区数据在文件中的起始位置
+    private long checkpoint;//已同步到存储的位置
+
+    /**
+     * @param file 文件
+     * @param position 开始写入的位置
+     * @param bufferSize 缓冲区大小
+     * @param checkpointSize 检查点间隔（字节），小于等于0时只在关闭时同步存储
+     */
+    public DownloadFileWriter(File file, long position, int bufferSize, long checkpointSize) throws IOException {
+        if(bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be >= 1");
+        this.accessFile = new RandomAccessFile(file,"rw");
+        this.channel = accessFile.getChannel();
+        this.buffer = BufferPool.getDefault().takeDirect(bufferSize);
+        this.checkpointSize = checkpointSize;
+        this.position = position;
+        this.checkpoint = position;
+    }
+
+    public void setCheckpointListener(CheckpointListener checkpointListener) {
+        this.checkpointListener = checkpointListener;
+    }
+
+    /**
+     * 写入数据
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0){
+            int count = Math.min(length,buffer.remaining());
+            buffer.put(bytes,offset,count);
+            offset += count;
+            length -= count;
+            flushIfFull();
+        }
+    }
+
+    /**
+     * 从数据源直接读取到缓冲区：如Okio的BufferedSource，数据不经过中间字节数组
+     * @param source 数据源
+     * @param byteCount 最多读取的长度
+     * @return 读取的长度，数据源结束时返回-1
+     */
+    public int transferFrom(ReadableByteChannel source, long byteCount) throws IOException {
+        int limit = buffer.limit();
+        if(byteCount < buffer.remaining())
+            buffer.limit(buffer.position() + (int) byteCount);
+        int count;
+        try {
+            count = source.read(buffer);
+        } finally {
+            buffer.limit(limit);
+        }
+        if(count > 0)
+            flushIfFull();
+        return count;
+    }
+
+    private void flushIfFull() throws IOException {
+        if(!buffer.hasRemaining()){
+            flushBuffer();
+            if(checkpointSize > 0 && position - checkpoint >= checkpointSize)
+                checkpoint();
+        }
+    }
+
+    /**
+     * 检查点：写入缓冲区数据并同步到存储
+     */
+    public void checkpoint() throws IOException {
+        flushBuffer();
+        if(position == checkpoint)
+            return ;
+        channel.force(false);
+        checkpoint = position;
+        if(null != checkpointListener)
+            checkpointListener.onCheckpoint(checkpoint);
+    }
+
+    /**
+     * 截断文件：删除当前位置之后的数据，用于重新下载或回退到检查点
+     */
+    public void truncate() throws IOException {
+        flushBuffer();
+        channel.truncate(position);
+    }
+
+    /**
+     * 已写入的位置：包括缓冲区中的数据
+     */
+    public long getPosition() {
+        return null == buffer ? position : position + buffer.position();
+    }
+
+    /**
+     * 已同步到存储的位置
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            position += channel.write(buffer,position);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 关闭：写入剩余数据并同步到存储，归还缓冲区
+     */
+    @Override
+    public void close() throws IOException {
+        if(null == buffer)
+            return ;
+        try {
+            checkpoint();
+        } finally {
+            accessFile.close();
+            BufferPool.getDefault().recycle(buffer);
+            buffer = null;
+        }
+    }
+
+}
@@ -1,7 +1,5 @@
 package com.okhttplib.util;
 
-import android.text.TextUtils;
-
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -17,6 +15,11 @@ import java.security.NoSuchAlgorithmException;
  */
 public class EncryptUtil {
 
+    /**
+     * 文件MD5读取缓冲区大小：64KB，从传输缓冲池中借用
+     */
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
     /**
      * MD5加密：生成16位密文
      * @param originString 加密字符串
@@ -60,7 +63,7 @@ public class EncryptUtil {
      * @param filePath 文件路径
      */
     public static String getFileMd5(String filePath){
-        if(TextUtils.isEmpty(filePath)){
+        if(StringUtil.isEmpty(filePath)){
             return "";
         }
         return getFileMd5(new File(filePath));
@@ -73,6 +76,7 @@ public class EncryptUtil {
     public static String getFileMd5(File file) {
         MessageDigest messageDigest;
         RandomAccessFile randomAccessFile = null;
+        byte[] bytes = null;
         try {
             messageDigest = MessageDigest.getInstance("MD5");
             if (file == null) {
@@ -82,7 +86,7 @@ public class EncryptUtil {
                 return "";
             }
             randomAccessFile=new RandomAccessFile(file,"r");
-            byte[] bytes=new byte[1024*1024*10];
+            bytes = BufferPool.getDefault().takeArray(HASH_BUFFER_SIZE);
             int len = 0;
             while ((len=randomAccessFile.read(bytes))!=-1){
                 messageDigest.update(bytes,0, len);
@@ -107,6 +111,7 @@ public class EncryptUtil {
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            BufferPool.getDefault().recycle(bytes);
         }
         return "";
     }
@@ -0,0 +1,47 @@
+package com.okhttplib.util;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+
+/**
+ * Gson工具类
+ * Gson是线程安全的，并且会缓存每种类型的TypeAdapter，
+ * 共享同一个Gson实例可以避免每次解析都重新反射创建TypeAdapter
+ * @author zhousf
+ */
+public class GsonUtil {
+
+    private static volatile Gson defaultGson = new Gson();
+
+    /**
+     * 获取共享的Gson
+     */
+    public static Gson getDefault(){
+        return defaultGson;
+    }
+
+    /**
+     * 设置共享的Gson：未绑定Gson的请求使用该Gson解析
+     */
+    public static void setDefault(Gson gson){
+        if(null != gson)
+            defaultGson = gson;
+    }
+
+    /**
+     * 预热：提前创建并缓存类型的TypeAdapter，避免首次解析时的反射开销
+     * @param gson Gson
+     * @param types 返回结果类型
+     */
+    public static void warmUp(Gson gson, Type... types){
+        if(null == gson || null == types)
+            return ;
+        for(Type type : types){
+            if(null != type)
+                gson.getAdapter(TypeToken.get(type));
+        }
+    }
+
+}
@@ -1,7 +1,5 @@
 package com.okhttplib.util;
 
-import android.text.TextUtils;
-
 import com.okhttplib.annotation.ContentType;
 
 import okhttp3.MediaType;
@@ -18,7 +16,7 @@ public class MediaTypeUtil {
      * @param requestEncoding 编码格式
      */
     public static MediaType fetchFileMediaType(String url,String requestEncoding){
-        if(!TextUtils.isEmpty(url) && url.contains(".")){
+        if(!StringUtil.isEmpty(url) && url.contains(".")){
             String extension = url.substring(url.lastIndexOf(".") + 1);
             if("png".equals(extension)){
                 extension = "image/png";
@@ -0,0 +1,16 @@
+package com.okhttplib.util;
+
+/**
+ * 字符串工具：替代android.text.TextUtils，使请求链路可以在JVM中运行
+ * @author zhousf
+ */
+public class StringUtil {
+
+    /**
+     * 字符串是否为null或长度为0
+     */
+    public static boolean isEmpty(CharSequence str){
+        return null == str || str.length() == 0;
+    }
+
+}
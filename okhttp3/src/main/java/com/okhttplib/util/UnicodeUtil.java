@@ -0,0 +1,64 @@
+package com.okhttplib.util;
+
+/**
+ * unicode转码工具类
+ * @author zhousf
+ */
+public class UnicodeUtil {
+
+    /**
+     * unicode中文转码：将\\uXXXX转换为对应字符
+     * 只扫描一次，不包含\\uXXXX时直接返回原字符串，不产生新的对象
+     * @param str 字符串
+     */
+    public static String unescape(String str){
+        if(null == str)
+            return null;
+        int index = str.indexOf('\\');
+        if(index < 0)
+            return str;
+        final int length = str.length();
+        StringBuilder builder = null;
+        int start = 0;//尚未复制的起始位置
+        for (int i = index; i < length; i++) {
+            if(str.charAt(i) != '\\' || i + 6 > length || str.charAt(i + 1) != 'u')
+                continue;
+            int ch = parseHex(str,i + 2);
+            if(ch < 0)
+                continue;
+            if(null == builder)
+                builder = new StringBuilder(length);
+            builder.append(str,start,i).append((char) ch);
+            start = i + 6;
+            i += 5;
+        }
+        if(null == builder)
+            return str;
+        builder.append(str,start,length);
+        return builder.toString();
+    }
+
+    /**
+     * 解析4位十六进制数
+     * @return 无效时返回-1
+     */
+    private static int parseHex(String str, int offset){
+        int value = 0;
+        for (int i = offset; i < offset + 4; i++) {
+            char c = str.charAt(i);
+            int digit;
+            if(c >= '0' && c <= '9'){
+                digit = c - '0';
+            }else if(c >= 'a' && c <= 'f'){
+                digit = c - 'a' + 10;
+            }else if(c >= 'A' && c <= 'F'){
+                digit = c - 'A' + 10;
+            }else{
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+}
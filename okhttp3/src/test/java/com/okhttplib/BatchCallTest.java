@@ -0,0 +1,145 @@
+package com.okhttplib;
+
+import com.okhttplib.annotation.BatchMode;
+import com.okhttplib.bean.BatchResult;
+import com.okhttplib.callback.BatchCallback;
+import com.okhttplib.callback.CallRegistry;
+import com.okhttplib.platform.CallbackExecutor;
+import com.okhttplib.platform.Platform;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量请求测试：回调执行器异步分发时带请求标识的批量请求仍然回调，快速失败时取消进行中的请求，请求标识销毁后不再发起剩余的请求
+ * @author zhousf
+ */
+public class BatchCallTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callbackThread = Executors.newSingleThreadExecutor();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        Platform.setCallbackExecutor(new CallbackExecutor() {
+            @Override
+            public void execute(Runnable command) {
+                callbackThread.execute(command);
+            }
+        });
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if("/fail".equals(request.getPath()))
+                    return new MockResponse().setResponseCode(500);
+                if("/slow".equals(request.getPath()))
+                    release.await(10,TimeUnit.SECONDS);
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        server.shutdown();
+        Platform.setCallbackExecutor(null);
+        callbackThread.shutdown();
+    }
+
+    @Test
+    public void taggedAsyncBatchDelivers() throws Exception {
+        BatchResult result = doBatch(OkHttpUtil.Builder().setShowHttpLog(false).build("ScreenA"),
+                Arrays.asList(info("/a"),info("/b")),BatchMode.COLLECT_ALL);
+        assertTrue(result.isSuccessful());
+        assertEquals(2,result.getSuccessCount());
+    }
+
+    @Test
+    public void failFastCancelsRunningRequests() throws Exception {
+        List<HttpInfo> infos = Arrays.asList(info("/slow"),info("/fail"));
+        BatchResult result = doBatch(OkHttpUtil.Builder().setShowHttpLog(false).build("ScreenA"),
+                infos,BatchMode.FAIL_FAST);
+        assertTrue(result.isAborted());
+        assertEquals(1,result.getFailureCount());
+        assertFalse(result.isCompleted(0));
+        //进行中的请求已取消：服务器返回之前请求以失败结束
+        long deadline = System.currentTimeMillis() + 5000;
+        while (null == infos.get(0).getRetDetail()){
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertFalse(infos.get(0).isSuccessful());
+        assertEquals(1,release.getCount());
+    }
+
+    @Test
+    public void destroyedTagStopsSubmitting() throws Exception {
+        final OkHttpUtilInterface okHttpUtil = OkHttpUtil.Builder().setShowHttpLog(false).build("BatchScreen");
+        final List<HttpInfo> infos = Arrays.asList(info("/slow"),info("/a"),info("/b"));
+        ExecutorService batchThread = Executors.newSingleThreadExecutor();
+        try {
+            Future<BatchResult> future = batchThread.submit(new Callable<BatchResult>() {
+                @Override
+                public BatchResult call() {
+                    return okHttpUtil.doBatchSync(infos,1,BatchMode.COLLECT_ALL);
+                }
+            });
+            assertEquals("/slow",server.takeRequest(10,TimeUnit.SECONDS).getPath());
+            //页面关闭：取消请求标识下的请求
+            CallRegistry.cancel("BatchScreen");
+            BatchResult result = future.get(10,TimeUnit.SECONDS);
+            assertTrue(result.isAborted());
+            assertFalse(result.isCompleted(1));
+            assertFalse(result.isCompleted(2));
+            assertEquals(1,server.getRequestCount());
+            assertTrue(CallRegistry.isDestroyed("BatchScreen"));
+        } finally {
+            batchThread.shutdown();
+        }
+    }
+
+    private HttpInfo info(String path){
+        return HttpInfo.Builder().setUrl(server.url(path).toString()).build();
+    }
+
+    private static BatchResult doBatch(OkHttpUtilInterface okHttpUtil, List<HttpInfo> infos,
+                                       @BatchMode int mode) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<BatchResult> result = new AtomicReference<>();
+        okHttpUtil.doBatchAsync(infos,2,mode,new BatchCallback() {
+            @Override
+            public void onResponse(BatchResult batchResult) {
+                result.set(batchResult);
+                done.countDown();
+            }
+        });
+        assertTrue("batch callback not delivered",done.await(10,TimeUnit.SECONDS));
+        return result.get();
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.okhttplib;
+
+import com.okhttplib.annotation.Priority;
+import com.okhttplib.callback.Callback;
+import com.okhttplib.executor.PriorityDispatchQueue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 客户端注册表测试：配置指纹按引用区分拦截器，根客户端与调度队列数量不超过上限，创建请求失败时释放调度队列的执行名额，
+ * 每个请求只记录一次派生客户端
+ * @author zhousf
+ */
+public class OkHttpClientRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final OkHttpClientRegistry.ClientFactory FACTORY = new OkHttpClientRegistry.ClientFactory() {
+        @Override
+        public OkHttpClient.Builder create() {
+            return new OkHttpClient.Builder();
+        }
+    };
+
+    @Test
+    public void fingerprintComparesInterceptorsByReference(){
+        Interceptor a = new NoopInterceptor();
+        Interceptor b = new NoopInterceptor();
+        List<Interceptor> interceptors = new ArrayList<>(Arrays.asList(a));
+        ConfigKey key = new ConfigKey(30,true,"dir",interceptors);
+        assertEquals(key,new ConfigKey(30,true,"dir",Arrays.asList(a)));
+        assertEquals(key.hashCode(),new ConfigKey(30,true,"dir",Arrays.asList(a)).hashCode());
+        assertNotEquals(key,new ConfigKey(30,true,"dir",Arrays.asList(b)));
+        //修改集合不影响已生成的配置指纹
+        interceptors.add(b);
+        assertEquals(key,new ConfigKey(30,true,"dir",Arrays.asList(a)));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedClients(){
+        Object owner = new Object();
+        ConfigKey first = new ConfigKey(owner,0);
+        OkHttpClientRegistry.newBuilder(first,FACTORY);
+        for (int i = 1; i <= OkHttpClientRegistry.MAX_CLIENT_COUNT; i++) {
+            OkHttpClientRegistry.newBuilder(new ConfigKey(owner,i),FACTORY);
+        }
+        assertNull(OkHttpClientRegistry.getClient(first));
+        assertNotNull(OkHttpClientRegistry.getClient(new ConfigKey(owner,OkHttpClientRegistry.MAX_CLIENT_COUNT)));
+        assertEquals(OkHttpClientRegistry.MAX_CLIENT_COUNT,OkHttpClientRegistry.getClientCount());
+    }
+
+    @Test
+    public void keepsBusyDispatchQueues(){
+        ConfigKey fingerprint = new ConfigKey(new Object());
+        PriorityDispatchQueue busy = OkHttpClientRegistry.obtainDispatchQueue(fingerprint,"busy",1,2000);
+        busy.submit(Priority.NORMAL,new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        for (int i = 0; i < OkHttpClientRegistry.MAX_DISPATCH_QUEUE_COUNT; i++) {
+            OkHttpClientRegistry.obtainDispatchQueue(fingerprint,"host" + i,1,2000);
+        }
+        assertSame(busy,OkHttpClientRegistry.obtainDispatchQueue(fingerprint,"busy",1,2000));
+        busy.finish();
+        for (int i = 0; i <= OkHttpClientRegistry.MAX_DISPATCH_QUEUE_COUNT; i++) {
+            OkHttpClientRegistry.obtainDispatchQueue(fingerprint,"other" + i,1,2000);
+        }
+        assertEquals(OkHttpClientRegistry.MAX_DISPATCH_QUEUE_COUNT,OkHttpClientRegistry.getDispatchQueueCount());
+    }
+
+    @Test
+    public void releasesDispatchSlotWhenRequestCreationThrows() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.start();
+        try {
+            List<Interceptor> interceptors = new ArrayList<>();
+            OkHttpUtilInterface okHttpUtil = OkHttpUtil.Builder()
+                    .setShowHttpLog(false)
+                    .setMaxRequestsPerHost(1)
+                    .setInterceptors(interceptors)
+                    .build();
+            //根客户端移除后重新创建时空拦截器导致创建请求失败
+            interceptors.add(null);
+            Object owner = new Object();
+            for (int i = 0; i < OkHttpClientRegistry.MAX_CLIENT_COUNT; i++) {
+                OkHttpClientRegistry.newBuilder(new ConfigKey(owner,i),FACTORY);
+            }
+            HttpInfo info = HttpInfo.Builder().setUrl(server.url("/throw").toString()).build();
+            try {
+                okHttpUtil.doGetAsync(info,new Callback() {
+                    @Override
+                    public void onSuccess(HttpInfo info) {
+                    }
+
+                    @Override
+                    public void onFailure(HttpInfo info) {
+                    }
+                });
+                fail();
+            } catch (IllegalStateException expected){
+            }
+            PriorityDispatchQueue queue = okHttpUtil.getPriorityDispatchQueue(server.url("/").toString());
+            assertEquals(0,queue.getRunningCount());
+            interceptors.clear();
+            final CountDownLatch done = new CountDownLatch(1);
+            final AtomicReference<HttpInfo> result = new AtomicReference<>();
+            okHttpUtil.doGetAsync(HttpInfo.Builder().setUrl(server.url("/next").toString()).build(),new Callback() {
+                @Override
+                public void onSuccess(HttpInfo info) {
+                    result.set(info);
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(HttpInfo info) {
+                    result.set(info);
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(10,TimeUnit.SECONDS));
+            assertTrue(result.get().isSuccessful());
+            assertEquals("/next",server.takeRequest().getPath());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void countsDerivedClientOncePerRequest() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.enqueue(new MockResponse().setBody("file"));
+        server.start();
+        try {
+            OkHttpUtilInterface okHttpUtil = OkHttpUtil.Builder()
+                    .setShowHttpLog(false)
+                    .setDownloadFileDir(folder.getRoot().getAbsolutePath() + "/")
+                    .build();
+            int derived = OkHttpUtil.getClientDerivedCount();
+            assertTrue(okHttpUtil.doGetSync(HttpInfo.Builder().setUrl(server.url("/get").toString()).build()).isSuccessful());
+            assertEquals(derived + 1,OkHttpUtil.getClientDerivedCount());
+            //文件下载派生两个构建器，只记录一次
+            HttpInfo info = HttpInfo.Builder().addDownloadFile(server.url("/file").toString(),"file.txt").build();
+            okHttpUtil.doDownloadFileSync(info);
+            assertTrue(info.getRetDetail(),info.isSuccessful());
+            assertEquals(derived + 2,OkHttpUtil.getClientDerivedCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static final class NoopInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            return chain.proceed(chain.request());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.okhttplib.benchmark;
+
+import com.okhttplib.util.DownloadFileWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下载文件写入基准测试：RandomAccessFile("rwd")每次写入同步存储（原实现）与 缓冲写入+检查点同步
+ * 每次写入4MB，按下载读取的2KB分块写入，结果ops/s即MB/s
+ * 运行：执行main方法
+ * @author zhousf
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(DownloadWriteBenchmark.FILE_MB)
+public class DownloadWriteBenchmark {
+
+    static final int FILE_MB = 4;
+    private static final int CHUNK_SIZE = 2048;
+
+    @State(Scope.Thread)
+    public static class Target {
+
+        final byte[] chunk = new byte[CHUNK_SIZE];
+        File file;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = (byte) i;
+            }
+            file = File.createTempFile("download-write",".tmp");
+        }
+
+        @Setup(Level.Invocation)
+        public void reset(){
+            file.delete();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(){
+            file.delete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Checkpoint {
+
+        //0：只在关闭时同步
+        @Param({"0", "1048576"})
+        long checkpointSize;
+    }
+
+    @Benchmark
+    public long randomAccessFileRwd(Target target) throws IOException {
+        RandomAccessFile accessFile = new RandomAccessFile(target.file,"rwd");
+        try {
+            int count = FILE_MB * 1024 * 1024 / CHUNK_SIZE;
+            for (int i = 0; i < count; i++) {
+                accessFile.write(target.chunk,0,CHUNK_SIZE);
+            }
+            return accessFile.length();
+        } finally {
+            accessFile.close();
+        }
+    }
+
+    @Benchmark
+    public long downloadFileWriter(Target target, Checkpoint checkpoint) throws IOException {
+        DownloadFileWriter writer = new DownloadFileWriter(target.file,0,
+                DownloadFileWriter.DEFAULT_BUFFER_SIZE,checkpoint.checkpointSize);
+        try {
+            int count = FILE_MB * 1024 * 1024 / CHUNK_SIZE;
+            for (int i = 0; i < count; i++) {
+                writer.write(target.chunk,0,CHUNK_SIZE);
+            }
+            return writer.getPosition();
+        } finally {
+            writer.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DownloadWriteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.okhttplib.benchmark;
+
+import com.google.gson.Gson;
+import com.okhttplib.util.GsonUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 返回结果解析基准测试：每次解析新建Gson（原实现） 与 共享预热后的Gson
+ * 运行：执行main方法
+ * @author zhousf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonParseBenchmark {
+
+    private String json;
+
+    @Setup
+    public void setup(){
+        StringBuilder builder = new StringBuilder("{\"code\":200,\"msg\":\"ok\",\"data\":[");
+        for (int i = 0; i < 20; i++) {
+            if(i > 0)
+                builder.append(',');
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"user").append(i)
+                    .append("\",\"age\":").append(20 + i)
+                    .append(",\"vip\":").append(i % 2 == 0).append('}');
+        }
+        builder.append("]}");
+        json = builder.toString();
+        GsonUtil.warmUp(GsonUtil.getDefault(),Result.class);
+    }
+
+    @Benchmark
+    public Result newGsonPerParse(){
+        return new Gson().fromJson(json,Result.class);
+    }
+
+    @Benchmark
+    public Result sharedGson(){
+        return GsonUtil.getDefault().fromJson(json,Result.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GsonParseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public static class Result {
+        int code;
+        String msg;
+        List<User> data;
+    }
+
+    public static class User {
+        int id;
+        String name;
+        int age;
+        boolean vip;
+    }
+
+}
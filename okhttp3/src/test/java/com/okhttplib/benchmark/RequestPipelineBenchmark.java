@@ -0,0 +1,300 @@
+package com.okhttplib.benchmark;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.annotation.CacheType;
+import com.okhttplib.util.EncryptUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * 请求链路基准测试：通过OkHttpUtil同步接口驱动OkHttpHelper/HttpHelper，请求本地MockWebServer
+ * 覆盖小数据GET、Json POST、缓存命中、表单上传文件以及断点下载，
+ * 运行main方法同时输出吞吐量（ops/s）与每次请求的内存分配（gc.alloc.rate.norm）
+ * 基准结果：src/test/resources/benchmark/RequestPipelineBenchmark.txt
+ * @author zhousf
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestPipelineBenchmark {
+
+    private static final int DOWNLOAD_SIZE = 256 * 1024;
+    private static final int UPLOAD_SIZE = 64 * 1024;
+    private static final String JSON = "{\"code\":200,\"msg\":\"ok\",\"data\":{\"id\":1,\"name\":\"user1\",\"age\":21,\"vip\":true}}";
+
+    @Benchmark
+    public HttpInfo smallGet(Pipeline p){
+        return check(p.networkUtil.doGetSync(HttpInfo.Builder().setUrl(p.getUrl).build()));
+    }
+
+    @Benchmark
+    public HttpInfo jsonPost(Pipeline p){
+        return check(p.networkUtil.doPostSync(HttpInfo.Builder().setUrl(p.postUrl).addParamJson(JSON).build()));
+    }
+
+    @Benchmark
+    public HttpInfo cacheHit(Pipeline p){
+        return check(p.cacheUtil.doGetSync(HttpInfo.Builder().setUrl(p.cacheUrl).build()));
+    }
+
+    @Benchmark
+    public HttpInfo multipartUpload(Pipeline p){
+        HttpInfo info = HttpInfo.Builder().setUrl(p.uploadUrl).addUploadFile("file",p.uploadFilePath).build();
+        p.networkUtil.doUploadFileSync(info);
+        return check(info);
+    }
+
+    /**
+     * 断点下载：每次从文件中间位置续传剩余的一半数据
+     */
+    @Benchmark
+    public HttpInfo rangedDownload(Pipeline p, PartialFile partialFile){
+        HttpInfo info = HttpInfo.Builder().addDownloadFile(p.downloadUrl,"file.bin").build();
+        p.networkUtil.doDownloadFileSync(info);
+        return check(info);
+    }
+
+    private static HttpInfo check(HttpInfo info){
+        if(!info.isSuccessful())
+            throw new IllegalStateException(info.getRetDetail());
+        return info;
+    }
+
+    /**
+     * 本地服务与请求配置：所有线程共享
+     */
+    @State(Scope.Benchmark)
+    public static class Pipeline {
+
+        private final byte[] downloadBytes = new byte[DOWNLOAD_SIZE];
+        private MockWebServer server;
+        private File workDir;
+        private File downloadDir;
+        private OkHttpUtilInterface networkUtil;
+        private OkHttpUtilInterface cacheUtil;
+        private String getUrl;
+        private String postUrl;
+        private String cacheUrl;
+        private String uploadUrl;
+        private String uploadFilePath;
+        private String downloadUrl;
+
+        @Setup
+        public void setup() throws Exception {
+            Logger.getLogger(MockWebServer.class.getName()).setLevel(java.util.logging.Level.WARNING);
+            for (int i = 0; i < downloadBytes.length; i++) {
+                downloadBytes[i] = (byte) i;
+            }
+            server = new MockWebServer();
+            server.setServerSocketFactory(new NoDelayServerSocketFactory());
+            server.setDispatcher(new PipelineDispatcher());
+            server.start();
+            getUrl = server.url("/get").toString();
+            postUrl = server.url("/post").toString();
+            cacheUrl = server.url("/cache").toString();
+            uploadUrl = server.url("/upload").toString();
+            downloadUrl = server.url("/download/file.bin").toString();
+
+            workDir = new File(System.getProperty("java.io.tmpdir"),"okhttp-bench-" + System.nanoTime());
+            downloadDir = new File(workDir,"download");
+            if(!downloadDir.mkdirs())
+                throw new IOException("mkdirs failed: " + downloadDir);
+            File uploadFile = new File(workDir,"upload.bin");
+            writeFile(uploadFile,new byte[UPLOAD_SIZE],UPLOAD_SIZE);
+            uploadFilePath = uploadFile.getAbsolutePath();
+
+            File cacheDir = new File(workDir,"cache");
+            networkUtil = OkHttpUtil.Builder()
+                    .setShowHttpLog(false)
+                    .setCachedDir(cacheDir)
+                    .setDownloadFileDir(downloadDir.getAbsolutePath() + "/")
+                    .setCacheType(CacheType.FORCE_NETWORK)
+                    .build();
+            cacheUtil = OkHttpUtil.Builder()
+                    .setShowHttpLog(false)
+                    .setCachedDir(cacheDir)
+                    .setCacheType(CacheType.FORCE_CACHE)
+                    .build();
+            //写入缓存
+            networkUtil.doGetSync(HttpInfo.Builder().setUrl(cacheUrl).build());
+            HttpInfo cached = cacheUtil.doGetSync(HttpInfo.Builder().setUrl(cacheUrl).build());
+            if(!cached.isSuccessful() || !cached.isFromCache())
+                throw new IllegalStateException("cache not primed: " + cached.getRetDetail());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            server.shutdown();
+            deleteRecursively(workDir);
+        }
+
+        /**
+         * 本地服务：按路径返回不同的响应，下载接口支持Range请求
+         */
+        private final class PipelineDispatcher extends Dispatcher {
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                //丢弃已记录的请求，避免测试期间请求记录（包括上传的请求体）持续占用内存
+                server.takeRequest(0,TimeUnit.MILLISECONDS);
+                String path = request.getPath();
+                if(path.startsWith("/download/")){
+                    return download(request.getHeader("Range"));
+                }
+                if(path.startsWith("/upload")){
+                    return new MockResponse().setBody("{\"code\":200}");
+                }
+                if(path.startsWith("/post")){
+                    return new MockResponse().setBody(request.getBody());
+                }
+                return new MockResponse().setBody(JSON);
+            }
+
+            private MockResponse download(String range){
+                int start = 0;
+                if(null != range && range.startsWith("bytes=")){
+                    start = Integer.parseInt(range.substring(6,range.indexOf('-')));
+                }
+                Buffer body = new Buffer().write(downloadBytes,start,DOWNLOAD_SIZE - start);
+                if(start == 0)
+                    return new MockResponse().setBody(body);
+                return new MockResponse()
+                        .setResponseCode(206)
+                        .setHeader("Content-Range","bytes " + start + "-" + (DOWNLOAD_SIZE - 1) + "/" + DOWNLOAD_SIZE)
+                        .setBody(body);
+            }
+        }
+    }
+
+    /**
+     * 服务端关闭Nagle算法：MockWebServer分开写入响应头与响应体，
+     * 与客户端延迟确认叠加后每个请求会额外等待约40ms，掩盖请求链路本身的耗时
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 断点文件：每次下载前写入前一半数据，下载后清空下载目录
+     */
+    @State(Scope.Thread)
+    public static class PartialFile {
+
+        private File downloadDir;
+        private File partial;
+        private byte[] bytes;
+
+        @Setup(Level.Trial)
+        public void bind(Pipeline p) throws Exception {
+            downloadDir = p.downloadDir;
+            partial = new File(p.downloadDir,EncryptUtil.MD5StringTo32Bit(p.downloadUrl,true));
+            bytes = p.downloadBytes;
+        }
+
+        @Setup(Level.Invocation)
+        public void write() throws IOException {
+            writeFile(partial,bytes,DOWNLOAD_SIZE / 2);
+        }
+
+        @TearDown(Level.Invocation)
+        public void clean(){
+            File[] files = downloadDir.listFiles();
+            if(null != files){
+                for(File file : files){
+                    if(!file.delete())
+                        throw new IllegalStateException("delete failed: " + file);
+                }
+            }
+        }
+    }
+
+    private static void writeFile(File file, byte[] bytes, int length) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes,0,length);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void deleteRecursively(File file){
+        File[] children = file.listFiles();
+        if(null != children){
+            for(File child : children){
+                deleteRecursively(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestPipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
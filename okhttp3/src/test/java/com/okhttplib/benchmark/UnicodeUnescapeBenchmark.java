@@ -0,0 +1,87 @@
+package com.okhttplib.benchmark;
+
+import com.okhttplib.util.UnicodeUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * unicode转码基准测试：正则逐个替换（原实现） 与 单次扫描
+ * 返回结果分为不含转义字符、含少量中文转义、大量中文转义三种
+ * 运行：执行main方法
+ * @author zhousf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnicodeUnescapeBenchmark {
+
+    @Param({"none", "sparse", "dense"})
+    public String payload;
+
+    private String body;
+
+    @Setup
+    public void setup(){
+        StringBuilder builder = new StringBuilder("{\"code\":200,\"data\":[");
+        for (int i = 0; i < 100; i++) {
+            if(i > 0)
+                builder.append(',');
+            builder.append("{\"id\":").append(i).append(",\"name\":\"");
+            if("dense".equals(payload)){
+                builder.append("\\u5f20\\u4e09\\u674e\\u56db");
+            }else if("sparse".equals(payload) && i % 10 == 0){
+                builder.append("\\u5f20\\u4e09");
+            }else{
+                builder.append("user").append(i);
+            }
+            builder.append("\",\"url\":\"https://example.com/avatar/").append(i).append(".png\"}");
+        }
+        builder.append("]}");
+        body = builder.toString();
+    }
+
+    @Benchmark
+    public String regexReplace(){
+        String str = body;
+        Pattern pattern = Pattern.compile("(\\\\u(\\p{XDigit}{4}))");
+        Matcher matcher = pattern.matcher(str);
+        char ch;
+        while (matcher.find()) {
+            ch = (char) Integer.parseInt(matcher.group(2), 16);
+            str = str.replace(matcher.group(1), ch + "");
+        }
+        return str;
+    }
+
+    @Benchmark
+    public String singlePass(){
+        return UnicodeUtil.unescape(body);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UnicodeUnescapeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.okhttplib.download;
+
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.annotation.DownloadStatus;
+import com.okhttplib.annotation.Priority;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.helper.DownloadFixture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static com.okhttplib.helper.DownloadFixture.read;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 下载管理器测试：并发上限与优先级排队、暂停与继续、取消通知、下载异常以及关闭后从日志恢复任务
+ * @author zhousf
+ */
+public class DownloadManagerTest {
+
+    private static final int FILE_SIZE = 256 * 1024;
+
+    @Rule
+    public final DownloadFixture fixture = new DownloadFixture("okhttp-manager-");
+
+    private final byte[] bytes = DownloadFixture.bytes(FILE_SIZE,13,0);
+    private final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch blockArrived = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private OkHttpUtilInterface okHttpUtil;
+
+    @Before
+    public void setUp() {
+        fixture.server().setDispatcher(new BlockingDispatcher());
+        okHttpUtil = fixture.okHttpUtil();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void runsByPriorityWithinConcurrencyLimit() throws Exception {
+        DownloadManager manager = new DownloadManager(okHttpUtil,1,null);
+        manager.enqueue(fileInfo("block"),Priority.NORMAL);
+        assertTrue(blockArrived.await(10,TimeUnit.SECONDS));
+        String low = manager.enqueue(fileInfo("low"),Priority.PREFETCH);
+        String high = manager.enqueue(fileInfo("high"),Priority.CRITICAL);
+        assertEquals(DownloadStatus.WAITING,manager.getTask(low).getStatus());
+        assertEquals(DownloadStatus.WAITING,manager.getTask(high).getStatus());
+        release.countDown();
+        awaitStatus(manager,low,DownloadStatus.COMPLETED);
+        assertEquals(Arrays.asList("/block","/high","/low"),paths);
+        assertEquals(1,maxRunning.get());
+        assertArrayEquals(bytes,read(new File(fixture.dir(),"high.bin")));
+    }
+
+    @Test
+    public void restoresQueuedAndPausedTasksFromJournal() throws Exception {
+        File journal = new File(fixture.dir(),"downloads.journal");
+        DownloadManager manager = new DownloadManager(okHttpUtil,1,journal);
+        String block = manager.enqueue(fileInfo("block"),Priority.NORMAL);
+        assertTrue(blockArrived.await(10,TimeUnit.SECONDS));
+        String paused = manager.enqueue(fileInfo("paused"),Priority.NORMAL);
+        String queued = manager.enqueue(fileInfo("queued"),Priority.BACKGROUND);
+        assertTrue(manager.pause(paused));
+        assertEquals(DownloadStatus.PAUSE,manager.getTask(paused).getStatus());
+        //关闭时正在下载的任务停止，恢复后重新排队
+        manager.shutdown();
+        release.countDown();
+        awaitStatus(manager,block,DownloadStatus.WAITING);
+
+        DownloadManager restored = new DownloadManager(okHttpUtil,2,journal);
+        assertEquals(3,restored.restore().size());
+        assertEquals(DownloadStatus.PAUSE,restored.getTask(paused).getStatus());
+        awaitStatus(restored,block,DownloadStatus.COMPLETED);
+        awaitStatus(restored,queued,DownloadStatus.COMPLETED);
+        assertArrayEquals(bytes,read(new File(fixture.dir(),"block.bin")));
+        assertArrayEquals(bytes,read(new File(fixture.dir(),"queued.bin")));
+        assertEquals(DownloadStatus.PAUSE,restored.getTask(paused).getStatus());
+        assertTrue(restored.resume(paused));
+        awaitStatus(restored,paused,DownloadStatus.COMPLETED);
+        assertArrayEquals(bytes,read(new File(fixture.dir(),"paused.bin")));
+        assertTrue(restored.cancel(paused));
+        assertEquals(0,new DownloadManager(okHttpUtil,1,journal).restore().size());
+    }
+
+    @Test
+    public void notifiesCanceledTasks() throws Exception {
+        final List<String> canceled = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch activeCanceled = new CountDownLatch(1);
+        DownloadManager manager = new DownloadManager(okHttpUtil,1,null);
+        final String block = manager.enqueue(fileInfo("block"),Priority.NORMAL);
+        manager.setListener(new DownloadManager.Listener() {
+            @Override
+            public void onStatusChanged(DownloadTask task) {
+                if(DownloadStatus.CANCELED.equals(task.getStatus())){
+                    canceled.add(task.getId());
+                    if(block.equals(task.getId()))
+                        activeCanceled.countDown();
+                }
+            }
+        });
+        assertTrue(blockArrived.await(10,TimeUnit.SECONDS));
+        //排队中的任务取消后立即通知
+        String queued = manager.enqueue(fileInfo("queued"),Priority.NORMAL);
+        assertTrue(manager.cancel(queued));
+        assertEquals(Collections.singletonList(queued),canceled);
+        //正在下载的任务停止后通知
+        assertTrue(manager.cancel(block));
+        release.countDown();
+        assertTrue(activeCanceled.await(10,TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(queued,block),canceled);
+        assertNull(manager.getTask(block));
+        assertEquals(0,manager.getActiveCount());
+    }
+
+    @Test
+    public void pausesAndResumesActiveTask() throws Exception {
+        final CountDownLatch progressed = new CountDownLatch(1);
+        DownloadManager manager = new DownloadManager(okHttpUtil,1,null);
+        String slow = manager.enqueue(fixture.fileInfo("/slow","slow.bin",new ProgressCallback(){
+            @Override
+            public void onProgressAsync(int percent, long bytesWritten, long contentLength, boolean done) {
+                if(bytesWritten > 0)
+                    progressed.countDown();
+            }
+        }),Priority.NORMAL);
+        assertTrue(progressed.await(10,TimeUnit.SECONDS));
+        assertTrue(manager.pause(slow));
+        //下载过程中写入的DOWNLOADING状态不覆盖暂停请求
+        awaitStatus(manager,slow,DownloadStatus.PAUSE);
+        long completedSize = manager.getTask(slow).getCompletedSize();
+        assertTrue(completedSize > 0 && completedSize < FILE_SIZE);
+        assertEquals(0,manager.getActiveCount());
+        assertTrue(manager.resume(slow));
+        awaitStatus(manager,slow,DownloadStatus.COMPLETED);
+        assertArrayEquals(bytes,read(new File(fixture.dir(),"slow.bin")));
+        //从断点继续下载
+        assertEquals(2,ranges.size());
+        assertEquals("bytes=0-",ranges.get(0));
+        assertNotEquals("bytes=0-",ranges.get(1));
+        assertTrue(ranges.get(1),ranges.get(1).startsWith("bytes="));
+    }
+
+    @Test
+    public void failsTaskWhenDownloadThrows() throws Exception {
+        OkHttpUtilInterface throwing = (OkHttpUtilInterface) Proxy.newProxyInstance(
+                OkHttpUtilInterface.class.getClassLoader(),
+                new Class<?>[]{OkHttpUtilInterface.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        throw new IllegalStateException("boom");
+                    }
+                });
+        DownloadManager manager = new DownloadManager(throwing,1,null);
+        String first = manager.enqueue(fileInfo("first"),Priority.NORMAL);
+        awaitStatus(manager,first,DownloadStatus.FAILED);
+        //下载名额已释放，后续任务继续执行
+        String second = manager.enqueue(fileInfo("second"),Priority.NORMAL);
+        awaitStatus(manager,second,DownloadStatus.FAILED);
+        assertEquals(0,manager.getActiveCount());
+    }
+
+    private DownloadFileInfo fileInfo(String name){
+        return fixture.fileInfo("/" + name,name + ".bin",null);
+    }
+
+    private static void awaitStatus(DownloadManager manager, String id, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!status.equals(manager.getTask(id).getStatus())){
+            assertTrue("status: " + manager.getTask(id).getStatus(),System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 本地服务：/block请求等待释放后返回，/slow请求限速返回并支持Range请求
+     */
+    private final class BlockingDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            paths.add(request.getPath());
+            int count = running.incrementAndGet();
+            maxRunning.set(Math.max(maxRunning.get(),count));
+            try {
+                if("/slow".equals(request.getPath())){
+                    ranges.add(request.getHeader("Range"));
+                    MockResponse response = DownloadFixture.rangeResponse(bytes,request.getHeader("Range"));
+                    //首次请求限速返回，继续下载时直接返回
+                    if(ranges.size() == 1)
+                        response.throttleBody(16 * 1024,50,TimeUnit.MILLISECONDS);
+                    return response;
+                }
+                if("/block".equals(request.getPath()) && blockArrived.getCount() > 0){
+                    blockArrived.countDown();
+                    release.await(10,TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody(new Buffer().write(bytes));
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.okhttplib.executor;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.annotation.RejectPolicy;
+import com.okhttplib.callback.Callback;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 有界任务执行器测试：队列已满时被拒绝的请求回调RequestRejected，带请求标识时同样回调，CALLER_RUNS不在调度线程中执行延迟任务
+ * @author zhousf
+ */
+public class BoundedTaskExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BoundedTaskExecutor executor = new BoundedTaskExecutor("Test",1,1,RejectPolicy.ABORT);
+
+    @After
+    public void tearDown(){
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectedTaggedRequestIsDelivered() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        //占满执行线程与等待队列
+        executor.execute(new BlockingTask(started),0,TimeUnit.MILLISECONDS);
+        assertTrue(started.await(10,TimeUnit.SECONDS));
+        executor.execute(new BlockingTask(null),0,TimeUnit.MILLISECONDS);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<HttpInfo> result = new AtomicReference<>();
+        HttpInfo info = HttpInfo.Builder()
+                .setUrl("http://localhost/rejected")
+                .setDelayExec(1,TimeUnit.MILLISECONDS)
+                .build();
+        OkHttpUtil.Builder()
+                .setShowHttpLog(false)
+                .setApiExecutor(executor)
+                .build("ScreenA")
+                .doGetAsync(info,new Callback() {
+                    @Override
+                    public void onSuccess(HttpInfo info) {
+                        result.set(info);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(HttpInfo info) {
+                        result.set(info);
+                        done.countDown();
+                    }
+                });
+        assertTrue("rejected callback not delivered",done.await(10,TimeUnit.SECONDS));
+        assertEquals(HttpInfo.RequestRejected,result.get().getRetCode());
+    }
+
+    @Test
+    public void callerRunsRejectsDelayedTasks() throws Exception {
+        BoundedTaskExecutor callerRuns = new BoundedTaskExecutor("CallerRuns",1,1,RejectPolicy.CALLER_RUNS);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            callerRuns.execute(new BlockingTask(started),0,TimeUnit.MILLISECONDS);
+            assertTrue(started.await(10,TimeUnit.SECONDS));
+            callerRuns.execute(new BlockingTask(null),0,TimeUnit.MILLISECONDS);
+            //无延迟的任务在提交线程中执行
+            RecordingTask direct = new RecordingTask();
+            callerRuns.execute(direct,0,TimeUnit.MILLISECONDS);
+            assertEquals(Thread.currentThread(),direct.runThread.get());
+            //延迟任务不在共享的调度线程中执行
+            RecordingTask delayed = new RecordingTask();
+            callerRuns.execute(delayed,1,TimeUnit.MILLISECONDS);
+            assertTrue(delayed.rejected.await(10,TimeUnit.SECONDS));
+            assertNull(delayed.runThread.get());
+            assertEquals(1,callerRuns.getRejectedCount());
+        } finally {
+            release.countDown();
+            callerRuns.shutdown();
+        }
+    }
+
+    private static final class RecordingTask implements TaskExecutor.Task {
+
+        private final AtomicReference<Thread> runThread = new AtomicReference<>();
+        private final CountDownLatch rejected = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            runThread.set(Thread.currentThread());
+        }
+
+        @Override
+        public void onRejected() {
+            rejected.countDown();
+        }
+    }
+
+    private final class BlockingTask implements TaskExecutor.Task {
+
+        private final CountDownLatch started;
+
+        BlockingTask(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        public void run() {
+            if(null != started)
+                started.countDown();
+            try {
+                release.await(10,TimeUnit.SECONDS);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onRejected() {
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.okhttplib.executor;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.annotation.Priority;
+import com.okhttplib.callback.Callback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 优先级调度队列测试：单个主机的请求按优先级执行，任务抛出异常时其他待执行的任务继续执行
+ * @author zhousf
+ */
+public class PriorityDispatchQueueTest {
+
+    private final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch blockArrived = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                paths.add(request.getPath());
+                if("/block".equals(request.getPath())){
+                    blockArrived.countDown();
+                    release.await(10,TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void singleHostRequestsRunByPriority() throws Exception {
+        OkHttpUtilInterface okHttpUtil = OkHttpUtil.Builder()
+                .setShowHttpLog(false)
+                .setMaxRequestsPerHost(1)
+                .build();
+        CountDownLatch done = new CountDownLatch(3);
+        request(okHttpUtil,"/block",Priority.NORMAL,done);
+        assertTrue(blockArrived.await(10,TimeUnit.SECONDS));
+        request(okHttpUtil,"/background",Priority.BACKGROUND,done);
+        request(okHttpUtil,"/critical",Priority.CRITICAL,done);
+        assertEquals(2,okHttpUtil.getPriorityDispatchQueue(server.url("/").toString()).getQueuedCount());
+        release.countDown();
+        assertTrue(done.await(10,TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("/block","/critical","/background"),paths);
+    }
+
+    @Test
+    public void pendingTasksRunWhenTaskThrows(){
+        final PriorityDispatchQueue queue = new PriorityDispatchQueue(1,1,TimeUnit.SECONDS);
+        final AtomicBoolean ran = new AtomicBoolean();
+        queue.submit(Priority.NORMAL,new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        queue.submit(Priority.NORMAL,new Runnable() {
+            @Override
+            public void run() {
+                //请求同步结束后抛出异常
+                queue.finish();
+                throw new IllegalStateException("boom");
+            }
+        });
+        queue.submit(Priority.NORMAL,new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+                queue.finish();
+            }
+        });
+        try {
+            queue.finish();
+            fail();
+        } catch (IllegalStateException e){
+            assertEquals("boom",e.getMessage());
+        }
+        assertTrue(ran.get());
+        assertEquals(0,queue.getQueuedCount());
+        assertEquals(0,queue.getRunningCount());
+    }
+
+    private void request(OkHttpUtilInterface okHttpUtil, String path, @Priority int priority, final CountDownLatch done){
+        HttpInfo info = HttpInfo.Builder()
+                .setUrl(server.url(path).toString())
+                .setPriority(priority)
+                .build();
+        okHttpUtil.doGetAsync(info,new Callback() {
+            @Override
+            public void onSuccess(HttpInfo info) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(HttpInfo info) {
+                done.countDown();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.okhttplib.future;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.callback.CallRegistry;
+import com.okhttplib.callback.Callback;
+import com.okhttplib.executor.PriorityDispatchQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 异步请求结果测试：取消传递到网络请求与组合中正在进行的请求，allOf快速失败与完成，
+ * 已取消的排队请求释放执行名额，DirectCallback不受请求标识销毁的影响
+ * @author zhousf
+ */
+public class HttpFutureTest {
+
+    private final CountDownLatch slowArrived = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> paths = Collections.synchronizedList(new ArrayList<String>());
+    private final Map<String,Call> calls = new ConcurrentHashMap<>();
+    private MockWebServer server;
+    private OkHttpUtilInterface okHttpUtil;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                paths.add(request.getPath());
+                if("/slow".equals(request.getPath())){
+                    slowArrived.countDown();
+                    release.await(10,TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody("ok");
+            }
+        });
+        server.start();
+        okHttpUtil = newOkHttpUtil(5,null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void cancelReachesCall() throws Exception {
+        HttpFuture<HttpInfo> future = okHttpUtil.doFuture(info("/slow"));
+        assertTrue(slowArrived.await(10,TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        assertTrue(calls.get("/slow").isCanceled());
+        try {
+            future.get(1,TimeUnit.SECONDS);
+            fail();
+        } catch (CancellationException expected){
+        }
+    }
+
+    @Test
+    public void composeCancelsRunningStage() throws Exception {
+        final AtomicReference<HttpFuture<HttpInfo>> stage = new AtomicReference<>();
+        HttpFuture<HttpInfo> composed = okHttpUtil.doFuture(info("/a")).thenCompose(
+                new HttpFuture.Function<HttpInfo, HttpFuture<HttpInfo>>() {
+                    @Override
+                    public HttpFuture<HttpInfo> apply(HttpInfo info) {
+                        stage.set(okHttpUtil.doFuture(info("/slow")));
+                        return stage.get();
+                    }
+                });
+        assertTrue(slowArrived.await(10,TimeUnit.SECONDS));
+        assertTrue(composed.cancel(true));
+        assertTrue(stage.get().isCancelled());
+        assertTrue(calls.get("/slow").isCanceled());
+        assertFalse(calls.get("/a").isCanceled());
+    }
+
+    @Test
+    public void allOfCompletesAndFailsFast() throws Exception {
+        HttpFuture<HttpInfo> a = okHttpUtil.doFuture(info("/a"));
+        HttpFuture<HttpInfo> b = okHttpUtil.doFuture(info("/b"));
+        assertNull(HttpFuture.allOf(a,b).get(10,TimeUnit.SECONDS));
+        assertTrue(a.get().isSuccessful());
+        assertTrue(b.get().isSuccessful());
+
+        //任一结果失败时不等待其他结果
+        HttpFuture<HttpInfo> slow = okHttpUtil.doFuture(info("/slow"));
+        HttpFuture<HttpInfo> failed = new HttpFuture<>();
+        HttpFuture<Void> all = HttpFuture.allOf(slow,failed);
+        IOException error = new IOException("boom");
+        failed.completeExceptionally(error);
+        try {
+            all.get(1,TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e){
+            assertEquals(error,e.getCause());
+        }
+        assertFalse(slow.isDone());
+
+        //取消时取消所有结果
+        HttpFuture<Void> pending = HttpFuture.allOf(slow);
+        assertTrue(pending.cancel(true));
+        assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    public void cancelledQueuedRequestReleasesSlot() throws Exception {
+        OkHttpUtilInterface serial = newOkHttpUtil(1,null);
+        final CountDownLatch slowDone = new CountDownLatch(1);
+        serial.doGetAsync(info("/slow"),new Callback() {
+            @Override
+            public void onSuccess(HttpInfo info) {
+                slowDone.countDown();
+            }
+
+            @Override
+            public void onFailure(HttpInfo info) {
+                slowDone.countDown();
+            }
+        });
+        assertTrue(slowArrived.await(10,TimeUnit.SECONDS));
+        HttpFuture<HttpInfo> queued = serial.doFuture(info("/queued"));
+        PriorityDispatchQueue queue = serial.getPriorityDispatchQueue(server.url("/").toString());
+        assertEquals(1,queue.getQueuedCount());
+        assertTrue(queued.cancel(true));
+        release.countDown();
+        assertTrue(slowDone.await(10,TimeUnit.SECONDS));
+        //已取消的请求不创建网络请求，执行名额交给后续请求
+        HttpInfo next = serial.doFuture(info("/next")).get(10,TimeUnit.SECONDS);
+        assertTrue(next.isSuccessful());
+        assertFalse(calls.containsKey("/queued"));
+        assertFalse(paths.contains("/queued"));
+        assertEquals(0,queue.getQueuedCount());
+    }
+
+    @Test
+    public void directCallbackIgnoresDestroyedTag() throws Exception {
+        OkHttpUtilInterface tagged = newOkHttpUtil(5,"FutureScreen");
+        HttpFuture<HttpInfo> future = tagged.doFuture(info("/slow"));
+        assertTrue(slowArrived.await(10,TimeUnit.SECONDS));
+        //请求标识销毁：取消请求，普通回调不再执行
+        CallRegistry.cancel("FutureScreen");
+        assertTrue(CallRegistry.isDestroyed("FutureScreen"));
+        HttpInfo info = future.get(10,TimeUnit.SECONDS);
+        assertFalse(info.isSuccessful());
+    }
+
+    private OkHttpUtilInterface newOkHttpUtil(int maxRequestsPerHost, String requestTag){
+        List<Interceptor> interceptors = new ArrayList<>();
+        interceptors.add(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                calls.put(chain.request().url().encodedPath(),chain.call());
+                return chain.proceed(chain.request());
+            }
+        });
+        OkHttpUtil.Builder builder = OkHttpUtil.Builder()
+                .setShowHttpLog(false)
+                .setMaxRequestsPerHost(maxRequestsPerHost)
+                .setInterceptors(interceptors);
+        return null == requestTag ? builder.build() : builder.build(requestTag);
+    }
+
+    private HttpInfo info(String path){
+        return HttpInfo.Builder().setUrl(server.url(path).toString()).build();
+    }
+
+}
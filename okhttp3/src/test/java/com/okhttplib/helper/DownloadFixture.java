@@ -0,0 +1,141 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.util.EncryptUtil;
+
+import org.junit.rules.ExternalResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.Okio;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 下载测试环境：每个测试使用独立的本地服务与下载目录，测试结束后关闭服务并删除下载目录
+ * @author zhousf
+ */
+public final class DownloadFixture extends ExternalResource {
+
+    private final String dirPrefix;
+    private MockWebServer server;
+    private File dir;
+
+    /**
+     * @param dirPrefix 下载目录名称前缀
+     */
+    public DownloadFixture(String dirPrefix) {
+        this.dirPrefix = dirPrefix;
+    }
+
+    @Override
+    protected void before() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        dir = new File(System.getProperty("java.io.tmpdir"),dirPrefix + System.nanoTime());
+        assertTrue(dir.mkdirs());
+    }
+
+    @Override
+    protected void after() {
+        try {
+            server.shutdown();
+        } catch (IOException e){
+            throw new AssertionError(e);
+        }
+        File[] files = dir.listFiles();
+        if(null != files){
+            for(File file : files){
+                assertTrue(file.delete());
+            }
+        }
+        assertTrue(dir.delete());
+    }
+
+    public MockWebServer server() {
+        return server;
+    }
+
+    public File dir() {
+        return dir;
+    }
+
+    /**
+     * 下载到测试目录的OkHttpUtil
+     */
+    public OkHttpUtilInterface okHttpUtil(){
+        return OkHttpUtil.Builder()
+                .setShowHttpLog(false)
+                .setDownloadFileDir(dir.getAbsolutePath() + "/")
+                .build();
+    }
+
+    public DownloadFileInfo fileInfo(String path, String saveFileName, ProgressCallback callback){
+        return new DownloadFileInfo(server.url(path).toString(),saveFileName,callback);
+    }
+
+    /**
+     * 同步下载
+     * @param path 下载路径
+     * @param segmentCount 分段数
+     */
+    public HttpInfo download(String path, int segmentCount){
+        DownloadFileInfo fileInfo = fileInfo(path,path.substring(path.lastIndexOf('/') + 1),null);
+        fileInfo.setSegmentCount(segmentCount);
+        HttpInfo info = HttpInfo.Builder().addDownloadFile(fileInfo).build();
+        okHttpUtil().doDownloadFileSync(info);
+        return info;
+    }
+
+    /**
+     * 断点文件：下载目录中以下载地址MD5命名的文件
+     * @param suffix 断点文件后缀，断点文件本身为空字符串
+     */
+    public File tempFile(String path, String suffix) throws Exception {
+        return new File(dir,EncryptUtil.MD5StringTo32Bit(server.url(path).toString(),true) + suffix);
+    }
+
+    /**
+     * 测试文件内容
+     */
+    public static byte[] bytes(int size, int factor, int offset){
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * factor + offset);
+        }
+        return bytes;
+    }
+
+    public static byte[] read(File file) throws IOException {
+        return Okio.buffer(Okio.source(file)).readByteArray();
+    }
+
+    public static byte[] read(String path) throws IOException {
+        return read(new File(path));
+    }
+
+    /**
+     * 按Range返回文件内容：没有Range时返回完整文件
+     */
+    public static MockResponse rangeResponse(byte[] bytes, String range){
+        if(null == range)
+            return new MockResponse().setBody(new Buffer().write(bytes));
+        String[] bounds = range.substring("bytes=".length()).split("-",-1);
+        int start = Integer.parseInt(bounds[0]);
+        int end = bounds[1].isEmpty() ? bytes.length - 1 : Integer.parseInt(bounds[1]);
+        return new MockResponse()
+                .setResponseCode(206)
+                .setHeader("Content-Range","bytes " + start + "-" + end + "/" + bytes.length)
+                .setBody(new Buffer().write(Arrays.copyOfRange(bytes,start,end + 1)));
+    }
+
+}
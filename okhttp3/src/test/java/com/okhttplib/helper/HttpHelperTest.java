@@ -0,0 +1,144 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 响应读取测试：一次性读取响应体时保留换行符，返回字节数组，Content-Length过大或缺失时按实际数据读取，
+ * 按类型从响应流解析对象
+ * @author zhousf
+ */
+public class HttpHelperTest {
+
+    private MockWebServer server;
+    private OkHttpUtilInterface okHttpUtil;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        okHttpUtil = OkHttpUtil.Builder().setShowHttpLog(false).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void keepsNewlines() throws Exception {
+        String body = "line1\nline2\r\n\n中文\n";
+        server.enqueue(new MockResponse().setBody(body));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder().setUrl(server.url("/text").toString()).build());
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertEquals(body,info.getRetDetail());
+    }
+
+    @Test
+    public void returnsBytes() throws Exception {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        server.enqueue(new MockResponse().setBody(new Buffer().write(bytes)));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder()
+                .setUrl(server.url("/bytes").toString())
+                .setNeedBytes(true)
+                .build());
+        assertTrue(info.isSuccessful());
+        assertArrayEquals(bytes,info.getRetBytes());
+    }
+
+    @Test
+    public void readsBodyWithoutContentLength() throws Exception {
+        String body = "chunk\n" + repeat('a',10000) + "\nend";
+        //分块传输：响应没有Content-Length
+        server.enqueue(new MockResponse().setChunkedBody(body,1024));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder().setUrl(server.url("/chunked").toString()).build());
+        assertTrue(info.isSuccessful());
+        assertEquals(body,info.getRetDetail());
+    }
+
+    @Test
+    public void readsBodyLargerThanPresizeLimit() throws Exception {
+        byte[] bytes = new byte[(int) HttpHelper.MAX_PRESIZED_BODY + 1];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        server.enqueue(new MockResponse().setBody(new Buffer().write(bytes)));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder()
+                .setUrl(server.url("/large").toString())
+                .setNeedBytes(true)
+                .build());
+        assertTrue(info.isSuccessful());
+        assertArrayEquals(bytes,info.getRetBytes());
+    }
+
+    @Test
+    public void parsesRetType() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"users\":[{\"name\":\"a\",\"age\":20},{\"name\":\"b\",\"age\":21}]}"));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder()
+                .setUrl(server.url("/json").toString())
+                .setRetType(Result.class)
+                .build());
+        assertTrue(info.isSuccessful());
+        Result result = info.getRetObject();
+        assertEquals(200,result.code);
+        assertEquals(2,result.users.size());
+        assertEquals("b",result.users.get(1).name);
+        assertEquals(21,result.users.get(1).age);
+        //按类型解析时不生成返回结果字符串
+        assertEquals("",info.getRetDetail());
+    }
+
+    @Test
+    public void malformedJsonFails() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"code\":200,\"users\":[{\"name\":"));
+        HttpInfo info = okHttpUtil.doGetSync(HttpInfo.Builder()
+                .setUrl(server.url("/json").toString())
+                .setRetType(Result.class)
+                .build());
+        assertFalse(info.isSuccessful());
+        assertEquals(HttpInfo.NoResult,info.getRetCode());
+        assertNull(info.getRetObject());
+        //返回结果为解析异常信息
+        assertTrue(info.getRetDetail(),info.getRetDetail().startsWith("[java.io.EOFException: End of input"));
+    }
+
+    private static String repeat(char c, int count){
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    static class Result {
+        int code;
+        List<User> users;
+    }
+
+    static class User {
+        String name;
+        int age;
+    }
+
+}
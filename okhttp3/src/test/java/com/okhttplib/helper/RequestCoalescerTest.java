@@ -0,0 +1,119 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.callback.Callback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 请求合并测试：只合并同一请求标识下的请求，挂靠的请求各自持有结果副本
+ * @author zhousf
+ */
+public class RequestCoalescerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Map<String,HttpInfo> results = new ConcurrentHashMap<>();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(10,TimeUnit.SECONDS);
+                return new MockResponse().setBody("ok hello");
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void requestsFromDifferentTagsAreNotCoalesced() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        request("ScreenA","a",done);
+        request("ScreenB","b",done);
+        awaitRequestCount(2);
+        release.countDown();
+        assertTrue(done.await(10,TimeUnit.SECONDS));
+        assertArrayEquals("ok hello".getBytes("UTF-8"),results.get("a").getRetBytes());
+        assertArrayEquals("ok hello".getBytes("UTF-8"),results.get("b").getRetBytes());
+    }
+
+    @Test
+    public void followerGetsOwnCopyOfResult() throws Exception {
+        long saved = RequestCoalescer.getSavedCount();
+        CountDownLatch done = new CountDownLatch(2);
+        request("ScreenA","leader",done);
+        awaitRequestCount(1);
+        request("ScreenA","follower",done);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (RequestCoalescer.getSavedCount() == saved){
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        release.countDown();
+        assertTrue(done.await(10,TimeUnit.SECONDS));
+        assertEquals(1,server.getRequestCount());
+        byte[] leader = results.get("leader").getRetBytes();
+        byte[] follower = results.get("follower").getRetBytes();
+        assertArrayEquals("ok hello".getBytes("UTF-8"),follower);
+        assertArrayEquals(leader,follower);
+        assertNotSame(leader,follower);
+    }
+
+    private void request(String requestTag, final String name, final CountDownLatch done){
+        HttpInfo info = HttpInfo.Builder()
+                .setUrl(server.url("/hello").toString())
+                .setNeedBytes(true)
+                .setCoalesce(true)
+                .build();
+        OkHttpUtil.Builder().setShowHttpLog(false).build(requestTag).doGetAsync(info,new Callback() {
+            @Override
+            public void onSuccess(HttpInfo info) {
+                results.put(name,info);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(HttpInfo info) {
+                results.put(name,info);
+                done.countDown();
+            }
+        });
+    }
+
+    private void awaitRequestCount(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (server.getRequestCount() < count){
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
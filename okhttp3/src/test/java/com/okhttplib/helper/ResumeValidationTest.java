@@ -0,0 +1,134 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static com.okhttplib.helper.DownloadFixture.read;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 断点校验测试：继续下载时发送If-Range，服务器文件未变化时续传，变化时重新下载
+ * @author zhousf
+ */
+public class ResumeValidationTest {
+
+    private static final int FILE_SIZE = (int) (SegmentDownloader.MIN_SEGMENT_SIZE * 2 + 7);
+    private static final int HALF = FILE_SIZE / 2;
+    private static final String PATH = "/file.bin";
+
+    @Rule
+    public final DownloadFixture fixture = new DownloadFixture("okhttp-resume-");
+
+    private final byte[] v1 = DownloadFixture.bytes(FILE_SIZE,31,0);
+    private final byte[] v2 = DownloadFixture.bytes(FILE_SIZE,17,5);
+    private final List<String> ifRanges = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Integer> codes = Collections.synchronizedList(new ArrayList<Integer>());
+    private volatile boolean changed;
+
+    @Before
+    public void setUp() {
+        fixture.server().setDispatcher(new VersionDispatcher());
+    }
+
+    @Test
+    public void resumesUnchangedFile() throws Exception {
+        writePartial();
+        HttpInfo info = fixture.download(PATH,1);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(v1,read(info.getRetDetail()));
+        assertEquals(Collections.singletonList("\"v1\""),ifRanges);
+        assertEquals(Collections.singletonList(206),codes);
+        assertFalse(fixture.tempFile(PATH,DownloadMeta.META_SUFFIX).exists());
+    }
+
+    @Test
+    public void restartsWhenFileChanged() throws Exception {
+        writePartial();
+        changed = true;
+        HttpInfo info = fixture.download(PATH,1);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(v2,read(info.getRetDetail()));
+        assertEquals(Collections.singletonList(200),codes);
+    }
+
+    @Test
+    public void restartsSegmentsWhenFileChanged() throws Exception {
+        SegmentDownloader.SegmentState state = SegmentDownloader.SegmentState.split(FILE_SIZE,2);
+        RandomAccessFile accessFile = new RandomAccessFile(fixture.tempFile(PATH,""),"rw");
+        try {
+            accessFile.setLength(FILE_SIZE);
+            accessFile.write(v1,0,100);
+            state.checkpoint(0,100);
+        } finally {
+            accessFile.close();
+        }
+        state.write(fixture.tempFile(PATH,SegmentDownloader.STATE_SUFFIX));
+        new DownloadMeta("\"v1\"",null,FILE_SIZE).write(fixture.tempFile(PATH,DownloadMeta.META_SUFFIX));
+        changed = true;
+
+        HttpInfo info = fixture.download(PATH,2);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(v2,read(info.getRetDetail()));
+        assertTrue(ifRanges.contains("\"v1\""));
+        assertTrue(codes.contains(200));
+    }
+
+    /**
+     * 单线程下载的断点：前半部分文件与元数据
+     */
+    private void writePartial() throws Exception {
+        FileOutputStream out = new FileOutputStream(fixture.tempFile(PATH,""));
+        try {
+            out.write(Arrays.copyOf(v1,HALF));
+        } finally {
+            out.close();
+        }
+        new DownloadMeta("\"v1\"","Mon, 01 Jan 2024 00:00:00 GMT",FILE_SIZE)
+                .write(fixture.tempFile(PATH,DownloadMeta.META_SUFFIX));
+    }
+
+    /**
+     * 本地服务：按If-Range返回部分或完整文件
+     */
+    private final class VersionDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            byte[] bytes = changed ? v2 : v1;
+            String etag = changed ? "\"v2\"" : "\"v1\"";
+            if("HEAD".equals(request.getMethod())){
+                return new MockResponse()
+                        .setHeader("Content-Length",FILE_SIZE)
+                        .setHeader("Accept-Ranges","bytes")
+                        .setHeader("ETag",etag);
+            }
+            String range = request.getHeader("Range");
+            String ifRange = request.getHeader("If-Range");
+            if(null != ifRange)
+                ifRanges.add(ifRange);
+            //服务器文件已变化：忽略Range返回完整文件
+            if(null != ifRange && !ifRange.equals(etag))
+                range = null;
+            codes.add(null == range ? 200 : 206);
+            return DownloadFixture.rangeResponse(bytes,range).setHeader("ETag",etag);
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.okhttplib.helper;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.bean.DownloadFileInfo;
+import com.okhttplib.callback.ProgressCallback;
+import com.okhttplib.platform.CallbackExecutor;
+import com.okhttplib.platform.Platform;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static com.okhttplib.helper.DownloadFixture.read;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分段下载测试：分段并行下载、服务器不支持Range时单线程下载以及按分段进度续传
+ * @author zhousf
+ */
+public class SegmentDownloaderTest {
+
+    private static final int FILE_SIZE = (int) (SegmentDownloader.MIN_SEGMENT_SIZE * 4 + 123);
+    private static final String PATH = "/file.bin";
+
+    @Rule
+    public final DownloadFixture fixture = new DownloadFixture("okhttp-segment-");
+
+    private final byte[] bytes = DownloadFixture.bytes(FILE_SIZE,31,0);
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private boolean acceptRanges = true;
+
+    @Before
+    public void setUp() {
+        fixture.server().setDispatcher(new RangeDispatcher());
+    }
+
+    @Test
+    public void downloadsSegmentsInParallel() throws Exception {
+        HttpInfo info = fixture.download(PATH,4);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(bytes,read(info.getRetDetail()));
+        assertEquals(4,ranges.size());
+        assertFalse(fixture.tempFile(PATH,SegmentDownloader.STATE_SUFFIX).exists());
+    }
+
+    @Test
+    public void fallsBackToSingleStreamWithoutRangeSupport() throws Exception {
+        acceptRanges = false;
+        HttpInfo info = fixture.download(PATH,4);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(bytes,read(info.getRetDetail()));
+        assertEquals(Collections.singletonList("bytes=0-"),ranges);
+    }
+
+    @Test
+    public void resumesFromSegmentState() throws Exception {
+        //前两段已完成一半
+        SegmentDownloader.SegmentState state = SegmentDownloader.SegmentState.split(FILE_SIZE,4);
+        RandomAccessFile accessFile = new RandomAccessFile(fixture.tempFile(PATH,""),"rw");
+        try {
+            accessFile.setLength(FILE_SIZE);
+            for (int i = 0; i < 2; i++) {
+                int half = (int) ((state.ends[i] - state.starts[i] + 1) / 2);
+                accessFile.seek(state.starts[i]);
+                accessFile.write(bytes,(int) state.starts[i],half);
+                state.checkpoint(i,state.starts[i] + half);
+            }
+        } finally {
+            accessFile.close();
+        }
+        state.write(fixture.tempFile(PATH,SegmentDownloader.STATE_SUFFIX));
+
+        HttpInfo info = fixture.download(PATH,1);
+        assertTrue(info.getRetDetail(),info.isSuccessful());
+        assertArrayEquals(bytes,read(info.getRetDetail()));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            expected.add("bytes=" + state.position(i) + "-" + state.ends[i]);
+        }
+        List<String> actual = new ArrayList<>(ranges);
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected,actual);
+    }
+
+    @Test
+    public void taggedAsyncDownloadIsDelivered() throws Exception {
+        final ExecutorService callbackThread = Executors.newSingleThreadExecutor();
+        Platform.setCallbackExecutor(new CallbackExecutor() {
+            @Override
+            public void execute(Runnable command) {
+                callbackThread.execute(command);
+            }
+        });
+        try {
+            final CountDownLatch done = new CountDownLatch(1);
+            final AtomicReference<HttpInfo> result = new AtomicReference<>();
+            DownloadFileInfo fileInfo = fixture.fileInfo(PATH,"file.bin",new ProgressCallback(){
+                @Override
+                public void onResponseMain(String filePath, HttpInfo info) {
+                    result.set(info);
+                    done.countDown();
+                }
+            });
+            fileInfo.setSegmentCount(4);
+            OkHttpUtil.Builder()
+                    .setShowHttpLog(false)
+                    .setDownloadFileDir(fixture.dir().getAbsolutePath() + "/")
+                    .build("SegmentScreen")
+                    .doDownloadFileAsync(HttpInfo.Builder().addDownloadFile(fileInfo).build());
+            assertTrue(done.await(10,TimeUnit.SECONDS));
+            assertTrue(result.get().getRetDetail(),result.get().isSuccessful());
+            assertEquals(4,ranges.size());
+            assertArrayEquals(bytes,read(new File(fixture.dir(),"file.bin")));
+        } finally {
+            Platform.setCallbackExecutor(null);
+            callbackThread.shutdown();
+        }
+    }
+
+    /**
+     * 本地服务：HEAD返回文件长度，GET支持Range请求
+     */
+    private final class RangeDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if("HEAD".equals(request.getMethod())){
+                MockResponse response = new MockResponse().setHeader("Content-Length",FILE_SIZE);
+                if(acceptRanges)
+                    response.setHeader("Accept-Ranges","bytes");
+                return response;
+            }
+            String range = request.getHeader("Range");
+            ranges.add(range);
+            return DownloadFixture.rangeResponse(bytes,acceptRanges ? range : null);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 异步日志输出测试
+ * @author zhousf
+ */
+public class AsyncLogSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void concurrentProducersLoseNothingWhenNotFull() throws Exception {
+        final CollectingWriter writer = new CollectingWriter();
+        final AsyncLogSink sink = new AsyncLogSink(1 << 16,-1,writer);
+        final int threads = 4;
+        final int perThread = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e){
+                        return ;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        sink.log(LogLevel.DEBUG,"tag",id + ":" + i);
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for(Thread thread : producers){
+            thread.join();
+        }
+        sink.shutdown(5000);
+        assertEquals(0,sink.getDroppedCount());
+        assertEquals(threads * perThread,sink.getWrittenCount());
+        Set<String> unique = new HashSet<>(writer.messages);
+        assertEquals(threads * perThread,unique.size());
+        assertTrue(writer.closed);
+    }
+
+    @Test
+    public void fullBufferDropsAndCounts() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        CollectingWriter writer = new CollectingWriter(){
+            @Override
+            public void write(LogEvent event) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e){
+                    throw new IOException(e);
+                }
+                super.write(event);
+            }
+        };
+        AsyncLogSink sink = new AsyncLogSink(8,-1,writer);
+        for (int i = 0; i < 100; i++) {
+            sink.log(LogLevel.DEBUG,"tag","m" + i);
+        }
+        assertTrue(sink.getDroppedCount() > 0);
+        release.countDown();
+        sink.shutdown(5000);
+        assertEquals(100,sink.getDroppedCount() + sink.getWrittenCount());
+        assertFalse(sink.logEvent(LogEvent.message(LogLevel.DEBUG,"tag","late")));
+    }
+
+    @Test
+    public void messagesAreTruncated() throws Exception {
+        CollectingWriter writer = new CollectingWriter();
+        AsyncLogSink sink = new AsyncLogSink(16,4,writer);
+        sink.log(LogLevel.DEBUG,"tag","0123456789");
+        sink.shutdown(5000);
+        assertEquals("0123...(10 chars)",writer.messages.get(0));
+    }
+
+    @Test
+    public void rotatingFileKeepsBackups() throws Exception {
+        File file = new File(folder.getRoot(),"logs/http.log");
+        RotatingFileWriter writer = new RotatingFileWriter(file,200,2);
+        for (int i = 0; i < 50; i++) {
+            writer.write(LogEvent.Builder().setTag("tag").setMessage("line " + i).build());
+        }
+        writer.close();
+        assertTrue(file.exists());
+        assertTrue(file.length() <= 200);
+        assertTrue(new File(file.getPath() + ".1").exists());
+        assertTrue(new File(file.getPath() + ".2").exists());
+        assertFalse(new File(file.getPath() + ".3").exists());
+    }
+
+    private static class CollectingWriter implements LogEventWriter {
+
+        final List<String> messages = new ArrayList<>();
+        volatile boolean closed;
+
+        @Override
+        public void write(LogEvent event) throws IOException {
+            messages.add(event.getMessage());
+        }
+
+        @Override
+        public void flush() throws IOException {
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+
+}
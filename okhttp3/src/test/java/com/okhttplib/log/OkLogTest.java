@@ -0,0 +1,120 @@
+package com.okhttplib.log;
+
+import com.okhttplib.annotation.LogLevel;
+import com.okhttplib.platform.Platform;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 日志门面测试：日志关闭时不生成日志信息、不调用日志输出、不分配内存
+ * @author zhousf
+ */
+public class OkLogTest {
+
+    private CountingSink sink;
+    private int messageCount;
+
+    private final LogMessage message = new LogMessage() {
+        @Override
+        public String get() {
+            messageCount++;
+            return "message";
+        }
+    };
+
+    @Before
+    public void setUp(){
+        sink = new CountingSink();
+        OkLog.setSink(sink);
+        messageCount = 0;
+    }
+
+    @After
+    public void tearDown(){
+        OkLog.setLevel(LogLevel.DEBUG);
+        OkLog.setSink(Platform.defaultLogSink());
+    }
+
+    @Test
+    public void disabledLevelSkipsMessageAndSink(){
+        OkLog.setLevel(LogLevel.NONE);
+        assertFalse(OkLog.isLoggable(LogLevel.ERROR));
+        OkLog.d("tag",message);
+        OkLog.e("tag","error");
+        assertEquals(0,messageCount);
+        assertEquals(0,sink.count);
+    }
+
+    @Test
+    public void nullSinkDisablesLogging(){
+        OkLog.setSink(null);
+        assertFalse(OkLog.isLoggable(LogLevel.ERROR));
+        OkLog.d("tag",message);
+        assertEquals(0,messageCount);
+    }
+
+    @Test
+    public void enabledLevelWritesToSink(){
+        OkLog.setLevel(LogLevel.INFO);
+        OkLog.d("tag",message);
+        OkLog.w("tag","warn");
+        assertEquals(0,messageCount);
+        assertEquals(1,sink.count);
+        assertEquals(LogLevel.WARN,sink.lastLevel);
+        assertTrue(OkLog.isLoggable(LogLevel.ERROR));
+    }
+
+    @Test
+    public void disabledLoggingDoesNotAllocate(){
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        OkLog.setLevel(LogLevel.NONE);
+        String url = "https://example.com/api";
+        //预热
+        for (int i = 0; i < 100000; i++) {
+            logRequest(url,i);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            logRequest(url,i);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertEquals(0,messageCount);
+        assertEquals(0,sink.count);
+        //允许测量本身的少量分配，远小于每次调用拼接字符串的开销
+        assertTrue("allocated "+allocated+" bytes",allocated < 1024);
+    }
+
+    private void logRequest(String url, int code){
+        if(OkLog.isLoggable(LogLevel.DEBUG))
+            OkLog.d("tag",String.format("GET-URL: %s %d",url,code));
+        OkLog.d("tag",message);
+    }
+
+    private static class CountingSink implements LogSink {
+
+        int count;
+        int lastLevel;
+
+        @Override
+        public void log(@LogLevel int level, String tag, String msg) {
+            count++;
+            lastLevel = level;
+        }
+    }
+
+}
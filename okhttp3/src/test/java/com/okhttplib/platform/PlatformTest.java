@@ -0,0 +1,93 @@
+package com.okhttplib.platform;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.OkHttpUtil;
+import com.okhttplib.OkHttpUtilInterface;
+import com.okhttplib.callback.Callback;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 运行平台测试：JVM中不依赖Android类型完成同步与异步请求，回调通过回调执行器分发
+ * @author zhousf
+ */
+public class PlatformTest {
+
+    @After
+    public void tearDown(){
+        Platform.setCallbackExecutor(null);
+        Platform.setConnectivityProvider(null);
+    }
+
+    @Test
+    public void jvmDefaults(){
+        assertFalse(Platform.isAndroid());
+        assertSame(CallbackExecutor.DIRECT,Platform.getCallbackExecutor());
+        assertSame(ConnectivityProvider.ALWAYS_AVAILABLE,Platform.getConnectivityProvider());
+    }
+
+    @Test
+    public void asyncCallbackRunsOnCallbackExecutor() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("ok"));
+        server.start();
+        try {
+            final AtomicInteger executed = new AtomicInteger();
+            Platform.setCallbackExecutor(new CallbackExecutor() {
+                @Override
+                public void execute(Runnable command) {
+                    executed.incrementAndGet();
+                    command.run();
+                }
+            });
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<String> result = new AtomicReference<>();
+            OkHttpUtilInterface okHttpUtil = OkHttpUtil.Builder().setShowHttpLog(false).build();
+            okHttpUtil.doGetAsync(HttpInfo.Builder().setUrl(server.url("/").toString()).build(), new Callback() {
+                @Override
+                public void onSuccess(HttpInfo info) {
+                    result.set(info.getRetDetail());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(HttpInfo info) {
+                    result.set("failure: " + info.getRetDetail());
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(10,TimeUnit.SECONDS));
+            assertEquals("ok",result.get());
+            assertEquals(1,executed.get());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void connectivityProviderDecidesCheckNet(){
+        Platform.setConnectivityProvider(new ConnectivityProvider() {
+            @Override
+            public boolean isNetworkAvailable() {
+                return false;
+            }
+        });
+        OkHttpUtil okHttpUtil = (OkHttpUtil) OkHttpUtil.Builder().setShowHttpLog(false).build();
+        assertFalse(okHttpUtil.isNetworkAvailable());
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.okhttplib.stat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 请求事件监听测试：新建连接与复用连接的各阶段耗时，未经历的阶段为-1，未获取到连接的请求不计为复用
+ * @author zhousf
+ */
+public class CallEventListenerTest {
+
+    private static final String HOST = "timing.test";
+
+    private MockWebServer server;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        HostTimingStat.reset();
+        server = new MockWebServer();
+        server.start();
+        //独立的主机名：避免其他测试的请求计入该主机的汇总
+        client = new OkHttpClient.Builder()
+                .eventListenerFactory(CallEventListener.FACTORY)
+                .dns(new Dns() {
+                    @Override
+                    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+                        if(HOST.equals(hostname))
+                            return Dns.SYSTEM.lookup(server.getHostName());
+                        throw new UnknownHostException(hostname);
+                    }
+                })
+                .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        HostTimingStat.reset();
+    }
+
+    @Test
+    public void recordsFreshAndReusedConnections() throws Exception {
+        server.enqueue(new MockResponse().setBody("first"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+        CallTiming fresh = execute(client,url("/first"));
+        assertTrue(fresh.isCompleted());
+        assertFalse(fresh.isFailed());
+        assertFalse(fresh.isConnectionReused());
+        assertTrue(fresh.getConnectTime() >= 0);
+        assertEquals(CallTiming.NONE,fresh.getTlsTime());
+        assertTrue(fresh.getRequestTime() >= 0);
+        assertTrue(fresh.getFirstByteTime() >= 0);
+        assertTrue(fresh.getResponseBodyTime() >= 0);
+        assertTrue(fresh.getTotalTime() >= 0);
+        assertEquals(CallTiming.NONE,fresh.getRequestBytes());
+        assertEquals(5,fresh.getResponseBytes());
+
+        CallTiming reused = execute(client,url("/second"));
+        assertTrue(reused.isConnectionReused());
+        assertEquals(CallTiming.NONE,reused.getDnsTime());
+        assertEquals(CallTiming.NONE,reused.getConnectTime());
+        assertEquals(CallTiming.NONE,reused.getTlsTime());
+        assertTrue(reused.getFirstByteTime() >= 0);
+        assertEquals(6,reused.getResponseBytes());
+
+        HostTimingStat.HostTiming hostTiming = HostTimingStat.getHostTiming(HOST);
+        assertEquals(2,hostTiming.getCallCount());
+        assertEquals(1,hostTiming.getReusedCount());
+    }
+
+    @Test
+    public void dnsFailureIsNotReused() throws Exception {
+        CallTiming timing = new CallTiming();
+        try {
+            client.newCall(request("http://unknown.test/",timing)).execute();
+            fail();
+        } catch (UnknownHostException expected){
+        }
+        assertTrue(timing.isFailed());
+        assertFalse(timing.isConnectionReused());
+        assertEquals(CallTiming.NONE,timing.getConnectTime());
+        assertEquals(CallTiming.NONE,timing.getFirstByteTime());
+        HostTimingStat.HostTiming hostTiming = HostTimingStat.getHostTiming("unknown.test");
+        assertEquals(1,hostTiming.getFailedCount());
+        assertEquals(0,hostTiming.getReusedCount());
+    }
+
+    private String url(String path){
+        return server.url(path).newBuilder().host(HOST).build().toString();
+    }
+
+    private static CallTiming execute(OkHttpClient client, String url) throws IOException {
+        CallTiming timing = new CallTiming();
+        Response response = client.newCall(request(url,timing)).execute();
+        try {
+            response.body().string();
+        } finally {
+            response.close();
+        }
+        return timing;
+    }
+
+    private static Request request(String url, CallTiming timing){
+        return new Request.Builder().url(url).tag(CallTiming.class,timing).build();
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.okhttplib.stat;
+
+import com.okhttplib.HttpInfo;
+import com.okhttplib.annotation.RequestType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 请求指标测试：直方图分桶、百分位误差、并发记录以及按主机与请求方式汇总
+ * @author zhousf
+ */
+public class MetricsRegistryTest {
+
+    @Before
+    public void setUp(){
+        MetricsRegistry.reset();
+    }
+
+    @After
+    public void tearDown(){
+        MetricsRegistry.reset();
+    }
+
+    @Test
+    public void bucketsAreContinuous(){
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+            if(index > 0)
+                assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+    }
+
+    @Test
+    public void percentilesWithinBucketError(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000,snapshot.getCount());
+        assertEquals(1000000,snapshot.getMax());
+        assertWithin(500000,snapshot.getValueAtPercentile(50));
+        assertWithin(900000,snapshot.getValueAtPercentile(90));
+        assertWithin(990000,snapshot.getValueAtPercentile(99));
+        assertEquals(1000000,snapshot.getValueAtPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual){
+        assertTrue(expected + " vs " + actual, actual >= expected && actual <= expected * 1.125);
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int perThread = 50000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e){
+                        return ;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(i);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for(Thread worker : workers){
+            worker.join();
+        }
+        assertEquals(threads * perThread,histogram.snapshot().getCount());
+        assertEquals(perThread - 1,histogram.snapshot().getMax());
+    }
+
+    @Test
+    public void aggregatesPerHostAndRequestType(){
+        MetricsRegistry.record("a.com",RequestType.GET,HttpInfo.SUCCESS,10000000L,-1,100,false);
+        MetricsRegistry.record("a.com",RequestType.GET,HttpInfo.SUCCESS,20000000L,-1,100,true);
+        MetricsRegistry.record("a.com",RequestType.GET,HttpInfo.CheckNet,30000000L,-1,-1,false);
+        MetricsRegistry.record("a.com",RequestType.POST,HttpInfo.GatewayTimeOut,40000000L,50,-1,false);
+        MetricsRegistry.record("b.com",RequestType.GET,HttpInfo.SUCCESS,5000000L,-1,10,false);
+        List<MetricsSnapshot> snapshots = MetricsRegistry.snapshot();
+        assertEquals(3,snapshots.size());
+
+        MetricsSnapshot get = find(snapshots,"a.com",RequestType.GET);
+        assertEquals(3,get.getCount());
+        assertEquals(200,get.getBytesIn());
+        assertEquals(2,get.getRetCodeCount(HttpInfo.SUCCESS));
+        assertEquals(1,get.getRetCodeCount(HttpInfo.CheckNet));
+        assertEquals(1d / 3,get.getCacheHitRatio(),1e-9);
+        assertEquals(1d / 3,get.getErrorRate(),1e-9);
+        assertEquals(30d,get.getMax(),1e-9);
+
+        MetricsSnapshot post = find(snapshots,"a.com",RequestType.POST);
+        assertEquals(1,post.getRetCodeCount(HttpInfo.GatewayTimeOut));
+        assertEquals(50,post.getBytesOut());
+        assertEquals(1d,post.getErrorRate(),1e-9);
+    }
+
+    @Test
+    public void exportNotifiesListenerAndStartsNewWindow(){
+        final AtomicReference<List<MetricsSnapshot>> exported = new AtomicReference<>();
+        MetricsListener listener = new MetricsListener() {
+            @Override
+            public void onMetrics(List<MetricsSnapshot> snapshots) {
+                exported.set(snapshots);
+            }
+        };
+        MetricsRegistry.addListener(listener);
+        try {
+            MetricsRegistry.record("a.com",RequestType.GET,HttpInfo.SUCCESS,1000000L,-1,-1,false);
+            MetricsRegistry.export(true);
+            assertNotNull(exported.get());
+            assertEquals(1,exported.get().size());
+            assertTrue(MetricsRegistry.snapshot().isEmpty());
+        } finally {
+            MetricsRegistry.removeListener(listener);
+        }
+    }
+
+    private static MetricsSnapshot find(List<MetricsSnapshot> snapshots, String host, int requestType){
+        for(MetricsSnapshot snapshot : snapshots){
+            if(snapshot.getHost().equals(host) && snapshot.getRequestType() == requestType)
+                return snapshot;
+        }
+        throw new AssertionError("no snapshot for " + host + " " + requestType);
+    }
+
+}
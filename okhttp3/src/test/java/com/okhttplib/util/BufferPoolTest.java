@@ -0,0 +1,50 @@
+package com.okhttplib.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 传输缓冲池测试：按大小复用缓冲区以及空闲缓冲区上限
+ * @author zhousf
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void reusesBuffersBySize(){
+        BufferPool pool = new BufferPool(1024);
+        byte[] array = pool.takeArray(256);
+        pool.recycle(array);
+        assertEquals(256,pool.getPooledSize());
+        assertNotSame(array,pool.takeArray(128));
+        assertSame(array,pool.takeArray(256));
+        assertEquals(0,pool.getPooledSize());
+
+        ByteBuffer buffer = pool.takeDirect(256);
+        buffer.put((byte) 1);
+        pool.recycle(buffer);
+        ByteBuffer reused = pool.takeDirect(256);
+        assertSame(buffer,reused);
+        assertEquals(0,reused.position());
+        assertEquals(256,reused.limit());
+    }
+
+    @Test
+    public void dropsBuffersAboveMaxSize(){
+        BufferPool pool = new BufferPool(512);
+        pool.recycle(new byte[256]);
+        pool.recycle(new byte[256]);
+        pool.recycle(new byte[256]);
+        pool.recycle(ByteBuffer.allocateDirect(256));
+        assertEquals(512,pool.getPooledSize());
+        pool.setMaxSize(256);
+        assertEquals(256,pool.getPooledSize());
+        pool.setMaxSize(0);
+        assertEquals(0,pool.getPooledSize());
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.okhttplib.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Okio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 下载文件写入测试：按检查点间隔同步存储、从断点位置写入以及截断未同步的数据
+ * @author zhousf
+ */
+public class DownloadFileWriterTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("download-writer",".tmp");
+    }
+
+    @After
+    public void tearDown(){
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void checkpointsAtConfiguredInterval() throws IOException {
+        final List<Long> checkpoints = new ArrayList<>();
+        DownloadFileWriter writer = new DownloadFileWriter(file,0,16,40);
+        writer.setCheckpointListener(new DownloadFileWriter.CheckpointListener() {
+            @Override
+            public void onCheckpoint(long position) {
+                checkpoints.add(position);
+            }
+        });
+        byte[] bytes = bytes(100);
+        for (int i = 0; i < bytes.length; i += 10) {
+            writer.write(bytes,i,10);
+        }
+        assertEquals(Arrays.asList(48L,96L),checkpoints);
+        assertEquals(100,writer.getPosition());
+        assertEquals(96,writer.getCheckpoint());
+        writer.close();
+        assertEquals(Arrays.asList(48L,96L,100L),checkpoints);
+        assertArrayEquals(bytes,read());
+    }
+
+    @Test
+    public void resumesFromPositionAndTruncates() throws IOException {
+        byte[] bytes = bytes(100);
+        DownloadFileWriter writer = new DownloadFileWriter(file,0,64,0);
+        writer.write(bytes,0,80);
+        writer.close();
+        //从检查点60继续写入，删除检查点之后的数据
+        writer = new DownloadFileWriter(file,60,64,0);
+        writer.truncate();
+        assertEquals(60,file.length());
+        writer.write(bytes,60,40);
+        writer.close();
+        assertArrayEquals(bytes,read());
+    }
+
+    private byte[] read() throws IOException {
+        return Okio.buffer(Okio.source(file)).readByteArray();
+    }
+
+    private static byte[] bytes(int length){
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.okhttplib.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * unicode转码测试：单次扫描与原正则实现结果一致，不包含转义时返回原字符串
+ * @author zhousf
+ */
+public class UnicodeUtilTest {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\\\u(\\p{XDigit}{4}))");
+
+    @Test
+    public void unescapesNextToBackslashes(){
+        assertEquivalent("\\u5f20\\u4e09");
+        assertEquivalent("\\\\u0041");
+        assertEquivalent("\\u005cu0041");
+        assertEquivalent("a\\\\\\u0042b\\");
+        assertEquals("\\A",UnicodeUtil.unescape("\\\\u0041"));
+        assertEquals("张三",UnicodeUtil.unescape("\\u5f20\\u4e09"));
+    }
+
+    @Test
+    public void keepsTruncatedEscapes(){
+        assertEquivalent("\\u");
+        assertEquivalent("\\u12");
+        assertEquivalent("abc\\u004");
+        assertEquivalent("\\u00g1\\u0041");
+        assertEquals("abc\\u004",UnicodeUtil.unescape("abc\\u004"));
+    }
+
+    @Test
+    public void returnsSameStringWithoutEscapes(){
+        assertNull(UnicodeUtil.unescape(null));
+        String plain = "{\"name\":\"user\"}";
+        assertSame(plain,UnicodeUtil.unescape(plain));
+        String invalid = "C:\\path\\u12x";
+        assertSame(invalid,UnicodeUtil.unescape(invalid));
+    }
+
+    @Test
+    public void matchesRegexOnRandomInput(){
+        char[] alphabet = {'\\','\\','u','u','0','4','a','F','g','x','中'};
+        Random random = new Random(20261018L);
+        for (int n = 0; n < 20000; n++) {
+            char[] chars = new char[random.nextInt(24)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertEquivalent(new String(chars));
+        }
+    }
+
+    private static void assertEquivalent(String str){
+        assertEquals(str,regexUnescape(str),UnicodeUtil.unescape(str));
+    }
+
+    /**
+     * 原实现：正则查找后逐个替换
+     */
+    private static String regexUnescape(String str){
+        Matcher matcher = PATTERN.matcher(str);
+        char ch;
+        while (matcher.find()) {
+            ch = (char) Integer.parseInt(matcher.group(2), 16);
+            str = str.replace(matcher.group(1), ch + "");
+        }
+        return str;
+    }
+
+}